@@ -5,6 +5,7 @@ import com.example.githubscreenshotmailer.screenshotmailer.exception.*;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -147,6 +148,16 @@ public class GlobalExceptionHandler {
         return buildError(ex.getStatus(), ex.getHeader(), ex.getMessage(), null);
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    protected ResponseEntity<Object> handleTooManyRequestsException(final TooManyRequestsException ex) {
+        // 429 — load shed by admission control; the client retries after Retry-After
+        log.warn("Request rejected: {}", ex.getMessage());
+        ResponseEntity<Object> error = buildError(ex.getStatus(), ex.getHeader(), ex.getMessage(), null);
+        return ResponseEntity.status(error.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(error.getBody());
+    }
+
     // ---------- Builder ----------
     private ResponseEntity<Object> buildError(HttpStatus status,
                                               CustomError.Header header,
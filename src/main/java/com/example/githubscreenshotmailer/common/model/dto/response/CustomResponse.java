@@ -50,4 +50,12 @@ public class CustomResponse<T> {
                 .build();
     }
 
+    public static <T> CustomResponse<T> acceptedOf(final T response) {
+        return CustomResponse.<T>builder()
+                .httpStatus(HttpStatus.ACCEPTED)
+                .isSuccess(true)
+                .response(response)
+                .build();
+    }
+
 }
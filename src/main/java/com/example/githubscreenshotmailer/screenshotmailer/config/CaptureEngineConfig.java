@@ -0,0 +1,70 @@
+package com.example.githubscreenshotmailer.screenshotmailer.config;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.service.CaptureEngine;
+import com.example.githubscreenshotmailer.screenshotmailer.service.DevToolsCaptureEngine;
+import com.example.githubscreenshotmailer.screenshotmailer.service.WebDriverCaptureEngine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class CaptureEngineConfig {
+
+    /**
+     * The configured engine, timed as {@code screenshot.capture.duration} so engines and formats can be compared
+     * in production; written sizes are recorded as {@code screenshot.capture.bytes}.
+     */
+    @Bean
+    @Primary
+    public CaptureEngine captureEngine(GithubAutomationProperties props,
+                                       WebDriverCaptureEngine webDriver,
+                                       DevToolsCaptureEngine devTools,
+                                       MeterRegistry meterRegistry) {
+        String configured = props.getCapture().getEngine();
+        CaptureEngine selected = List.of(webDriver, devTools).stream()
+                .filter(engine -> engine.name().equalsIgnoreCase(configured))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown capture engine '" + configured
+                        + "', expected " + WebDriverCaptureEngine.NAME + " or " + DevToolsCaptureEngine.NAME));
+
+        return new CaptureEngine() {
+            @Override
+            public String name() {
+                return selected.name();
+            }
+
+            @Override
+            public long capture(ChromeDriver driver, Path target, CaptureOptions options) throws IOException {
+                String format = options.format().name().toLowerCase();
+                long start = System.nanoTime();
+                try {
+                    long written = selected.capture(driver, target, options);
+                    DistributionSummary.builder("screenshot.capture.bytes")
+                            .description("Size of the written full-page screenshot")
+                            .baseUnit("bytes")
+                            .tags("engine", selected.name(), "format", format)
+                            .register(meterRegistry)
+                            .record(written);
+                    return written;
+                } finally {
+                    Timer.builder("screenshot.capture.duration")
+                            .description("Time to take the full-page screenshot of a loaded profile")
+                            .tags("engine", selected.name(), "format", format)
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+        };
+    }
+
+}
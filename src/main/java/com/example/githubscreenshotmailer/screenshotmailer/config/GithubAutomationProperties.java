@@ -1,10 +1,21 @@
 package com.example.githubscreenshotmailer.screenshotmailer.config;
 
+import com.example.githubscreenshotmailer.screenshotmailer.exception.InvalidScreenshotRequestException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureRegion;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Getter
 @Setter
 @Component
@@ -12,8 +23,280 @@ import org.springframework.stereotype.Component;
 public class GithubAutomationProperties {
     private String screenshotDir;
     private boolean headless = true;
+    /**
+     * Runs the job, batch, capture and persist workers on virtual threads; follows
+     * {@code spring.threads.virtual.enabled}, which does the same for Tomcat's request threads.
+     */
+    private boolean virtualThreads;
     private String loginEmail;
     private String loginPassword;
     private int mobileApprovalTimeoutSeconds;
+    /** Re-check interval of the mobile approval wait; only used when the browser exposes no DevTools events. */
     private int mobilePollingIntervalSeconds;
+    /** Optional Base32 TOTP secret of the GitHub account; enables unattended authenticator-app 2FA. */
+    private String totpSecret;
+    private DriverService driverService = new DriverService();
+    private Pool pool = new Pool();
+    private BrowserProfile browserProfile = new BrowserProfile();
+    private SessionCache sessionCache = new SessionCache();
+    private ResourceBlocking resourceBlocking = new ResourceBlocking();
+    private Readiness readiness = new Readiness();
+    private Capture capture = new Capture();
+    private Jobs jobs = new Jobs();
+    private Pipeline pipeline = new Pipeline();
+    private Batch batch = new Batch();
+    private CaptureCache captureCache = new CaptureCache();
+    private Admission admission = new Admission();
+
+    /** The chromedriver process that browser sessions are opened against. */
+    @Getter
+    @Setter
+    public static class DriverService {
+        /** One chromedriver for all browsers; {@code false} launches one per browser as Selenium does by default. */
+        private boolean shared = true;
+        /** Path of the chromedriver binary; empty resolves it once at start-up through Selenium Manager. */
+        private String executable;
+        /** Fixed port, or 0 for any free one. */
+        private int port = 0;
+        /** How long start-up (and every restart) waits for chromedriver to answer. */
+        private int startTimeoutSeconds = 20;
+        /** How often the process is checked and restarted if it died. */
+        private int healthCheckIntervalSeconds = 15;
+    }
+
+    /** Sizing of the warm ChromeDriver pool used by captures. */
+    @Getter
+    @Setter
+    public static class Pool {
+        /** Browsers kept launched and idle, ready to be borrowed. */
+        private int minIdle = 1;
+        /** Hard cap of browsers alive at the same time (idle + borrowed). */
+        private int maxTotal = 4;
+        /** Idle browsers above {@code minIdle} are quit after this many seconds unused. */
+        private int idleTimeoutSeconds = 300;
+        /** How long a capture waits for a free browser before failing. */
+        private int borrowTimeoutSeconds = 60;
+        /** A browser is quit instead of reused after this many captures; 0 never recycles on use count. */
+        private int maxUsesPerBrowser = 50;
+        /** A browser whose processes together use more resident memory than this is quit; 0 disables the check. */
+        private int maxBrowserMemoryMb = 1024;
+        /** Times a capture is retried on another browser after its browser crashed. */
+        private int crashRetries = 1;
+        /**
+         * Captures sharing one Chrome process, each in its own browser context (separate cookies and storage).
+         * 1 keeps one process per capture; {@code maxTotal} still caps concurrent captures.
+         */
+        private int contextsPerBrowser = 1;
+    }
+
+    /** Profile and HTTP cache directories of pooled browsers, kept on disk so static assets survive relaunches. */
+    @Getter
+    @Setter
+    public static class BrowserProfile {
+        /** {@code false} launches every browser with Chrome's throwaway temporary profile. */
+        private boolean enabled = true;
+        /** Root of the per-browser profiles and caches; defaults to {@code <screenshotDir>/_browser}. */
+        private String workDir;
+        /** Profile copied into every new browser's profile directory, e.g. with preferences; empty starts blank. */
+        private String templateDir;
+        /** Limit of each disk cache; the number of caches is {@code pool.maxTotal}. */
+        private int diskCacheSizeMb = 256;
+    }
+
+    /** Reuse of authenticated GitHub cookies across {@code withLogin} captures. */
+    @Getter
+    @Setter
+    public static class SessionCache {
+        private boolean enabled = true;
+        /** Encrypted cookie file; defaults to {@code <screenshotDir>/_auth/github-session.bin}. */
+        private String file;
+        /** Base64 AES key (16, 24 or 32 bytes). When blank the session is only kept in memory. */
+        private String encryptionKey;
+    }
+
+    /** Requests Chrome refuses to load while capturing (DevTools {@code Network.setBlockedURLs} patterns). */
+    @Getter
+    @Setter
+    public static class ResourceBlocking {
+        private boolean enabled = true;
+        /**
+         * Defaults only cover telemetry and analytics, which never contribute pixels to a profile page.
+         * Fonts, images and media are left alone so the rendered profile stays identical.
+         */
+        private List<String> patterns = new ArrayList<>(List.of(
+                "*://collector.github.com/*",
+                "*://api.github.com/_private/browser/*",
+                "*://github.com/_private/browser/*",
+                "*://*.google-analytics.com/*",
+                "*://*.googletagmanager.com/*",
+                "*://*.doubleclick.net/*"
+        ));
+    }
+
+    /** When a navigated page counts as ready to capture; every stage has its own deadline. */
+    @Getter
+    @Setter
+    public static class Readiness {
+        /** Stage 1: the document is parsed (DOMContentLoaded). Missing this deadline fails the capture. */
+        private int domTimeoutSeconds = 30;
+        /** Stage 2: no more than {@code maxInflightRequests} requests pending for this long. */
+        private int networkIdleMs = 500;
+        private int maxInflightRequests = 0;
+        private int networkIdleTimeoutSeconds = 10;
+        /** Stage 3: CSS selectors that must all match, e.g. {@code img.avatar}; empty skips the stage. */
+        private List<String> requiredSelectors = new ArrayList<>();
+        private int selectorTimeoutSeconds = 5;
+    }
+
+    /** Asynchronous requests ({@code ?async=true}): run by a bounded worker pool and polled by job id. */
+    @Getter
+    @Setter
+    public static class Jobs {
+        /** Jobs processed at the same time. */
+        private int workers = 4;
+        /** Jobs waiting for a worker; further submissions are rejected with 503. */
+        private int queueCapacity = 100;
+        /** Finished jobs stay queryable this long. */
+        private int retentionMinutes = 60;
+    }
+
+    /** Reuse of recent captures: a request for a profile captured within the TTL gets that file, no browser. */
+    @Getter
+    @Setter
+    public static class CaptureCache {
+        private boolean enabled = true;
+        /** How old a capture may be and still be sent; 0 disables reuse. */
+        private int ttlMinutes = 10;
+        /** Captures remembered at most; the least recently used are forgotten first. */
+        private int maxEntries = 1000;
+        /** Total size of the remembered files; 0 means no size limit. */
+        private int maxSizeMb = 512;
+    }
+
+    /** {@code POST /batch}: many independent requests, queued as jobs on workers of their own. */
+    @Getter
+    @Setter
+    public static class Batch {
+        /** Batch items processed at the same time, across all batches; the rest wait their turn. */
+        private int parallelism = 4;
+        /** Batch items waiting for a worker, across all batches; items beyond it are not accepted. */
+        private int queueCapacity = 1000;
+    }
+
+    /**
+     * Worker pools of the capture → mail → persist stages. Each stage hands its result to the next one's queue
+     * and takes new work at once, so a slow SMTP server does not keep a browser idle. A full queue makes the
+     * stage feeding it wait.
+     */
+    @Getter
+    @Setter
+    public static class Pipeline {
+        private Stage capture = new Stage(0, 20);
+        private Stage mail = new Stage(2, 50);
+        private Stage persist = new Stage(2, 50);
+    }
+
+    /**
+     * Admission control: how many captures and logins run at once, and how many requests may wait for one. A
+     * request that finds the wait queue full, or waits longer than allowed, is answered
+     * {@code 429 Too Many Requests} with {@code Retry-After} instead of piling up browsers.
+     */
+    @Getter
+    @Setter
+    public static class Admission {
+        /** Concurrency 0 means one per pooled browser ({@code pool.maxTotal}). */
+        private Limit capture = new Limit(0, 20, 30, 10);
+        /** Logins are serialized anyway; waiters share the session the running login stores. */
+        private Limit login = new Limit(1, 8, 180, 30);
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        /** Holders at the same time. */
+        private int concurrency;
+        /** Requests waiting for a holder to finish; one more is rejected at once. */
+        private int queueCapacity;
+        /** Longest wait in the queue before the request is rejected. */
+        private int maxWaitSeconds;
+        /** Sent as {@code Retry-After} on rejection. */
+        private int retryAfterSeconds;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stage {
+        /** Threads of the stage; 0 for capture means one per pooled browser ({@code pool.maxTotal}). */
+        private int workers;
+        /** Items waiting for a worker of this stage. */
+        private int queueCapacity;
+    }
+
+    /** How the screenshot itself is taken once the page is ready. */
+    @Getter
+    @Setter
+    public static class Capture {
+        /** {@code webdriver} (chromedriver HTTP + JavaScript sizing) or {@code devtools} (direct DevTools WebSocket). */
+        private String engine = "webdriver";
+        /** Tallest page (CSS pixels) captured; taller ones are handled per {@code overflow}. 0 captures everything. */
+        private int maxPageHeight = 16384;
+        private Overflow overflow = Overflow.CROP;
+        /** Capture in clips of this many CSS pixels and stitch them; 0 captures the page in one shot. */
+        private int tileHeight = 0;
+        /**
+         * Largest JPEG (device pixels) stitched from tiles, which is built in memory at 3 bytes per pixel; larger
+         * pages are scaled down to fit. PNG tiles are encoded as they arrive and need no limit. 0 disables it.
+         */
+        private long maxStitchedPixels = 16_000_000;
+        /** Default output format and quality (0-100, lossy formats only); requests may override both. */
+        private ImageFormat format = ImageFormat.PNG;
+        private int quality = 80;
+        /** Lets Chrome encode faster at the cost of larger files. */
+        private boolean optimizeForSpeed = false;
+        /**
+         * Regions a request may capture instead of the full page, by name. Requests can only pick a name, so
+         * the selectors run on the page stay under server control.
+         */
+        private Map<String, String> regions = new LinkedHashMap<>(Map.of(
+                "profile-card", ".h-card",
+                "contribution-graph", ".js-yearly-contributions",
+                "pinned-repos", ".js-pinned-items-reorder-container"));
+
+        public CaptureOptions options(ImageFormat requestedFormat, Integer requestedQuality) {
+            return options(requestedFormat, requestedQuality, null);
+        }
+
+        /**
+         * Applies the request's overrides, when given, to the configured defaults.
+         *
+         * @throws InvalidScreenshotRequestException if the region is not one of the configured ones
+         */
+        public CaptureOptions options(ImageFormat requestedFormat, Integer requestedQuality, String regionName) {
+            CaptureRegion region = null;
+            if (regionName != null && !regionName.isBlank()) {
+                String selector = regions.get(regionName);
+                if (selector == null) {
+                    throw new InvalidScreenshotRequestException(
+                            "Unknown region '%s', expected one of %s".formatted(regionName, regions.keySet()));
+                }
+                region = new CaptureRegion(regionName, selector);
+            }
+            return new CaptureOptions(
+                    requestedFormat != null ? requestedFormat : format,
+                    requestedQuality != null ? requestedQuality : quality,
+                    optimizeForSpeed,
+                    region);
+        }
+
+        public enum Overflow {
+            /** Keep the top {@code maxPageHeight} pixels. */
+            CROP,
+            /** Keep the whole page, scaled down to {@code maxPageHeight} pixels. */
+            SCALE
+        }
+    }
 }
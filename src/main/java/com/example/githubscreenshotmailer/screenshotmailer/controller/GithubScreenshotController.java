@@ -3,13 +3,23 @@ package com.example.githubscreenshotmailer.screenshotmailer.controller;
 import com.example.githubscreenshotmailer.common.model.CustomPage;
 import com.example.githubscreenshotmailer.common.model.dto.response.CustomPagingResponse;
 import com.example.githubscreenshotmailer.common.model.dto.response.CustomResponse;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotBatch;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotJob;
 import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotRecord;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.BatchScreenshotRequest;
 import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.FilterServicePagingRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.MultiScreenshotRequest;
 import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ScreenshotRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.response.BatchScreenshotResponse;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.response.ScreenshotJobResponse;
 import com.example.githubscreenshotmailer.screenshotmailer.model.dto.response.ScreenshotResponse;
 import com.example.githubscreenshotmailer.screenshotmailer.model.mapper.CustomPageScreenshotRecordToCustomPagingScreenshotResponseMapper;
+import com.example.githubscreenshotmailer.screenshotmailer.model.mapper.ScreenshotBatchToBatchScreenshotResponseMapper;
+import com.example.githubscreenshotmailer.screenshotmailer.model.mapper.ScreenshotJobToScreenshotJobResponseMapper;
 import com.example.githubscreenshotmailer.screenshotmailer.model.mapper.ScreenshotRecordToScreenshotResponseMapper;
 import com.example.githubscreenshotmailer.screenshotmailer.service.GithubScreenshotService;
+import com.example.githubscreenshotmailer.screenshotmailer.service.ScreenshotBatchService;
+import com.example.githubscreenshotmailer.screenshotmailer.service.ScreenshotJobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -22,6 +32,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/github-screenshots")
 @RequiredArgsConstructor
@@ -33,6 +45,8 @@ import org.springframework.web.bind.annotation.*;
 public class GithubScreenshotController {
 
     private final GithubScreenshotService service;
+    private final ScreenshotJobService jobService;
+    private final ScreenshotBatchService batchService;
 
     private static final ScreenshotRecordToScreenshotResponseMapper DOMAIN_TO_RESPONSE =
             ScreenshotRecordToScreenshotResponseMapper.initialize();
@@ -40,6 +54,12 @@ public class GithubScreenshotController {
     private static final CustomPageScreenshotRecordToCustomPagingScreenshotResponseMapper PAGE_MAPPER =
             CustomPageScreenshotRecordToCustomPagingScreenshotResponseMapper.initialize();
 
+    private static final ScreenshotJobToScreenshotJobResponseMapper JOB_TO_RESPONSE =
+            ScreenshotJobToScreenshotJobResponseMapper.initialize();
+
+    private static final ScreenshotBatchToBatchScreenshotResponseMapper BATCH_TO_RESPONSE =
+            ScreenshotBatchToBatchScreenshotResponseMapper.initialize();
+
     /**
      * Capture GitHub profile screenshot and persist record
      */
@@ -78,6 +98,125 @@ public class GithubScreenshotController {
         return CustomResponse.createdOf(response);
     }
 
+    /**
+     * Queue a GitHub profile screenshot and return its job id right away
+     */
+    @Operation(
+            summary = "Queue a GitHub profile screenshot",
+            description = "Same as the synchronous call, but returns 202 with a job id at once; the capture, "
+                    + "email and record happen in the background. Poll GET /jobs/{jobId} for its stage and result."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Job queued.",
+                    content = @Content(schema = @Schema(implementation = CustomResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Validation error in the request.",
+                    content = @Content(schema = @Schema(implementation = CustomResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Job queue is full; retry later.",
+                    content = @Content(schema = @Schema(implementation = CustomResponse.class))
+            )
+    })
+    @PostMapping(params = "async=true", consumes = "application/json", produces = "application/json")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public CustomResponse<ScreenshotJobResponse> createAsync(@Valid @RequestBody ScreenshotRequest request) {
+        ScreenshotJob job = jobService.submit(request);
+        return CustomResponse.acceptedOf(JOB_TO_RESPONSE.map(job));
+    }
+
+    /**
+     * Get the stage and result of a queued screenshot
+     */
+    @Operation(
+            summary = "Get a screenshot job",
+            description = "Returns the job's stage (QUEUED, CAPTURING, EMAILING, PERSISTING, SUCCEEDED, FAILED), "
+                    + "the screenshot record once it succeeded, or the error once it failed."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Job state returned.",
+                    content = @Content(schema = @Schema(implementation = CustomResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Unknown job, or finished longer ago than the retention period.",
+                    content = @Content(schema = @Schema(implementation = CustomResponse.class))
+            )
+    })
+    @GetMapping(value = "/jobs/{jobId}", produces = "application/json")
+    public CustomResponse<ScreenshotJobResponse> getJob(@PathVariable String jobId) {
+        return CustomResponse.successOf(JOB_TO_RESPONSE.map(jobService.get(jobId)));
+    }
+
+    /**
+     * Capture several pages / viewports of one GitHub profile and persist a record per file
+     */
+    @Operation(
+            summary = "Capture several screenshots of a GitHub profile",
+            description = "Captures each target (profile page, viewport preset, optional region) in one browser "
+                    + "session with a single login, emails all images in one message, and stores a record per image."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "201",
+                    description = "Screenshots captured, emailed, and persisted successfully.",
+                    content = @Content(schema = @Schema(implementation = CustomResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Validation error in the request, or an unknown region.",
+                    content = @Content(schema = @Schema(implementation = CustomResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Unexpected server error while capturing or emailing.",
+                    content = @Content(schema = @Schema(implementation = CustomResponse.class))
+            )
+    })
+    @PostMapping(value = "/multi", consumes = "application/json", produces = "application/json")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CustomResponse<List<ScreenshotResponse>> createMulti(@Valid @RequestBody MultiScreenshotRequest request) {
+        List<ScreenshotResponse> response = service.processMulti(request).stream()
+                .map(DOMAIN_TO_RESPONSE::map)
+                .toList();
+        return CustomResponse.createdOf(response);
+    }
+
+    /**
+     * Queue screenshots for many GitHub users as asynchronous jobs
+     */
+    @Operation(
+            summary = "Queue a batch of screenshot requests",
+            description = "Queues up to 500 independent screenshot requests as asynchronous jobs, run side by side "
+                    + "(capped by github-automation.batch.parallelism), and returns their job ids at once. Each "
+                    + "request gets its own email and record; poll GET /jobs/{jobId} for each item's stage and result."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Batch queued; see each item for its job id, or why it was not queued.",
+                    content = @Content(schema = @Schema(implementation = CustomResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Validation error in the batch or one of its requests.",
+                    content = @Content(schema = @Schema(implementation = CustomResponse.class))
+            )
+    })
+    @PostMapping(value = "/batch", consumes = "application/json", produces = "application/json")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public CustomResponse<BatchScreenshotResponse> createBatch(@Valid @RequestBody BatchScreenshotRequest request) {
+        ScreenshotBatch batch = batchService.submit(request);
+        return CustomResponse.acceptedOf(BATCH_TO_RESPONSE.map(batch));
+    }
+
     /**
      * Get paginated screenshot records with optional filters
      */
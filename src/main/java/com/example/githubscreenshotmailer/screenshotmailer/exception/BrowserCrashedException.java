@@ -0,0 +1,13 @@
+package com.example.githubscreenshotmailer.screenshotmailer.exception;
+
+/**
+ * The browser page crashed or was detached in the middle of a capture; the capture may succeed on another
+ * browser.
+ */
+public class BrowserCrashedException extends ScreenshotCaptureException {
+
+    public BrowserCrashedException(String reason, Throwable cause) {
+        super("browser crashed (" + reason + ")", cause);
+    }
+
+}
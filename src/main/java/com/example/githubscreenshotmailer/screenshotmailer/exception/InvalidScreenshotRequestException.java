@@ -0,0 +1,23 @@
+package com.example.githubscreenshotmailer.screenshotmailer.exception;
+
+import com.example.githubscreenshotmailer.common.model.CustomError;
+import org.springframework.http.HttpStatus;
+
+/** A screenshot request that passed bean validation but asks for something the server does not offer. */
+public class InvalidScreenshotRequestException extends ApiException {
+
+    public static final HttpStatus STATUS = HttpStatus.BAD_REQUEST;
+
+    public static final CustomError.Header HEADER = CustomError.Header.VALIDATION_ERROR;
+
+    public InvalidScreenshotRequestException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatus() { return STATUS; }
+
+    @Override
+    public CustomError.Header getHeader() { return HEADER; }
+
+}
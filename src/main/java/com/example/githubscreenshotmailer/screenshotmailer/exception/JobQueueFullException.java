@@ -0,0 +1,22 @@
+package com.example.githubscreenshotmailer.screenshotmailer.exception;
+
+import com.example.githubscreenshotmailer.common.model.CustomError;
+import org.springframework.http.HttpStatus;
+
+/** The asynchronous job queue is at capacity; the client should retry later. */
+public class JobQueueFullException extends ApiException {
+
+    public static final HttpStatus STATUS = HttpStatus.SERVICE_UNAVAILABLE; // 503
+    public static final CustomError.Header HEADER = CustomError.Header.API_ERROR;
+
+    public JobQueueFullException(int capacity) {
+        super("Screenshot job queue is full (%d waiting), retry later".formatted(capacity));
+    }
+
+    @Override
+    public HttpStatus getStatus() { return STATUS; }
+
+    @Override
+    public CustomError.Header getHeader() { return HEADER; }
+
+}
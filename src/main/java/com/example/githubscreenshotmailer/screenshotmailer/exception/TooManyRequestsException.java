@@ -0,0 +1,28 @@
+package com.example.githubscreenshotmailer.screenshotmailer.exception;
+
+import com.example.githubscreenshotmailer.common.model.CustomError;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/** A concurrency limit and its wait queue are full; answered with a {@code Retry-After} header. */
+@Getter
+public class TooManyRequestsException extends ApiException {
+
+    public static final HttpStatus STATUS = HttpStatus.TOO_MANY_REQUESTS; // 429
+    public static final CustomError.Header HEADER = CustomError.Header.API_ERROR;
+
+    /** Seconds the client should wait before sending the request again. */
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String resource, String reason, long retryAfterSeconds) {
+        super("Too many concurrent %s requests (%s), retry in %d s".formatted(resource, reason, retryAfterSeconds));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public HttpStatus getStatus() { return STATUS; }
+
+    @Override
+    public CustomError.Header getHeader() { return HEADER; }
+
+}
@@ -0,0 +1,86 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ResourceBlockingOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * What makes two screenshots identical: the same profile, login state, resource blocking and capture options.
+ * GitHub usernames are case-insensitive, so {@link #of} lower-cases them. Options that cannot change the image are
+ * normalised away, so such requests share a key: the quality of a lossless format, the order and repeats of the
+ * extra blocked patterns, and an override that changes nothing.
+ */
+public record CaptureKey(
+        String githubUsername,
+        boolean withLogin,
+        ResourceBlockingOptions resourceBlocking,
+        CaptureOptions options
+) {
+
+    public CaptureKey {
+        resourceBlocking = normalize(resourceBlocking);
+        options = normalize(options);
+    }
+
+    public static CaptureKey of(String githubUsername, boolean withLogin, ResourceBlockingOptions resourceBlocking,
+                                CaptureOptions options) {
+        return new CaptureKey(githubUsername.toLowerCase(Locale.ROOT), withLogin, resourceBlocking, options);
+    }
+
+    /**
+     * SHA-256 of the key's components, stored with each record so the key survives a restart. It hashes a canonical
+     * form built here rather than the records' {@code toString()}, which is not meant to be stable.
+     */
+    public String id() {
+        StringBuilder canonical = new StringBuilder()
+                .append(githubUsername).append('|')
+                .append(withLogin).append('|');
+        if (resourceBlocking != null) {
+            canonical.append(resourceBlocking.enabled()).append(':');
+            if (resourceBlocking.extraPatterns() != null) {
+                canonical.append(String.join("\n", resourceBlocking.extraPatterns()));
+            }
+        }
+        canonical.append('|');
+        if (options != null) {
+            canonical.append(options.format()).append(':')
+                    .append(options.quality()).append(':')
+                    .append(options.optimizeForSpeed()).append(':')
+                    .append(options.region() != null ? options.region().selector() : "").append(':')
+                    .append(options.viewport() != null ? options.viewport() : "");
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    /** Sorted, duplicate-free patterns; {@code null} for an override that keeps the configured profile as is. */
+    private static ResourceBlockingOptions normalize(ResourceBlockingOptions blocking) {
+        if (blocking == null) return null;
+        List<String> patterns = blocking.extraPatterns() == null || blocking.extraPatterns().isEmpty()
+                ? null
+                : List.copyOf(new TreeSet<>(blocking.extraPatterns()));
+        if (blocking.enabled() == null && patterns == null) return null;
+        return new ResourceBlockingOptions(blocking.enabled(), patterns);
+    }
+
+    /** Quality 0 for lossless formats, which ignore it. */
+    private static CaptureOptions normalize(CaptureOptions options) {
+        if (options == null || options.format() == null || options.format().isLossy() || options.quality() == 0) {
+            return options;
+        }
+        return new CaptureOptions(options.format(), 0, options.optimizeForSpeed(), options.region(),
+                options.viewport());
+    }
+
+}
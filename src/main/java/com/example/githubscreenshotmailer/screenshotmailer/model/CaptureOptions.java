@@ -0,0 +1,49 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ViewportPreset;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How one capture is encoded.
+ *
+ * @param format           output image format
+ * @param quality          0-100, only used by lossy formats
+ * @param optimizeForSpeed trade output size for encoding speed in Chrome
+ * @param region           element to capture; {@code null} captures the full page
+ * @param viewport         emulated screen size; {@code null} keeps the browser window as launched
+ */
+public record CaptureOptions(
+        ImageFormat format,
+        int quality,
+        boolean optimizeForSpeed,
+        CaptureRegion region,
+        ViewportPreset viewport
+) {
+
+    public static final CaptureOptions PNG = new CaptureOptions(ImageFormat.PNG, 100, false);
+
+    public CaptureOptions(ImageFormat format, int quality, boolean optimizeForSpeed) {
+        this(format, quality, optimizeForSpeed, null, null);
+    }
+
+    public CaptureOptions(ImageFormat format, int quality, boolean optimizeForSpeed, CaptureRegion region) {
+        this(format, quality, optimizeForSpeed, region, null);
+    }
+
+    public CaptureOptions withViewport(ViewportPreset viewport) {
+        return new CaptureOptions(format, quality, optimizeForSpeed, region, viewport);
+    }
+
+    /** The encoding parameters of {@code Page.captureScreenshot}. */
+    public Map<String, Object> screenshotParams() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("format", format.getCdpName());
+        if (format.isLossy()) params.put("quality", quality);
+        if (optimizeForSpeed) params.put("optimizeForSpeed", true);
+        return params;
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model;
+
+/**
+ * Part of the profile page captured instead of the whole page.
+ *
+ * @param name     allowlisted name the request used, e.g. {@code contribution-graph}
+ * @param selector CSS selector configured for that name
+ */
+public record CaptureRegion(
+        String name,
+        String selector
+) {}
@@ -0,0 +1,19 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model;
+
+/**
+ * Snapshot of the GitHub page currently loaded in a browser, as returned by a single in-page probe.
+ *
+ * @param challengeDigit digit shown on the GitHub Mobile challenge, or {@code null} when none is visible
+ */
+public record GithubPageState(
+        boolean loggedIn,
+        boolean otpPage,
+        boolean mobilePage,
+        boolean flashError,
+        String challengeDigit
+) {
+
+    /** State reported when the page could not be probed (no JavaScript, navigation in progress). */
+    public static final GithubPageState UNKNOWN = new GithubPageState(false, false, false, false, null);
+
+}
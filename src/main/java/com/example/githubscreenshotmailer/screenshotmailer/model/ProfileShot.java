@@ -0,0 +1,18 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ProfileTab;
+
+import java.nio.file.Path;
+
+/**
+ * One screenshot taken while a browser session is open on a profile.
+ *
+ * @param tab     profile page to open
+ * @param options how to render and encode it
+ * @param file    where to write it
+ */
+public record ProfileShot(
+        ProfileTab tab,
+        CaptureOptions options,
+        Path file
+) {}
@@ -0,0 +1,39 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model;
+
+import java.util.List;
+
+/**
+ * Outcome of submitting a batch, one item per request in request order.
+ */
+public record ScreenshotBatch(
+        List<Item> items
+) {
+
+    /**
+     * @param index position of the request in the batch
+     * @param job   the queued job to poll, or {@code null} when the request was not accepted
+     * @param error why the request was not accepted, or {@code null} when it was
+     */
+    public record Item(
+            int index,
+            String githubUsername,
+            String recipientEmail,
+            ScreenshotJob job,
+            String error
+    ) {
+
+        public boolean accepted() {
+            return error == null;
+        }
+
+    }
+
+    public long accepted() {
+        return items.stream().filter(Item::accepted).count();
+    }
+
+    public long rejected() {
+        return items.size() - accepted();
+    }
+
+}
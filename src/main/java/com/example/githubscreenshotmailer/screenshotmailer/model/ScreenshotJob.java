@@ -0,0 +1,26 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.JobStage;
+import lombok.Builder;
+import lombok.With;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of an asynchronous screenshot request at one point in time.
+ *
+ * @param result the persisted record once the job {@link JobStage#SUCCEEDED}
+ * @param error  why the job {@link JobStage#FAILED}
+ */
+@With
+@Builder
+public record ScreenshotJob(
+        String id,
+        String githubUsername,
+        JobStage stage,
+        LocalDateTime submittedAt,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        ScreenshotRecord result,
+        String error
+) {}
@@ -1,5 +1,6 @@
 package com.example.githubscreenshotmailer.screenshotmailer.model;
 
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
 import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ScreenshotStatus;
 
 import java.time.LocalDateTime;
@@ -11,6 +12,7 @@ public record ScreenshotRecord(
         String fileName,
         String path,
         long fileSize,
+        ImageFormat format,
         LocalDateTime sentAt,
         ScreenshotStatus status
 ) {}
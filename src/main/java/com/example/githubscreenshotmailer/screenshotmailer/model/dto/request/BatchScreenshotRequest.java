@@ -0,0 +1,15 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Many independent screenshot requests, e.g. a team roster, each queued as an asynchronous job.
+ */
+public record BatchScreenshotRequest(
+        @NotEmpty @Size(max = 500) List<@Valid @NotNull ScreenshotRequest> requests
+) {}
@@ -0,0 +1,18 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.dto.request;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ProfileTab;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ViewportPreset;
+import jakarta.validation.constraints.Size;
+
+/**
+ * One output of a multi-target request.
+ *
+ * @param page     profile page; {@code null} means the overview
+ * @param viewport screen size; {@code null} means the browser's desktop window
+ * @param region   optional named region, as in a single request
+ */
+public record CaptureTarget(
+        ProfileTab page,
+        ViewportPreset viewport,
+        @Size(max = 64) String region
+) {}
@@ -0,0 +1,27 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.dto.request;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Several screenshots of one profile (pages, viewports, regions), taken in one browser session with at most one
+ * login and sent in one email.
+ */
+public record MultiScreenshotRequest(
+        @NotBlank String githubUsername,
+        @Email @NotBlank String recipientEmail,
+        boolean withLogin,
+        @Valid ResourceBlockingOptions resourceBlocking,
+        ImageFormat format,
+        @Min(0) @Max(100) Integer quality,
+        @NotEmpty @Size(max = 10) List<@Valid @NotNull CaptureTarget> targets
+) {}
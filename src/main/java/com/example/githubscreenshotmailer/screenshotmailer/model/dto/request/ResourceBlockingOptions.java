@@ -0,0 +1,17 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Per-request override of the configured resource blocking profile.
+ *
+ * @param enabled       {@code false} loads everything, {@code true} forces blocking on; {@code null} keeps the default
+ * @param extraPatterns additional URL patterns (e.g. {@code *.mp4}) blocked on top of the configured ones
+ */
+public record ResourceBlockingOptions(
+        Boolean enabled,
+        @Size(max = 50) List<@NotBlank String> extraPatterns
+) {}
@@ -1,10 +1,37 @@
 package com.example.githubscreenshotmailer.screenshotmailer.model.dto.request;
 
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 public record ScreenshotRequest(
         @NotBlank String githubUsername,
         @Email @NotBlank String recipientEmail,
-        boolean withLogin
-) {}
+        boolean withLogin,
+        @Valid ResourceBlockingOptions resourceBlocking,
+        ImageFormat format,
+        @Min(0) @Max(100) Integer quality,
+        @Size(max = 64) String region,
+        boolean forceRefresh
+) {
+
+    public ScreenshotRequest(String githubUsername, String recipientEmail, boolean withLogin) {
+        this(githubUsername, recipientEmail, withLogin, null);
+    }
+
+    public ScreenshotRequest(String githubUsername, String recipientEmail, boolean withLogin,
+                             ResourceBlockingOptions resourceBlocking) {
+        this(githubUsername, recipientEmail, withLogin, resourceBlocking, null, null, null);
+    }
+
+    public ScreenshotRequest(String githubUsername, String recipientEmail, boolean withLogin,
+                             ResourceBlockingOptions resourceBlocking, ImageFormat format, Integer quality,
+                             String region) {
+        this(githubUsername, recipientEmail, withLogin, resourceBlocking, format, quality, region, false);
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.dto.response;
+
+import java.util.List;
+
+public record BatchScreenshotResponse(
+        int total,
+        long accepted,
+        long rejected,
+        List<Item> items
+) {
+
+    public record Item(
+            int index,
+            String githubUsername,
+            String recipientEmail,
+            boolean accepted,
+            ScreenshotJobResponse job,
+            String error
+    ) {}
+
+}
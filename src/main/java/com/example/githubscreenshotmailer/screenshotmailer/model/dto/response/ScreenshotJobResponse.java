@@ -0,0 +1,14 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.dto.response;
+
+import java.time.LocalDateTime;
+
+public record ScreenshotJobResponse(
+        String jobId,
+        String githubUsername,
+        String stage,
+        LocalDateTime submittedAt,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        ScreenshotResponse result,
+        String error
+) {}
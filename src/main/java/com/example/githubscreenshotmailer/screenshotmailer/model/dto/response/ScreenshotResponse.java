@@ -9,6 +9,7 @@ public record ScreenshotResponse(
         String fileName,
         String path,
         long fileSize,
+        String format,
         LocalDateTime sentAt,
         String status
 ) {}
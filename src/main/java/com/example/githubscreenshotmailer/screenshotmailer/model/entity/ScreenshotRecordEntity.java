@@ -1,6 +1,7 @@
 package com.example.githubscreenshotmailer.screenshotmailer.model.entity;
 
 import com.example.githubscreenshotmailer.common.model.entity.BaseEntity;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
 import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ScreenshotStatus;
 import jakarta.persistence.*;
 import lombok.*;
@@ -36,6 +37,10 @@ public class ScreenshotRecordEntity extends BaseEntity {
     @Column(nullable = false)
     private long fileSizeBytes;
 
+    /** Null for records written before formats were configurable, which are all PNG. */
+    @Enumerated(EnumType.STRING)
+    private ImageFormat imageFormat;
+
     @Column(nullable = false)
     private LocalDateTime sentAt;
 
@@ -43,4 +48,11 @@ public class ScreenshotRecordEntity extends BaseEntity {
     @Column(nullable = false)
     private ScreenshotStatus status;
 
+    /** {@code CaptureKey.id()} of the image, to reuse it; null for multi-target shots and older records. */
+    @Column(length = 64)
+    private String captureKey;
+
+    /** When the image was taken; earlier than {@code sentAt} when a recent capture was reused. */
+    private LocalDateTime capturedAt;
+
 }
@@ -0,0 +1,38 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+
+/** Image formats Chrome can encode screenshots in. */
+@Getter
+@RequiredArgsConstructor
+public enum ImageFormat {
+
+    PNG("png", "png", "image/png"),
+    JPEG("jpeg", "jpg", "image/jpeg"),
+    WEBP("webp", "webp", "image/webp");
+
+    /** Value of {@code Page.captureScreenshot}'s {@code format}. */
+    private final String cdpName;
+    private final String extension;
+    private final String contentType;
+
+    /** Whether the format takes a {@code quality}; PNG is lossless. */
+    public boolean isLossy() {
+        return this != PNG;
+    }
+
+    /** Accepts any case, and {@code jpg} for JPEG. */
+    @JsonCreator
+    public static ImageFormat from(String value) {
+        if (value == null) return null;
+        return Arrays.stream(values())
+                .filter(f -> f.name().equalsIgnoreCase(value) || f.extension.equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported image format: " + value));
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.enums;
+
+/** Progress of an asynchronous screenshot job, in the order the stages are passed. */
+public enum JobStage {
+
+    QUEUED,
+    CAPTURING,
+    EMAILING,
+    PERSISTING,
+    SUCCEEDED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** Pages of a GitHub profile, reached through the {@code tab} query parameter. */
+@Getter
+@RequiredArgsConstructor
+public enum ProfileTab {
+
+    OVERVIEW(null),
+    REPOSITORIES("repositories"),
+    PROJECTS("projects"),
+    PACKAGES("packages"),
+    STARS("stars"),
+    FOLLOWERS("followers"),
+    FOLLOWING("following");
+
+    private final String tab;
+
+    public String url(String githubUsername) {
+        String profile = "https://github.com/" + githubUsername;
+        return tab == null ? profile : profile + "?tab=" + tab;
+    }
+
+    /** Accepts any case. */
+    @JsonCreator
+    public static ProfileTab from(String value) {
+        return value == null ? null : valueOf(value.trim().toUpperCase());
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.example.githubscreenshotmailer.screenshotmailer.model.enums;
 
 public enum ScreenshotStatus {
+    /** Inserted when a request starts; set to SUCCESS or FAILED when it ends. */
+    PENDING,
     SUCCESS,
     FAILED
 }
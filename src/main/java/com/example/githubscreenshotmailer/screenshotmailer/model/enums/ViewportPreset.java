@@ -0,0 +1,30 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Screen sizes a capture can be rendered at, emulated in the running browser. {@link #DESKTOP} matches the
+ * window every browser is launched with.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ViewportPreset {
+
+    DESKTOP(1366, 768, 1.0, false),
+    TABLET(820, 1180, 2.0, true),
+    MOBILE(390, 844, 3.0, true);
+
+    private final int width;
+    private final int height;
+    private final double deviceScaleFactor;
+    private final boolean mobile;
+
+    /** Accepts any case. */
+    @JsonCreator
+    public static ViewportPreset from(String value) {
+        return value == null ? null : valueOf(value.trim().toUpperCase());
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.mapper;
+
+import com.example.githubscreenshotmailer.common.model.mapper.BaseMapper;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotBatch;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.response.BatchScreenshotResponse;
+import org.mapstruct.Mapper;
+import org.mapstruct.Named;
+import org.mapstruct.factory.Mappers;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+@Mapper
+public interface ScreenshotBatchToBatchScreenshotResponseMapper
+        extends BaseMapper<ScreenshotBatch, BatchScreenshotResponse> {
+
+    ScreenshotJobToScreenshotJobResponseMapper JOB_TO_RESPONSE = ScreenshotJobToScreenshotJobResponseMapper.initialize();
+
+    /**
+     * Maps a batch outcome to API response DTO, with the accepted and rejected counts.
+     */
+    @Named("mapToResponse")
+    default BatchScreenshotResponse mapToResponse(ScreenshotBatch batch) {
+        if (batch == null)
+            return null;
+
+        List<BatchScreenshotResponse.Item> items = batch.items().stream()
+                .map(item -> new BatchScreenshotResponse.Item(
+                        item.index(),
+                        item.githubUsername(),
+                        item.recipientEmail(),
+                        item.accepted(),
+                        JOB_TO_RESPONSE.map(item.job()),
+                        item.error()))
+                .toList();
+
+        return new BatchScreenshotResponse(items.size(), batch.accepted(), batch.rejected(), items);
+    }
+
+    @Override
+    default BatchScreenshotResponse map(ScreenshotBatch source) {
+        return mapToResponse(source);
+    }
+
+    @Override
+    default List<BatchScreenshotResponse> map(Collection<ScreenshotBatch> sources) {
+        if (sources == null) return List.of();
+        return sources.stream()
+                .filter(Objects::nonNull)
+                .map(this::mapToResponse)
+                .toList();
+    }
+
+    /**
+     * Initializes and returns a mapper instance.
+     */
+    static ScreenshotBatchToBatchScreenshotResponseMapper initialize() {
+        return Mappers.getMapper(ScreenshotBatchToBatchScreenshotResponseMapper.class);
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model.mapper;
+
+import com.example.githubscreenshotmailer.common.model.mapper.BaseMapper;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotJob;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.response.ScreenshotJobResponse;
+import org.mapstruct.Mapper;
+import org.mapstruct.Named;
+import org.mapstruct.factory.Mappers;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+@Mapper
+public interface ScreenshotJobToScreenshotJobResponseMapper
+        extends BaseMapper<ScreenshotJob, ScreenshotJobResponse> {
+
+    ScreenshotRecordToScreenshotResponseMapper RECORD_TO_RESPONSE = ScreenshotRecordToScreenshotResponseMapper.initialize();
+
+    /**
+     * Maps a job snapshot to API response DTO.
+     */
+    @Named("mapToResponse")
+    default ScreenshotJobResponse mapToResponse(ScreenshotJob job) {
+        if (job == null)
+            return null;
+
+        return new ScreenshotJobResponse(
+                job.id(),
+                job.githubUsername(),
+                job.stage() != null ? job.stage().name() : null,
+                job.submittedAt(),
+                job.startedAt(),
+                job.finishedAt(),
+                RECORD_TO_RESPONSE.map(job.result()),
+                job.error()
+        );
+    }
+
+    @Override
+    default ScreenshotJobResponse map(ScreenshotJob source) {
+        return mapToResponse(source);
+    }
+
+    @Override
+    default List<ScreenshotJobResponse> map(Collection<ScreenshotJob> sources) {
+        if (sources == null) return List.of();
+        return sources.stream()
+                .filter(Objects::nonNull)
+                .map(this::mapToResponse)
+                .toList();
+    }
+
+    /**
+     * Initializes and returns a mapper instance.
+     */
+    static ScreenshotJobToScreenshotJobResponseMapper initialize() {
+        return Mappers.getMapper(ScreenshotJobToScreenshotJobResponseMapper.class);
+    }
+
+}
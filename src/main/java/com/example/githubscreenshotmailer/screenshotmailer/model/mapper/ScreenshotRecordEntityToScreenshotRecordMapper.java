@@ -3,6 +3,7 @@ package com.example.githubscreenshotmailer.screenshotmailer.model.mapper;
 import com.example.githubscreenshotmailer.common.model.mapper.BaseMapper;
 import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotRecord;
 import com.example.githubscreenshotmailer.screenshotmailer.model.entity.ScreenshotRecordEntity;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
 import org.mapstruct.Mapper;
 import org.mapstruct.Named;
 import org.mapstruct.factory.Mappers;
@@ -28,6 +29,7 @@ public interface ScreenshotRecordEntityToScreenshotRecordMapper
                 entity.getFileName(),
                 entity.getFilePath(),
                 entity.getFileSizeBytes(),
+                entity.getImageFormat() != null ? entity.getImageFormat() : ImageFormat.PNG,
                 entity.getSentAt(),
                 entity.getStatus()
         );
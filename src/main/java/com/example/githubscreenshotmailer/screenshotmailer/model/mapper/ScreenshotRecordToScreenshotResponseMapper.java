@@ -30,6 +30,7 @@ public interface ScreenshotRecordToScreenshotResponseMapper
                 record.fileName(),
                 record.path(),
                 record.fileSize(),
+                record.format() != null ? record.format().name() : null,
                 record.sentAt(),
                 record.status() != null ? record.status().name() : null
         );
@@ -1,10 +1,18 @@
 package com.example.githubscreenshotmailer.screenshotmailer.repository;
 
 import com.example.githubscreenshotmailer.screenshotmailer.model.entity.ScreenshotRecordEntity;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ScreenshotStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface ScreenshotRecordRepository extends JpaRepository<ScreenshotRecordEntity, String>,
         JpaSpecificationExecutor<ScreenshotRecordEntity> {
 
+    /** Records whose capture can still be reused, oldest first; rebuilds the capture cache on start-up. */
+    List<ScreenshotRecordEntity> findByStatusAndCaptureKeyIsNotNullAndCapturedAtAfterOrderByCapturedAtAsc(
+            ScreenshotStatus status, LocalDateTime capturedAfter);
+
 }
\ No newline at end of file
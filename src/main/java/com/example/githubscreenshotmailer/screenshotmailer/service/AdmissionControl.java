@@ -0,0 +1,183 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency limits for the expensive resources: browser captures and GitHub logins. Each has a fixed number
+ * of permits handed out first come, first served, and a bounded number of requests that may wait for one. A
+ * request arriving at a full queue, or waiting longer than {@code maxWaitSeconds}, fails at once with
+ * {@link TooManyRequestsException} (429 + {@code Retry-After}), so a burst is turned away instead of launching
+ * more browsers than the node can hold. SMTP sends need no permit: every one, the login's challenge email
+ * included, runs on the pipeline's mail workers, which are their limit, and waits in the mail queue rather than
+ * being thrown away.
+ * <p>
+ * {@code screenshot.admission.active} and {@code screenshot.admission.waiting} are the permits held and the
+ * requests waiting; {@code screenshot.admission.rejected} counts rejections, all tagged
+ * {@code resource=capture|login}.
+ */
+@Slf4j
+@Component
+public class AdmissionControl {
+
+    public enum Resource { CAPTURE, LOGIN }
+
+    /** Set while work of a queued request runs; its {@link #enter} calls then wait like {@link #await}. */
+    private static final ThreadLocal<Boolean> QUEUED = new ThreadLocal<>();
+
+    private final Map<Resource, Limit> limits = new EnumMap<>(Resource.class);
+
+    public AdmissionControl(GithubAutomationProperties props, MeterRegistry meterRegistry) {
+        GithubAutomationProperties.Admission cfg = props.getAdmission();
+        limits.put(Resource.CAPTURE, new Limit(Resource.CAPTURE, cfg.getCapture(),
+                props.getPool().getMaxTotal(), meterRegistry));
+        limits.put(Resource.LOGIN, new Limit(Resource.LOGIN, cfg.getLogin(), 1, meterRegistry));
+    }
+
+    /**
+     * Takes a permit of {@code resource}, waiting in its queue if none is free. Close the permit when done,
+     * e.g. with try-with-resources; closing more than once is harmless.
+     *
+     * @throws TooManyRequestsException when the queue is full or the wait took longer than allowed
+     */
+    public Permit enter(Resource resource) {
+        if (Boolean.TRUE.equals(QUEUED.get())) return await(resource);
+        Limit limit = limits.get(resource);
+        try {
+            // A timed tryAcquire honours the queue order; the untimed one would overtake waiting requests
+            if (limit.permits.tryAcquire(0, TimeUnit.MILLISECONDS)) return new Permit(limit);
+
+            if (limit.waiting.incrementAndGet() > limit.queueCapacity) {
+                limit.waiting.decrementAndGet();
+                throw limit.reject("queue full");
+            }
+            try {
+                if (!limit.permits.tryAcquire(limit.maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                    throw limit.reject("waited too long");
+                }
+            } finally {
+                limit.waiting.decrementAndGet();
+            }
+            return new Permit(limit);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw limit.reject("interrupted");
+        }
+    }
+
+    /**
+     * Takes a permit of {@code resource}, waiting as long as it takes, for callers that already hold the request
+     * in a bounded queue of their own (asynchronous jobs) and have no client to answer 429. Counted as waiting,
+     * but neither limited by the queue capacity nor by {@code maxWaitSeconds}.
+     */
+    public Permit await(Resource resource) {
+        Limit limit = limits.get(resource);
+        limit.waiting.incrementAndGet();
+        try {
+            limit.permits.acquire();
+            return new Permit(limit);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw limit.reject("interrupted");
+        } finally {
+            limit.waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Runs {@code work} on the current thread with every {@link #enter} inside it waiting like {@link #await},
+     * e.g. the login of an asynchronous job's capture, which runs on a pipeline worker.
+     */
+    public <T> T queued(Supplier<T> work) {
+        Boolean outer = QUEUED.get();
+        QUEUED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) QUEUED.remove(); else QUEUED.set(outer);
+        }
+    }
+
+    /** Permits of {@code resource} held right now. */
+    public int active(Resource resource) {
+        Limit limit = limits.get(resource);
+        return limit.concurrency - limit.permits.availablePermits();
+    }
+
+    /** Requests waiting for a permit of {@code resource}. */
+    public int waiting(Resource resource) {
+        return limits.get(resource).waiting.get();
+    }
+
+    /** A held permit; {@link #close()} gives it back. */
+    public static final class Permit implements AutoCloseable {
+
+        private final Limit limit;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Limit limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) limit.permits.release();
+        }
+    }
+
+    private static final class Limit {
+
+        private final String name;
+        private final int concurrency;
+        private final int queueCapacity;
+        private final long maxWaitMillis;
+        private final long retryAfterSeconds;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Counter rejected;
+
+        private Limit(Resource resource, GithubAutomationProperties.Limit cfg, int defaultConcurrency,
+                      MeterRegistry meterRegistry) {
+            this.name = resource.name().toLowerCase();
+            this.concurrency = Math.max(1, cfg.getConcurrency() > 0 ? cfg.getConcurrency() : defaultConcurrency);
+            this.queueCapacity = Math.max(0, cfg.getQueueCapacity());
+            this.maxWaitMillis = TimeUnit.SECONDS.toMillis(Math.max(0, cfg.getMaxWaitSeconds()));
+            this.retryAfterSeconds = Math.max(1, cfg.getRetryAfterSeconds());
+            this.permits = new Semaphore(concurrency, true);
+
+            Gauge.builder("screenshot.admission.active", permits, p -> concurrency - p.availablePermits())
+                    .description("Permits of the resource held")
+                    .tag("resource", name)
+                    .register(meterRegistry);
+            Gauge.builder("screenshot.admission.waiting", waiting, AtomicInteger::get)
+                    .description("Requests waiting for a permit of the resource")
+                    .tag("resource", name)
+                    .register(meterRegistry);
+            rejected = Counter.builder("screenshot.admission.rejected")
+                    .description("Requests turned away with 429 because the resource was saturated")
+                    .tag("resource", name)
+                    .register(meterRegistry);
+            log.debug("Admission {}: {} at once, {} waiting for up to {} ms",
+                    name, concurrency, queueCapacity, maxWaitMillis);
+        }
+
+        private TooManyRequestsException reject(String reason) {
+            rejected.increment();
+            return new TooManyRequestsException(name, reason, retryAfterSeconds);
+        }
+    }
+
+}
@@ -0,0 +1,323 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.BrowserProcessUtil;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.ChromeOptionsUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.json.Json;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs several captures inside one Chrome process. Each lease is an isolated browser context (own cookie jar,
+ * cache and storage, like an incognito window) with a single tab, driven by its own chromedriver session
+ * attached to the shared browser through its debugger address, so N concurrent captures cost one browser
+ * process plus N renderers. Resetting a lease disposes its context and opens a fresh one, which forgets
+ * everything the capture left behind.
+ * <p>
+ * Contexts are created and disposed over the host browser's DevTools connection, which is never attached to
+ * a page and therefore talks to the browser target.
+ * <p>
+ * Trade-off against one process per capture: contexts are off the record, so their HTTP cache lives in memory
+ * and is dropped with the context. Host browsers are therefore launched without a {@link BrowserProfiles}
+ * profile and disk cache; github.com's static assets are downloaded again for every context.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class BrowserContexts {
+
+    private final GithubAutomationProperties props;
+    private final ChromeDriverServiceManager driverService;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Host> hosts = new ArrayList<>();
+    private final Map<ChromeDriver, Lease> leases = new ConcurrentHashMap<>();
+
+    /**
+     * Opens a context on a host browser with room left, launching a new host when all are full.
+     *
+     * @return a browser session whose current window is the context's only tab
+     */
+    ChromeDriver open() {
+        Host host = reserve();
+        Lease lease = new Lease(host);
+        ChromeDriver driver = null;
+        try {
+            lease.newContext();
+            driver = driverService.newDriver(attachOptions(host.debuggerAddress));
+            driver.switchTo().window(lease.targetId);
+            leases.put(driver, lease);
+            return driver;
+        } catch (RuntimeException ex) {
+            if (driver != null) driverService.quit(driver);
+            // Otherwise the context and its renderer stay alive in the shared browser until the host is retired
+            try {
+                lease.disposeContext();
+            } catch (Exception disposeEx) {
+                log.debug("Failed to dispose browser context: {}", disposeEx.toString());
+            }
+            unreserve(host);
+            throw ex;
+        }
+    }
+
+    /** Replaces the lease's context with a fresh one; {@code false} if that failed and the lease must be closed. */
+    boolean renew(ChromeDriver driver) {
+        Lease lease = leases.get(driver);
+        if (lease == null) return false;
+        try {
+            lease.disposeContext();
+            lease.newContext();
+            // The DevTools session followed the disposed tab; the next capture attaches to the new one
+            driver.maybeGetDevTools().ifPresent(devTools -> {
+                devTools.clearListeners();
+                devTools.disconnectSession();
+            });
+            BrowserEvents.forget(driver);
+            driver.switchTo().window(lease.targetId);
+            return true;
+        } catch (Exception ex) {
+            log.warn("Failed to renew browser context, closing it: {}", ex.toString());
+            return false;
+        }
+    }
+
+    /** Disposes the lease's context and ends its session; the host is quit once it is draining and empty. */
+    void close(ChromeDriver driver) {
+        Lease lease = leases.remove(driver);
+        if (lease == null) {
+            driverService.quit(driver);
+            return;
+        }
+        try {
+            lease.disposeContext();
+        } catch (Exception ex) {
+            log.debug("Failed to dispose browser context: {}", ex.toString());
+        }
+        try {
+            driverService.quit(driver);
+        } finally {
+            unreserve(lease.host);
+        }
+    }
+
+    /**
+     * Resident memory of the process hosting the lease. Above the limit the host takes no new contexts and is
+     * quit when its last one closes.
+     */
+    boolean overMemoryLimit(ChromeDriver driver, long limitBytes) {
+        Lease lease = leases.get(driver);
+        if (lease == null) return false;
+        OptionalLong rss = BrowserProcessUtil.residentBytes(lease.host.driver);
+        if (rss.isEmpty() || rss.getAsLong() <= limitBytes) return false;
+        log.info("Draining shared browser using {} MB", rss.getAsLong() / (1024 * 1024));
+        lease.host.draining = true;
+        return true;
+    }
+
+    int hostCount() {
+        lock.lock();
+        try {
+            return hosts.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void shutdown() {
+        for (ChromeDriver driver : new ArrayList<>(leases.keySet())) {
+            close(driver);
+        }
+        lock.lock();
+        try {
+            hosts.forEach(this::quitHost);
+            hosts.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a slot on a host with room left. A new host is registered as launching under the lock and started
+     * outside it, so other leases are not held up for the seconds Chrome takes to start; leases that pick the
+     * launching host wait for it to come up. Whether a running host is still alive is asked outside the lock
+     * too, since a hung browser may take long to answer; a dead one is drained and the next host tried.
+     */
+    private Host reserve() {
+        int perBrowser = Math.max(1, props.getPool().getContextsPerBrowser());
+        while (true) {
+            Host host = null;
+            boolean launch = false;
+            lock.lock();
+            try {
+                for (Host candidate : hosts) {
+                    if (candidate.draining || candidate.leases >= perBrowser) continue;
+                    host = candidate;
+                    break;
+                }
+                if (host == null) {
+                    host = new Host();
+                    hosts.add(host);
+                    launch = true;
+                }
+                host.leases++;
+            } finally {
+                lock.unlock();
+            }
+
+            if (launch) {
+                launchHost(host);
+            } else if (host.launched.isDone() && !host.launched.isCompletedExceptionally() && !host.isAlive()) {
+                log.warn("Shared browser died, launching another one");
+                host.draining = true;
+                unreserve(host);
+                continue;
+            }
+            try {
+                host.launched.join();
+            } catch (CompletionException ex) {
+                // The launcher already dropped the host; its reservations go with it
+                if (ex.getCause() instanceof RuntimeException cause) throw cause;
+                throw ex;
+            }
+            return host;
+        }
+    }
+
+    /** Gives a slot back; a draining host is quit with its last slot, outside the lock. */
+    private void unreserve(Host host) {
+        boolean retire;
+        lock.lock();
+        try {
+            host.leases--;
+            retire = host.draining && host.leases <= 0 && hosts.remove(host);
+        } finally {
+            lock.unlock();
+        }
+        if (retire) quitHost(host);
+    }
+
+    /** Starts the browser of a host registered as launching; runs without the lock. */
+    private void launchHost(Host host) {
+        try {
+            ChromeOptions options = ChromeOptionsUtil.headless(props.isHeadless());
+            ChromeDriver driver = driverService.newDriver(options);
+            try {
+                String address = debuggerAddress(driver);
+                DevTools devTools = driver.maybeGetDevTools()
+                        .orElseThrow(() -> new IllegalStateException("browser exposes no DevTools"));
+                host.started(driver, devTools, address);
+            } catch (RuntimeException ex) {
+                driverService.quit(driver);
+                throw new ScreenshotCaptureException("shared browser could not be started: " + ex.getMessage(), ex);
+            }
+        } catch (RuntimeException ex) {
+            lock.lock();
+            try {
+                hosts.remove(host);
+            } finally {
+                lock.unlock();
+            }
+            host.launched.completeExceptionally(ex);
+        }
+    }
+
+    private void quitHost(Host host) {
+        if (host.driver == null) return;
+        try {
+            driverService.quit(host.driver);
+        } catch (Exception ex) {
+            log.debug("Failed to quit shared browser: {}", ex.toString());
+        }
+    }
+
+    private ChromeOptions attachOptions(String debuggerAddress) {
+        ChromeOptions options = new ChromeOptions();
+        // Same as the pooled browsers: driver.get returns after DOMContentLoaded, PageReadiness does the rest
+        options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+        options.setExperimentalOption("debuggerAddress", debuggerAddress);
+        options.setPageLoadTimeout(Duration.ofSeconds(Math.max(1, props.getReadiness().getDomTimeoutSeconds())));
+        return options;
+    }
+
+    private static String debuggerAddress(ChromeDriver driver) {
+        if (driver.getCapabilities().getCapability("goog:chromeOptions") instanceof Map<?, ?> chrome
+                && chrome.get("debuggerAddress") instanceof String address && !address.isBlank()) {
+            return address;
+        }
+        throw new IllegalStateException("browser reported no debugger address");
+    }
+
+    /** A browser process shared by several leases; usable once {@link #launched} completes. */
+    private static final class Host {
+
+        private final CompletableFuture<Void> launched = new CompletableFuture<>();
+        private volatile ChromeDriver driver;
+        private volatile DevTools devTools;
+        private volatile String debuggerAddress;
+        private int leases;
+        private volatile boolean draining;
+
+        private void started(ChromeDriver driver, DevTools devTools, String debuggerAddress) {
+            this.driver = driver;
+            this.devTools = devTools;
+            this.debuggerAddress = debuggerAddress;
+            launched.complete(null);
+        }
+
+        private Map<String, Object> call(String method, Map<String, Object> params) {
+            return devTools.send(new Command<Map<String, Object>>(method, params, in -> in.read(Json.MAP_TYPE)));
+        }
+
+        private boolean isAlive() {
+            try {
+                return driver.getWindowHandle() != null;
+            } catch (Exception ex) {
+                return false;
+            }
+        }
+    }
+
+    /** One browser context with its tab. */
+    private static final class Lease {
+
+        private final Host host;
+        private String contextId;
+        private String targetId;
+
+        private Lease(Host host) {
+            this.host = host;
+        }
+
+        private void newContext() {
+            contextId = (String) host.call("Target.createBrowserContext", Map.of("disposeOnDetach", false))
+                    .get("browserContextId");
+            targetId = (String) host.call("Target.createTarget",
+                    Map.of("url", "about:blank", "browserContextId", contextId)).get("targetId");
+        }
+
+        private void disposeContext() {
+            if (contextId == null) return;
+            String disposed = contextId;
+            contextId = null;
+            targetId = null;
+            host.call("Target.disposeBrowserContext", Map.of("browserContextId", disposed));
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.exception.BrowserCrashedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Turns a renderer crash into an immediate capture failure. Without it a crashed tab is only noticed when
+ * the next wait times out; with DevTools, {@code Inspector.targetCrashed} and {@code Inspector.detached}
+ * interrupt the capturing thread right away, which makes the pending WebDriver call fail.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BrowserCrashWatcher {
+
+    private final MeterRegistry meterRegistry;
+
+    /** Watches the browser on behalf of the calling thread until the returned watch is closed. */
+    public Watch watch(WebDriver driver) {
+        Watch watch = new Watch(Thread.currentThread());
+        BrowserEvents events = BrowserEvents.of(driver);
+        watch.subscriptions.add(events.subscribe("Inspector.targetCrashed", params -> watch.crash("targetCrashed")));
+        watch.subscriptions.add(events.subscribe("Inspector.detached", params -> watch.crash(detachReason(params))));
+        return watch;
+    }
+
+    private static String detachReason(Map<String, Object> params) {
+        Object reason = params.get("reason");
+        return reason != null ? "detached: " + reason : "detached";
+    }
+
+    /** Crash state of one capture. */
+    public class Watch implements AutoCloseable {
+
+        private final Thread owner;
+        private final List<Runnable> subscriptions = new ArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile String crashReason;
+        private boolean closed;
+        private boolean interrupted;
+
+        private Watch(Thread owner) {
+            this.owner = owner;
+        }
+
+        public boolean crashed() {
+            return crashReason != null;
+        }
+
+        /** The exception to fail the capture with, keeping what the interrupted call threw as the cause. */
+        public BrowserCrashedException failure(Throwable cause) {
+            return new BrowserCrashedException(crashReason, cause);
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                closed = true;
+                // The interrupt was only meant for this capture; do not leak it into the caller
+                if (interrupted) Thread.interrupted();
+            } finally {
+                lock.unlock();
+            }
+            subscriptions.forEach(Runnable::run);
+            subscriptions.clear();
+        }
+
+        void crash(String reason) {
+            lock.lock();
+            try {
+                if (closed || crashReason != null) return;
+                crashReason = reason;
+                meterRegistry.counter("screenshot.browser.crashes",
+                        "event", reason.startsWith("detached") ? "detached" : "targetCrashed").increment();
+                log.warn("Browser crashed during capture ({}), aborting it", reason);
+                interrupted = true;
+                owner.interrupt();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+}
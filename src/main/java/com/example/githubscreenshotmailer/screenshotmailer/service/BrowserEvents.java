@@ -0,0 +1,135 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * DevTools event fan-out for one browser. Selenium can only clear all listeners of a DevTools session at
+ * once, so every event method is subscribed a single time here and dispatched to the handlers that
+ * individual capture steps add and remove. The Page, Network and Inspector domains stay enabled for the
+ * browser's lifetime; instances are dropped with {@link #forget(WebDriver)} when the browser is quit.
+ */
+@Slf4j
+final class BrowserEvents {
+
+    /**
+     * The map's monitor only guards the lookup; connecting takes the browser's own {@link Slot} lock, so the
+     * DevTools handshake of one browser neither waits for another's nor pins a virtual thread.
+     */
+    private static final Map<WebDriver, Slot> REGISTRY = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final DevTools devTools;
+    private final Map<String, List<Consumer<Map<String, Object>>>> handlers = new ConcurrentHashMap<>();
+
+    private BrowserEvents(DevTools devTools) {
+        this.devTools = devTools;
+    }
+
+    /** Events of the given browser; connects on first use and never fails (see {@link #isAvailable()}). */
+    static BrowserEvents of(WebDriver driver) {
+        Slot slot = REGISTRY.computeIfAbsent(driver, d -> new Slot());
+        BrowserEvents events = slot.events;
+        if (events != null) return events;
+        slot.lock.lock();
+        try {
+            if (slot.events == null) slot.events = connect(driver);
+            return slot.events;
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    static void forget(WebDriver driver) {
+        REGISTRY.remove(driver);
+    }
+
+    boolean isAvailable() {
+        return devTools != null;
+    }
+
+    /**
+     * Registers a handler for a DevTools event, e.g. {@code Network.loadingFinished}.
+     *
+     * @return action removing the handler again; a no-op when DevTools is unavailable
+     */
+    Runnable subscribe(String method, Consumer<Map<String, Object>> handler) {
+        if (devTools == null) return () -> {};
+        List<Consumer<Map<String, Object>>> list = handlers.computeIfAbsent(method, m -> {
+            List<Consumer<Map<String, Object>>> subscribers = new CopyOnWriteArrayList<>();
+            Consumer<Map<String, Object>> fanOut = params -> dispatch(m, subscribers, params);
+            devTools.addListener(new Event<Map<String, Object>>(m, in -> in.read(Json.MAP_TYPE)), fanOut);
+            return subscribers;
+        });
+        list.add(handler);
+        return () -> list.remove(handler);
+    }
+
+    /** Sends a raw DevTools command; silently ignored when DevTools is unavailable. */
+    void send(String method, Map<String, Object> params) {
+        if (devTools == null) return;
+        devTools.send(new Command<>(method, params));
+    }
+
+    /**
+     * Sends a raw DevTools command and returns its result.
+     *
+     * @throws IllegalStateException when DevTools is unavailable
+     */
+    Map<String, Object> call(String method, Map<String, Object> params) {
+        if (devTools == null) throw new IllegalStateException("DevTools unavailable for " + method);
+        return devTools.send(new Command<Map<String, Object>>(method, params, in -> in.read(Json.MAP_TYPE)));
+    }
+
+    private static BrowserEvents connect(WebDriver driver) {
+        if (!(driver instanceof HasDevTools hasDevTools)) return new BrowserEvents(null);
+        try {
+            Optional<DevTools> maybeDevTools = hasDevTools.maybeGetDevTools();
+            if (maybeDevTools == null || maybeDevTools.isEmpty()) return new BrowserEvents(null);
+
+            DevTools devTools = maybeDevTools.get();
+            // Attach to this session's own tab; a browser shared through contexts has tabs of other sessions too
+            devTools.createSessionIfThereIsNotOne(driver.getWindowHandle());
+            devTools.send(new Command<>("Page.enable", Map.of()));
+            devTools.send(new Command<>("Network.enable", Map.of()));
+            devTools.send(new Command<>("Inspector.enable", Map.of()));
+            return new BrowserEvents(devTools);
+        } catch (Exception ex) {
+            log.debug("DevTools events unavailable for this browser: {}", ex.toString());
+            return new BrowserEvents(null);
+        }
+    }
+
+    /** A browser's connection, made once by whichever caller gets its lock first. */
+    private static final class Slot {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile BrowserEvents events;
+    }
+
+    private static void dispatch(String method, List<Consumer<Map<String, Object>>> subscribers,
+                                 Map<String, Object> params) {
+        for (Consumer<Map<String, Object>> subscriber : subscribers) {
+            try {
+                subscriber.accept(params);
+            } catch (Exception ex) {
+                log.debug("DevTools handler for {} failed: {}", method, ex.toString());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.ChromeOptionsUtil;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.FileUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Gives every pooled browser a profile directory and an HTTP disk cache on disk instead of Chrome's throwaway
+ * profile, so github.com's scripts, styles and fonts are downloaded once per cache rather than once per
+ * browser launch.
+ * <p>
+ * Chrome does not support two processes writing one cache, so there is one cache per pool slot
+ * ({@code cache/slot-N}), handed to one browser at a time and kept when it quits. Profiles are fresh copies of
+ * the optional template and are deleted with their browser; the template itself is never opened by Chrome.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BrowserProfiles {
+
+    /** Per-process files of a profile that must not be carried over from the template. */
+    private static final Set<String> SKIPPED = Set.of(
+            "SingletonLock", "SingletonSocket", "SingletonCookie", "Cache", "Code Cache", "GPUCache", "Crashpad");
+
+    private final GithubAutomationProperties props;
+
+    private final ConcurrentLinkedDeque<Integer> freeSlots = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    /** A browser's directories; hand it back with {@link #release(Profile)} once the browser has quit. */
+    public record Profile(int slot, Path userDataDir, Path diskCacheDir) {}
+
+    /** Profiles of a previous run were never released; their browsers are gone. */
+    @PostConstruct
+    void start() {
+        Path root = workDir();
+        if (root != null) FileUtil.deleteRecursively(root.resolve("profiles"));
+    }
+
+    /** Launch options of a pooled browser: a managed profile and cache when enabled, Chrome's defaults otherwise. */
+    public ChromeOptions options(Profile profile) {
+        if (profile == null) return ChromeOptionsUtil.headless(props.isHeadless());
+        long cacheBytes = Math.max(1, props.getBrowserProfile().getDiskCacheSizeMb()) * 1024L * 1024L;
+        return ChromeOptionsUtil.headless(props.isHeadless(), profile.userDataDir(), profile.diskCacheDir(), cacheBytes);
+    }
+
+    /**
+     * Prepares the directories of a browser about to launch.
+     *
+     * @return {@code null} when managed profiles are disabled or cannot be prepared
+     */
+    public Profile acquire() {
+        Path root = workDir();
+        if (root == null) return null;
+
+        Integer slot = freeSlots.pollFirst();
+        if (slot == null) slot = nextSlot.getAndIncrement();
+        try {
+            Path cache = Files.createDirectories(root.resolve("cache").resolve("slot-" + slot));
+            Path profile = root.resolve("profiles").resolve(UUID.randomUUID().toString());
+            cloneTemplate(profile);
+            return new Profile(slot, profile, cache);
+        } catch (IOException ex) {
+            freeSlots.offerFirst(slot);
+            log.warn("Failed to prepare browser profile, using a temporary one: {}", ex.toString());
+            return null;
+        }
+    }
+
+    /** Deletes the profile and frees its cache for the next browser. */
+    public void release(Profile profile) {
+        if (profile == null) return;
+        FileUtil.deleteRecursively(profile.userDataDir());
+        freeSlots.offerFirst(profile.slot());
+    }
+
+    /**
+     * Copies the template. Files are copied rather than hard-linked because Chrome updates some of them in
+     * place (SQLite databases), which would write through to the template.
+     */
+    private void cloneTemplate(Path profile) throws IOException {
+        String template = props.getBrowserProfile().getTemplateDir();
+        if (!StringUtils.hasText(template) || !Files.isDirectory(Path.of(template))) {
+            Files.createDirectories(profile);
+            return;
+        }
+        Path source = Path.of(template);
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path relative = source.relativize(path);
+                if (skipped(relative)) continue;
+                Path target = profile.resolve(relative.toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(path, target);
+                }
+            }
+        }
+    }
+
+    private static boolean skipped(Path relative) {
+        for (Path part : relative) {
+            if (SKIPPED.contains(part.toString())) return true;
+        }
+        return false;
+    }
+
+    private Path workDir() {
+        GithubAutomationProperties.BrowserProfile cfg = props.getBrowserProfile();
+        if (!cfg.isEnabled()) return null;
+        if (StringUtils.hasText(cfg.getWorkDir())) return Path.of(cfg.getWorkDir()).toAbsolutePath();
+        if (StringUtils.hasText(props.getScreenshotDir())) {
+            return Path.of(props.getScreenshotDir()).toAbsolutePath().resolve("_browser");
+        }
+        return null;
+    }
+
+}
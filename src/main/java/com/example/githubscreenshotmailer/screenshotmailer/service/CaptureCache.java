@@ -0,0 +1,161 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.model.entity.ScreenshotRecordEntity;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ScreenshotStatus;
+import com.example.githubscreenshotmailer.screenshotmailer.repository.ScreenshotRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Index of recent captures by {@link com.example.githubscreenshotmailer.screenshotmailer.model.CaptureKey#id()},
+ * so a request for a profile captured less than {@code ttlMinutes} ago is answered with that file instead of a
+ * browser. The files are the ones already under {@code screenshotDir}; only the index lives in memory, bounded
+ * by entry count and total file size with least-recently-used eviction. Evicting an entry leaves its file alone,
+ * since records still point at it. On start-up the index is rebuilt from the successful records of the last
+ * {@code ttlMinutes}.
+ * <p>
+ * {@code screenshot.capture.cache} counts {@code result=hit|miss}; {@code screenshot.capture.cache.entries} and
+ * {@code .bytes} show the index size.
+ */
+@Slf4j
+@Component
+public class CaptureCache {
+
+    /** A reusable capture. */
+    public record Entry(Path file, long size, LocalDateTime capturedAt) {}
+
+    private final GithubAutomationProperties props;
+    private final ScreenshotRecordRepository repository;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public CaptureCache(GithubAutomationProperties props, ScreenshotRecordRepository repository,
+                        MeterRegistry meterRegistry) {
+        this.props = props;
+        this.repository = repository;
+        this.hits = Counter.builder("screenshot.capture.cache")
+                .description("Requests answered with a recent capture, and requests that needed a browser")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("screenshot.capture.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("screenshot.capture.cache.entries", this, CaptureCache::size).register(meterRegistry);
+        Gauge.builder("screenshot.capture.cache.bytes", this, CaptureCache::bytes).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void rebuild() {
+        if (!isEnabled()) return;
+        try {
+            List<ScreenshotRecordEntity> recent = repository
+                    .findByStatusAndCaptureKeyIsNotNullAndCapturedAtAfterOrderByCapturedAtAsc(
+                            ScreenshotStatus.SUCCESS, cutoff());
+            // Oldest first, so the newest capture of a key is the one left in the index
+            for (ScreenshotRecordEntity record : recent) {
+                Path file = Path.of(record.getFilePath());
+                if (Files.isRegularFile(file)) {
+                    put(record.getCaptureKey(), new Entry(file, record.getFileSizeBytes(), record.getCapturedAt()));
+                }
+            }
+            log.info("Capture cache rebuilt with {} entries from the last {} minutes",
+                    size(), props.getCaptureCache().getTtlMinutes());
+        } catch (Exception ex) {
+            log.warn("Capture cache could not be rebuilt, starting empty: {}", ex.toString());
+        }
+    }
+
+    /** A capture of {@code key} that is still fresh and on disk, if any. */
+    public Optional<Entry> lookup(String key) {
+        if (!isEnabled()) return Optional.empty();
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && (entry.capturedAt().isBefore(cutoff()) || !Files.isRegularFile(entry.file()))) {
+                remove(key);
+                entry = null;
+            }
+            (entry != null ? hits : misses).increment();
+            return Optional.ofNullable(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Remembers a new capture of {@code key}, replacing an older one and evicting beyond the limits. */
+    public void put(String key, Entry entry) {
+        if (!isEnabled()) return;
+        lock.lock();
+        try {
+            remove(key);
+            entries.put(key, entry);
+            bytes += entry.size();
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long bytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict() {
+        GithubAutomationProperties.CaptureCache cfg = props.getCaptureCache();
+        long maxBytes = cfg.getMaxSizeMb() * 1024L * 1024L;
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (eldest.hasNext() && (entries.size() > cfg.getMaxEntries() || (maxBytes > 0 && bytes > maxBytes))) {
+            bytes -= eldest.next().getValue().size();
+            eldest.remove();
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) bytes -= removed.size();
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minusMinutes(props.getCaptureCache().getTtlMinutes());
+    }
+
+    private boolean isEnabled() {
+        GithubAutomationProperties.CaptureCache cfg = props.getCaptureCache();
+        return cfg.isEnabled() && cfg.getTtlMinutes() > 0 && cfg.getMaxEntries() > 0;
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for captures: while a capture for a key is running, further requests for the same key get the
+ * running capture's future instead of starting their own browser. The key is dropped once the capture finishes,
+ * so only requests that overlap in time share a file; a later request captures afresh.
+ * <p>
+ * {@code screenshot.capture.coalesce} counts captures started ({@code result=started}) and requests that joined
+ * one already running ({@code result=joined}); joined / (started + joined) is the hit rate.
+ */
+@Component
+public class CaptureCoalescer {
+
+    private final Map<Object, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final Counter started;
+    private final Counter joined;
+
+    public CaptureCoalescer(MeterRegistry meterRegistry) {
+        this.started = Counter.builder("screenshot.capture.coalesce")
+                .description("Captures started, and requests served by a capture already in flight")
+                .tag("result", "started")
+                .register(meterRegistry);
+        this.joined = Counter.builder("screenshot.capture.coalesce")
+                .tag("result", "joined")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the in-flight capture for {@code key}, or starts one with {@code capture}. Keys must have value
+     * equality, e.g. records.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> capture(Object key, Supplier<CompletableFuture<T>> capture) {
+        CompletableFuture<T> slot = new CompletableFuture<>();
+        CompletableFuture<?> running = inFlight.putIfAbsent(key, slot);
+        if (running != null) {
+            joined.increment();
+            return (CompletableFuture<T>) running;
+        }
+
+        started.increment();
+        try {
+            capture.get().whenComplete((result, ex) -> {
+                // Leave before completing, so a request arriving after the result starts a fresh capture
+                inFlight.remove(key, slot);
+                if (ex != null) slot.completeExceptionally(ex);
+                else slot.complete(result);
+            });
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, slot);
+            slot.completeExceptionally(ex);
+        }
+        return slot;
+    }
+
+    /** Whether a capture for {@code key} is running, i.e. a request for it now would join instead of start. */
+    public boolean running(Object key) {
+        return inFlight.containsKey(key);
+    }
+
+    /** Captures currently running. */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+}
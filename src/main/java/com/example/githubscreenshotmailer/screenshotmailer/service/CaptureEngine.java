@@ -0,0 +1,27 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Takes the full-page screenshot of whatever a browser currently shows. Implementations differ only in how they
+ * talk to Chrome; the one used is chosen with {@code github-automation.capture.engine}.
+ */
+public interface CaptureEngine {
+
+    /** Name used in configuration and as the {@code engine} metric tag. */
+    String name();
+
+    /**
+     * Writes the image, encoded as {@code options} ask, to {@code target}. A single shot is decoded straight into
+     * the file; a page stitched from tiles holds one tile at a time as PNG, and the whole page, up to
+     * {@code capture.maxStitchedPixels}, as JPEG.
+     *
+     * @return the size of the written file in bytes
+     */
+    long capture(ChromeDriver driver, Path target, CaptureOptions options) throws IOException;
+
+}
@@ -0,0 +1,331 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.BrowserProcessUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a bounded set of pre-launched Chrome browsers so captures do not pay the browser start-up cost.
+ * Drivers are borrowed for one capture and handed back with {@link #release(ChromeDriver)}, which wipes
+ * cookies, storage and extra tabs; a driver that misbehaved is handed back with {@link #invalidate(ChromeDriver)}
+ * and quit instead.
+ * <p>
+ * With {@code contextsPerBrowser} above 1 a pooled "browser" is a browser context inside a shared Chrome
+ * process (see {@link BrowserContexts}); releasing it swaps in a fresh context instead of wiping the old one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChromeDriverPool {
+
+    private static final String GITHUB_ORIGIN = "https://github.com";
+
+    private final GithubAutomationProperties props;
+    private final MeterRegistry meterRegistry;
+    private final ChromeDriverServiceManager driverService;
+    private final BrowserProfiles profiles;
+
+    private final BlockingDeque<IdleDriver> idle = new LinkedBlockingDeque<>();
+    private final Set<ChromeDriver> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger live = new AtomicInteger();
+    private final Map<ChromeDriver, Integer> uses = new ConcurrentHashMap<>();
+    private final Map<ChromeDriver, BrowserProfiles.Profile> driverProfiles = new ConcurrentHashMap<>();
+
+    private Semaphore permits;
+    private BrowserContexts contexts;
+    private ScheduledExecutorService maintenance;
+
+    private Timer waitTimer;
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void start() {
+        GithubAutomationProperties.Pool cfg = props.getPool();
+        permits = new Semaphore(Math.max(1, cfg.getMaxTotal()), true);
+        if (cfg.getContextsPerBrowser() > 1) {
+            contexts = new BrowserContexts(props, driverService);
+            Gauge.builder("screenshot.browser.pool.processes", contexts, BrowserContexts::hostCount)
+                    .description("Chrome processes hosting pooled browser contexts")
+                    .register(meterRegistry);
+        }
+
+        waitTimer = Timer.builder("screenshot.browser.pool.wait")
+                .description("Time spent waiting to borrow a browser from the pool")
+                .register(meterRegistry);
+        hits = Counter.builder("screenshot.browser.pool.borrow")
+                .description("Borrows served by an already running browser (hit) or a freshly launched one (miss)")
+                .tag("outcome", "hit")
+                .register(meterRegistry);
+        misses = Counter.builder("screenshot.browser.pool.borrow")
+                .tag("outcome", "miss")
+                .register(meterRegistry);
+        Gauge.builder("screenshot.browser.pool.size", idle, BlockingDeque::size)
+                .tag("state", "idle")
+                .register(meterRegistry);
+        Gauge.builder("screenshot.browser.pool.size", leased, Set::size)
+                .tag("state", "leased")
+                .register(meterRegistry);
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chrome-pool-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        // First run warms the pool in the background so application start-up is not blocked by Chrome
+        maintenance.scheduleWithFixedDelay(this::maintain, 0, 30, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (maintenance != null) maintenance.shutdownNow();
+        IdleDriver entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry.driver());
+        }
+        for (ChromeDriver driver : new ArrayList<>(leased)) {
+            leased.remove(driver);
+            destroy(driver);
+        }
+        if (contexts != null) contexts.shutdown();
+    }
+
+    /**
+     * Borrows a healthy browser, launching a new one when no idle browser is available.
+     *
+     * @throws ScreenshotCaptureException if no browser becomes available within the borrow timeout
+     */
+    public ChromeDriver borrow() {
+        long startNanos = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(Math.max(1, props.getPool().getBorrowTimeoutSeconds()), TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new ScreenshotCaptureException("interrupted while waiting for a browser", ie);
+        } finally {
+            waitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            throw new ScreenshotCaptureException("no browser available within "
+                    + props.getPool().getBorrowTimeoutSeconds() + "s", null);
+        }
+
+        try {
+            IdleDriver candidate;
+            while ((candidate = idle.pollFirst()) != null) {
+                if (isHealthy(candidate.driver())) {
+                    hits.increment();
+                    return lease(candidate.driver());
+                }
+                recycled("unhealthy");
+                destroy(candidate.driver());
+            }
+            misses.increment();
+            return lease(create());
+        } catch (RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns a borrowed browser; it is reset and kept warm, or quit if the reset fails or it is due for
+     * recycling (use count or memory above the configured limits).
+     */
+    public void release(ChromeDriver driver) {
+        if (driver == null || !leased.remove(driver)) return;
+        try {
+            String recycleReason = recycleReason(driver);
+            if (recycleReason != null) {
+                recycled(recycleReason);
+                destroy(driver);
+            } else if (reset(driver)) {
+                idle.offerFirst(new IdleDriver(driver, System.nanoTime()));
+            } else {
+                destroy(driver);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** Returns a borrowed browser that must not be reused (crashed, hung, unknown state). */
+    public void invalidate(ChromeDriver driver) {
+        invalidate(driver, "error");
+    }
+
+    /** Same as {@link #invalidate(ChromeDriver)}, counting the browser as recycled for the given reason. */
+    public void invalidate(ChromeDriver driver, String reason) {
+        if (driver == null || !leased.remove(driver)) return;
+        recycled(reason);
+        try {
+            destroy(driver);
+        } finally {
+            permits.release();
+        }
+    }
+
+    int idleCount() {
+        return idle.size();
+    }
+
+    int liveCount() {
+        return live.get();
+    }
+
+    /** Evicts browsers idle for too long and tops the pool back up to {@code minIdle}. */
+    void maintain() {
+        try {
+            GithubAutomationProperties.Pool cfg = props.getPool();
+            long idleTimeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(1, cfg.getIdleTimeoutSeconds()));
+            long now = System.nanoTime();
+
+            // Oldest entries sit at the tail because releases are pushed to the head
+            while (idle.size() > cfg.getMinIdle()) {
+                IdleDriver oldest = idle.peekLast();
+                if (oldest == null || now - oldest.idleSinceNanos() < idleTimeoutNanos) break;
+                if (idle.removeLastOccurrence(oldest)) destroy(oldest.driver());
+            }
+
+            while (idle.size() < cfg.getMinIdle() && permits.tryAcquire()) {
+                try {
+                    idle.offerLast(new IdleDriver(create(), System.nanoTime()));
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (Exception ex) {
+            log.warn("Browser pool maintenance failed: {}", ex.toString());
+        }
+    }
+
+    private ChromeDriver create() {
+        if (contexts != null) {
+            ChromeDriver driver = contexts.open();
+            live.incrementAndGet();
+            return driver;
+        }
+        BrowserProfiles.Profile profile = profiles.acquire();
+        ChromeOptions options = profiles.options(profile);
+        // An eager load only waits for the DOM, so driver.get gets the same deadline as the DOM readiness stage
+        options.setPageLoadTimeout(Duration.ofSeconds(Math.max(1, props.getReadiness().getDomTimeoutSeconds())));
+        ChromeDriver driver;
+        try {
+            driver = driverService.newDriver(options);
+        } catch (RuntimeException ex) {
+            profiles.release(profile);
+            throw ex;
+        }
+        if (profile != null) driverProfiles.put(driver, profile);
+        live.incrementAndGet();
+        return driver;
+    }
+
+    private ChromeDriver lease(ChromeDriver driver) {
+        leased.add(driver);
+        uses.merge(driver, 1, Integer::sum);
+        return driver;
+    }
+
+    private String recycleReason(ChromeDriver driver) {
+        GithubAutomationProperties.Pool cfg = props.getPool();
+        if (cfg.getMaxUsesPerBrowser() > 0 && uses.getOrDefault(driver, 0) >= cfg.getMaxUsesPerBrowser()) {
+            return "uses";
+        }
+        if (cfg.getMaxBrowserMemoryMb() > 0 && contexts != null) {
+            return contexts.overMemoryLimit(driver, cfg.getMaxBrowserMemoryMb() * 1024L * 1024L) ? "memory" : null;
+        }
+        if (cfg.getMaxBrowserMemoryMb() > 0) {
+            OptionalLong rss = BrowserProcessUtil.residentBytes(driver);
+            if (rss.isPresent() && rss.getAsLong() > cfg.getMaxBrowserMemoryMb() * 1024L * 1024L) {
+                log.info("Recycling browser using {} MB", rss.getAsLong() / (1024 * 1024));
+                return "memory";
+            }
+        }
+        return null;
+    }
+
+    private void recycled(String reason) {
+        meterRegistry.counter("screenshot.browser.recycled", "reason", reason).increment();
+    }
+
+    private boolean isHealthy(ChromeDriver driver) {
+        try {
+            return driver.getWindowHandle() != null;
+        } catch (Exception ex) {
+            log.debug("Discarding unhealthy pooled browser: {}", ex.toString());
+            return false;
+        }
+    }
+
+    /** Wipes everything a previous capture may have left behind: extra tabs, cookies and site storage. */
+    private boolean reset(ChromeDriver driver) {
+        // Other tabs of a shared browser belong to other captures; a fresh context wipes everything anyway
+        if (contexts != null) return contexts.renew(driver);
+        try {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            if (handles.isEmpty()) return false;
+            String keep = handles.getFirst();
+            for (String handle : handles.subList(1, handles.size())) {
+                driver.switchTo().window(handle);
+                driver.close();
+            }
+            driver.switchTo().window(keep);
+
+            driver.executeCdpCommand("Network.clearBrowserCookies", new HashMap<>());
+            Map<String, Object> storage = new HashMap<>();
+            storage.put("origin", GITHUB_ORIGIN);
+            storage.put("storageTypes", "all");
+            driver.executeCdpCommand("Storage.clearDataForOrigin", storage);
+
+            driver.get("about:blank");
+            return true;
+        } catch (Exception ex) {
+            log.warn("Failed to reset pooled browser, it will be quit: {}", ex.toString());
+            return false;
+        }
+    }
+
+    private void destroy(ChromeDriver driver) {
+        try {
+            if (contexts != null) contexts.close(driver); else driverService.quit(driver);
+        } catch (Exception ignore) {
+        } finally {
+            BrowserEvents.forget(driver);
+            profiles.release(driverProfiles.remove(driver));
+            uses.remove(driver);
+            live.decrementAndGet();
+        }
+    }
+
+    private record IdleDriver(ChromeDriver driver, long idleSinceNanos) {}
+
+}
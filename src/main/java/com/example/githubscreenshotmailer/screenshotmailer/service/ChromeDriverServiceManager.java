@@ -0,0 +1,268 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.service.DriverFinder;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs one long-lived chromedriver process for the whole application and opens every browser as a session
+ * against it, so launching a browser neither spawns a driver process nor asks Selenium Manager for the
+ * driver again. The process is started (and must answer) while the application boots, is watched in the
+ * background and restarted when it dies; its state is exposed as a health indicator.
+ * <p>
+ * Selenium stops a driver service whenever one of its sessions quits, so browsers created here must be
+ * ended with {@link #quit(ChromeDriver)}, which deletes only the session.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChromeDriverServiceManager implements HealthIndicator {
+
+    private final GithubAutomationProperties props;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lifecycle = new ReentrantLock();
+    private final Map<ChromeDriver, SharedChromeDriverService> sessions = new ConcurrentHashMap<>();
+
+    private volatile SharedChromeDriverService service;
+    private volatile String lastFailure;
+    private String driverExecutable;
+    private String browserBinary;
+
+    private ScheduledExecutorService watchdog;
+    private Timer startTimer;
+    private Counter restarts;
+
+    @PostConstruct
+    void start() {
+        startTimer = Timer.builder("screenshot.browser.driver.start")
+                .description("Time to start chromedriver and get it answering")
+                .register(meterRegistry);
+        restarts = Counter.builder("screenshot.browser.driver.restarts")
+                .description("chromedriver processes restarted after they died")
+                .register(meterRegistry);
+        Gauge.builder("screenshot.browser.driver.up", this, m -> m.isRunning() ? 1 : 0)
+                .description("Whether the shared chromedriver process is running")
+                .register(meterRegistry);
+
+        GithubAutomationProperties.DriverService cfg = props.getDriverService();
+        if (!cfg.isShared()) return;
+
+        // Readiness gate: the pool warms up against this process, so wait for it here rather than on first capture
+        try {
+            ensureRunning();
+        } catch (ScreenshotCaptureException ex) {
+            log.error("chromedriver did not start, captures will retry: {}", ex.getMessage());
+        }
+
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chromedriver-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, cfg.getHealthCheckIntervalSeconds());
+        watchdog.scheduleWithFixedDelay(this::checkAndRestart, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (watchdog != null) watchdog.shutdownNow();
+        lifecycle.lock();
+        try {
+            if (service != null) service.shutdown();
+            service = null;
+        } finally {
+            lifecycle.unlock();
+        }
+    }
+
+    /**
+     * Launches a browser with the given options, as a session of the shared chromedriver when enabled.
+     *
+     * @throws ScreenshotCaptureException if chromedriver is not running and cannot be started
+     */
+    public ChromeDriver newDriver(ChromeOptions options) {
+        if (!props.getDriverService().isShared()) return new ChromeDriver(options);
+
+        SharedChromeDriverService current = ensureRunning();
+        if (browserBinary != null) options.setBinary(browserBinary);
+        ChromeDriver driver = new ChromeDriver(current, options);
+        sessions.put(driver, current);
+        return driver;
+    }
+
+    /** Ends a browser created by {@link #newDriver(ChromeOptions)} without touching the shared process. */
+    public void quit(ChromeDriver driver) {
+        SharedChromeDriverService owner = sessions.remove(driver);
+        if (owner == null) {
+            driver.quit();
+            return;
+        }
+        try {
+            driver.maybeGetDevTools().ifPresent(DevTools::close);
+        } catch (Exception ex) {
+            log.debug("Failed to close DevTools connection: {}", ex.toString());
+        }
+        if (owner.isRunning()) {
+            try (HttpClient client = HttpClient.Factory.createDefault().createClient(owner.getUrl())) {
+                client.execute(new HttpRequest(HttpMethod.DELETE, "/session/" + driver.getSessionId()));
+            } catch (Exception ex) {
+                log.debug("Failed to delete browser session: {}", ex.toString());
+            }
+        }
+        try {
+            if (driver.getCommandExecutor() instanceof Closeable executor) executor.close();
+        } catch (Exception ex) {
+            log.debug("Failed to close browser command executor: {}", ex.toString());
+        }
+    }
+
+    boolean isRunning() {
+        SharedChromeDriverService current = service;
+        return current != null && current.isRunning();
+    }
+
+    @Override
+    public Health health() {
+        if (!props.getDriverService().isShared()) {
+            return Health.up().withDetail("mode", "per-browser").build();
+        }
+        SharedChromeDriverService current = service;
+        Health.Builder health = current != null && current.isRunning() ? Health.up() : Health.down();
+        if (current != null) health.withDetail("url", current.getUrl().toString());
+        if (lastFailure != null) health.withDetail("lastFailure", lastFailure);
+        return health
+                .withDetail("sessions", sessions.size())
+                .withDetail("restarts", (long) restarts.count())
+                .build();
+    }
+
+    /** Restarts chromedriver when its process died; sessions of the dead process are left to the pool's checks. */
+    void checkAndRestart() {
+        try {
+            if (service != null && !service.isRunning()) {
+                log.warn("chromedriver at {} died, restarting it", service.getUrl());
+                restarts.increment();
+            }
+            ensureRunning();
+        } catch (Exception ex) {
+            log.warn("chromedriver health check failed: {}", ex.toString());
+        }
+    }
+
+    private SharedChromeDriverService ensureRunning() {
+        SharedChromeDriverService current = service;
+        if (current != null && current.isRunning()) return current;
+
+        lifecycle.lock();
+        try {
+            current = service;
+            if (current != null && current.isRunning()) return current;
+            if (current != null) current.shutdown();
+
+            long startNanos = System.nanoTime();
+            try {
+                SharedChromeDriverService started = launch();
+                service = started;
+                lastFailure = null;
+                log.info("chromedriver ready at {}", started.getUrl());
+                return started;
+            } catch (Exception ex) {
+                service = null;
+                lastFailure = ex.toString();
+                throw new ScreenshotCaptureException("chromedriver could not be started: " + ex.getMessage(), ex);
+            } finally {
+                startTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lifecycle.unlock();
+        }
+    }
+
+    private SharedChromeDriverService launch() throws IOException {
+        GithubAutomationProperties.DriverService cfg = props.getDriverService();
+        ChromeDriverService.Builder builder = new ChromeDriverService.Builder() {
+            @Override
+            protected ChromeDriverService createDriverService(File exe, int port, Duration timeout,
+                                                              List<String> args, Map<String, String> environment) {
+                try {
+                    return new SharedChromeDriverService(exe, port, timeout, args, environment);
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            }
+        };
+        builder.withTimeout(Duration.ofSeconds(Math.max(1, cfg.getStartTimeoutSeconds())));
+        if (cfg.getPort() > 0) builder.usingPort(cfg.getPort()); else builder.usingAnyFreePort();
+
+        SharedChromeDriverService created = (SharedChromeDriverService) builder.build();
+        created.setExecutable(resolveExecutable(cfg, created));
+        created.start();
+        return created;
+    }
+
+    /** Looks the driver (and matching browser) up once; restarts reuse the result. */
+    private String resolveExecutable(GithubAutomationProperties.DriverService cfg, ChromeDriverService probe) {
+        if (driverExecutable == null) {
+            if (StringUtils.hasText(cfg.getExecutable())) {
+                driverExecutable = cfg.getExecutable();
+            } else {
+                DriverFinder finder = new DriverFinder(probe, new ChromeOptions());
+                driverExecutable = finder.getDriverPath();
+                if (finder.hasBrowserPath()) browserBinary = finder.getBrowserPath();
+            }
+        }
+        return driverExecutable;
+    }
+
+    /** A chromedriver that outlives its sessions; only the manager stops it. */
+    static final class SharedChromeDriverService extends ChromeDriverService {
+
+        SharedChromeDriverService(File executable, int port, Duration timeout, List<String> args,
+                                  Map<String, String> environment) throws IOException {
+            super(executable, port, timeout, args, environment);
+        }
+
+        /** Called by Selenium when any session quits; the process is shared, so nothing happens. */
+        @Override
+        public void stop() {
+        }
+
+        void shutdown() {
+            super.stop();
+        }
+    }
+
+}
@@ -5,10 +5,18 @@ import com.example.githubscreenshotmailer.common.model.dto.request.CustomPagingR
 import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
 import com.example.githubscreenshotmailer.screenshotmailer.exception.ApiException;
 import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureKey;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ProfileShot;
 import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotRecord;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.CaptureTarget;
 import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ListScreenshotRecordRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.MultiScreenshotRequest;
 import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ScreenshotRequest;
 import com.example.githubscreenshotmailer.screenshotmailer.model.entity.ScreenshotRecordEntity;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.JobStage;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ProfileTab;
 import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ScreenshotStatus;
 import com.example.githubscreenshotmailer.screenshotmailer.model.mapper.ScreenshotRecordEntityToScreenshotRecordMapper;
 import com.example.githubscreenshotmailer.screenshotmailer.repository.ScreenshotRecordRepository;
@@ -19,9 +27,19 @@ import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -32,62 +50,232 @@ public class GithubScreenshotService {
     private final MailService mailService;
     private final ScreenshotRecordRepository repository;
     private final GithubAutomationProperties props;
+    private final ScreenshotPipeline pipeline;
+    private final CaptureCoalescer coalescer;
+    private final CaptureCache captureCache;
+    private final AdmissionControl admission;
 
     private static final ScreenshotRecordEntityToScreenshotRecordMapper ENTITY_TO_DOMAIN =
             ScreenshotRecordEntityToScreenshotRecordMapper.initialize();
 
     /**
      * Orchestrates: capture → email → persist. Returns DOMAIN record.
+     * Each step runs on its own {@link ScreenshotPipeline} stage; the caller waits for the last one.
+     * <p>
+     * Deliberately not transactional: the record is inserted as {@code PENDING} before the capture and updated
+     * once at the end, each in its own short repository transaction, so no database connection is held while
+     * the browser or the SMTP server works.
+     * <p>
+     * A request that needs a browser is admitted first; when captures are saturated it fails with
+     * {@link com.example.githubscreenshotmailer.screenshotmailer.exception.TooManyRequestsException} before
+     * anything is written.
      */
-    @Transactional
     public ScreenshotRecord process(ScreenshotRequest req) {
+        return process(req, stage -> {}, false);
+    }
+
+    /**
+     * Same as {@link #process(ScreenshotRequest)} for requests already held in a bounded queue of their own
+     * (asynchronous jobs): waits for a capture permit instead of being rejected, and reports each stage to
+     * {@code progress} as it starts.
+     */
+    public ScreenshotRecord processQueued(ScreenshotRequest req, Consumer<JobStage> progress) {
+        return process(req, progress, true);
+    }
+
+    private ScreenshotRecord process(ScreenshotRequest req, Consumer<JobStage> progress, boolean queued) {
         Path baseDir = Path.of(props.getScreenshotDir()).toAbsolutePath();
 
         Path dailyDir = ensureDailyDir(baseDir);
-        String fileName = FileUtil.suggestPngName(req.githubUsername());
+        CaptureOptions options = props.getCapture().options(req.format(), req.quality(), req.region());
+        String fileName = FileUtil.suggestFileName(req.githubUsername(), options.format());
         Path target = dailyDir.resolve(fileName);
 
+        // A fresh enough capture with the same key is sent again, and one that is still running is joined;
+        // only a request that starts a capture needs a permit
+        CaptureKey key = CaptureKey.of(req.githubUsername(), req.withLogin(), req.resourceBlocking(), options);
+        String keyId = key.id();
+        Optional<CaptureCache.Entry> recent = req.forceRefresh() ? Optional.empty() : captureCache.lookup(keyId);
+        AdmissionControl.Permit permit = recent.isEmpty() && !coalescer.running(key) ? admit(queued) : null;
+
+        ScreenshotRecordEntity record;
+        try {
+            record = repository.save(pending(req.githubUsername(), req.recipientEmail(), target, options.format()));
+        } catch (RuntimeException ex) {
+            if (permit != null) permit.close();
+            throw ex;
+        }
+
+        AtomicBoolean permitUsed = new AtomicBoolean();
+        try {
+            // 1) Capture; the browser goes back to the pool once the file is written
+            progress.accept(JobStage.CAPTURING);
+            CompletableFuture<Captured> capture = recent
+                    .map(hit -> CompletableFuture.completedFuture(
+                            new Captured(keyId, hit.file(), hit.size(), hit.capturedAt())))
+                    .orElseGet(() -> coalescer.capture(key, () -> {
+                        // The capture joined above may have finished meanwhile; this one then admits itself
+                        permitUsed.set(true);
+                        return admittedCapture(permit != null ? permit : admit(queued), queued, () -> {
+                            Path saved = seleniumAutomationService.captureProfileScreenshot(
+                                    req.githubUsername(), target, req.withLogin(), req.resourceBlocking(), options);
+                            Captured captured = new Captured(keyId, saved, sizeOf(saved), LocalDateTime.now());
+                            captureCache.put(keyId, new CaptureCache.Entry(saved, captured.size(), captured.at()));
+                            return captured;
+                        });
+                    }));
+            // Joined a capture that started meanwhile
+            if (permit != null && !permitUsed.get()) permit.close();
+
+            return await(pipeline.deliver(capture,
+                    // 2) Email
+                    captured -> {
+                        progress.accept(JobStage.EMAILING);
+                        mailService.sendScreenshot(
+                                req.recipientEmail(),
+                                "[GitHub] Profile screenshot: " + req.githubUsername(),
+                                "Attached is the requested GitHub profile screenshot for user: " + req.githubUsername(),
+                                captured.file().toFile(),
+                                options.format().getContentType()
+                        );
+                        return captured;
+                    },
+                    // 3) Update the record to SUCCESS, then map Entity → Domain
+                    captured -> {
+                        progress.accept(JobStage.PERSISTING);
+                        return ENTITY_TO_DOMAIN.map(repository.save(succeeded(record, captured)));
+                    }));
+
+        } catch (ApiException ex) {
+            markFailed(record);
+            throw ex;
+        } catch (Exception ex) {
+            markFailed(record);
+            throw new ScreenshotCaptureException("unexpected error", ex);
+        } finally {
+            if (permit != null && !permitUsed.get()) permit.close();
+        }
+    }
+
+    /**
+     * Like {@link #process(ScreenshotRequest)} for several targets of one profile: all of them are captured in
+     * one browser session and sent in one email, and each file gets its own record.
+     */
+    public List<ScreenshotRecord> processMulti(MultiScreenshotRequest req) {
+        Path baseDir = Path.of(props.getScreenshotDir()).toAbsolutePath();
+
+        Path dailyDir = ensureDailyDir(baseDir);
+        List<ProfileShot> shots = new ArrayList<>(req.targets().size());
+        for (CaptureTarget target : req.targets()) {
+            ProfileTab tab = target.page() != null ? target.page() : ProfileTab.OVERVIEW;
+            CaptureOptions options = props.getCapture()
+                    .options(req.format(), req.quality(), target.region())
+                    .withViewport(target.viewport());
+            String fileName = FileUtil.suggestFileName(req.githubUsername(), variantLabel(tab, target), options.format());
+            shots.add(new ProfileShot(tab, options, dailyDir.resolve(fileName)));
+        }
+        AdmissionControl.Permit permit = admit(false);
+        List<ScreenshotRecordEntity> records;
+        try {
+            records = repository.saveAll(shots.stream()
+                    .map(shot -> pending(req.githubUsername(), req.recipientEmail(), shot.file(), shot.options().format()))
+                    .toList());
+        } catch (RuntimeException ex) {
+            permit.close();
+            throw ex;
+        }
+
         try {
-            // 1) Capture
-            Path saved = seleniumAutomationService.captureProfileScreenshot(
-                    req.githubUsername(), target, req.withLogin());
-
-            long size = Files.size(saved);
-            LocalDateTime now = LocalDateTime.now();
-
-            // 2) Email
-            mailService.sendScreenshot(
-                    req.recipientEmail(),
-                    "[GitHub] Profile screenshot: " + req.githubUsername(),
-                    "Attached is the requested GitHub profile screenshot for user: " + req.githubUsername(),
-                    saved.toFile()
-            );
-
-            // 3) Persist SUCCESS
-            ScreenshotRecordEntity entity = ScreenshotRecordEntity.builder()
-                    .githubUsername(req.githubUsername())
-                    .recipientEmail(req.recipientEmail())
-                    .fileName(fileName)
-                    .filePath(saved.toString())
-                    .fileSizeBytes(size)
-                    .sentAt(now)
-                    .status(ScreenshotStatus.SUCCESS)
-                    .build();
-
-            ScreenshotRecordEntity persisted = repository.save(entity);
-
-            // 4) Map Entity → Domain and return
-            return ENTITY_TO_DOMAIN.map(persisted);
+            return await(pipeline.deliver(
+                    // 1) Capture, one session for all targets
+                    admittedCapture(permit, false, () -> seleniumAutomationService.captureProfileScreenshots(
+                                    req.githubUsername(), shots, req.withLogin(), req.resourceBlocking())
+                            .stream().map(file -> new Captured(null, file, sizeOf(file), LocalDateTime.now())).toList()),
+                    // 2) Email, one message with every file
+                    captured -> {
+                        mailService.sendScreenshots(
+                                req.recipientEmail(),
+                                "[GitHub] Profile screenshots: " + req.githubUsername(),
+                                "Attached are the requested GitHub profile screenshots for user: " + req.githubUsername(),
+                                captured.stream().map(c -> c.file().toFile()).toList(),
+                                shots.get(0).options().format().getContentType()
+                        );
+                        return captured;
+                    },
+                    // 3) Update every record to SUCCESS
+                    captured -> {
+                        for (int i = 0; i < captured.size(); i++) {
+                            succeeded(records.get(i), captured.get(i));
+                        }
+                        return repository.saveAll(records).stream().map(ENTITY_TO_DOMAIN::map).toList();
+                    }));
 
         } catch (ApiException ex) {
-            persistFailure(req, fileName, ex.getMessage());
+            records.forEach(this::markFailed);
             throw ex;
         } catch (Exception ex) {
-            persistFailure(req, fileName, ex.getMessage());
+            records.forEach(this::markFailed);
             throw new ScreenshotCaptureException("unexpected error", ex);
+        } finally {
+            // Normally released when the capture stage ends; this covers a failure before it was queued
+            permit.close();
         }
     }
 
+    /** A file written by the capture stage, or reused from the capture cache, with its size and capture time. */
+    private record Captured(String key, Path file, long size, LocalDateTime at) {}
+
+    /**
+     * A capture permit: rejected with 429 when captures are saturated, or, for {@code queued} requests, waited
+     * for as long as it takes.
+     */
+    private AdmissionControl.Permit admit(boolean queued) {
+        return queued
+                ? admission.await(AdmissionControl.Resource.CAPTURE)
+                : admission.enter(AdmissionControl.Resource.CAPTURE);
+    }
+
+    /**
+     * Queues {@code capture} under {@code permit}, which is held until the capture stage is done, so no more
+     * browsers work than admitted. The capture of a {@code queued} request waits for a login instead of failing.
+     */
+    private <T> CompletableFuture<T> admittedCapture(AdmissionControl.Permit permit, boolean queued,
+                                                     Supplier<T> capture) {
+        try {
+            Supplier<T> work = queued ? () -> admission.queued(capture) : capture;
+            return pipeline.capture(work).whenComplete((result, ex) -> permit.close());
+        } catch (RuntimeException ex) {
+            permit.close();
+            throw ex;
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** Waits for the pipeline and rethrows what failed a stage as is, so callers see the original exception. */
+    private static <T> T await(CompletableFuture<T> result) throws Exception {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof Exception cause) throw cause;
+            throw ex;
+        }
+    }
+
+    /** File name part telling the shots of one request apart, e.g. {@code repositories-mobile}. */
+    private static String variantLabel(ProfileTab tab, CaptureTarget target) {
+        StringBuilder label = new StringBuilder(tab.name().toLowerCase());
+        if (target.viewport() != null) label.append('-').append(target.viewport().name().toLowerCase());
+        if (target.region() != null && !target.region().isBlank()) label.append('-').append(target.region().trim());
+        return label.toString();
+    }
+
     private Path ensureDailyDir(Path baseDir) {
         try {
             return FileUtil.ensureDailyDir(baseDir);
@@ -113,18 +301,40 @@ public class GithubScreenshotService {
         return CustomPage.of(items, page);
     }
 
-    private void persistFailure(ScreenshotRequest req, String fileName, String error) {
+    /** The record inserted before the capture starts; lists the request under {@code PENDING} while it runs. */
+    private static ScreenshotRecordEntity pending(String githubUsername, String recipientEmail, Path target,
+                                                  ImageFormat format) {
+        return ScreenshotRecordEntity.builder()
+                .githubUsername(githubUsername)
+                .recipientEmail(recipientEmail)
+                .fileName(target.getFileName().toString())
+                .filePath(target.toString())
+                .fileSizeBytes(0)
+                .imageFormat(format)
+                .sentAt(LocalDateTime.now())
+                .status(ScreenshotStatus.PENDING)
+                .build();
+    }
+
+    private static ScreenshotRecordEntity succeeded(ScreenshotRecordEntity record, Captured captured) {
+        // A joined capture is another request's file
+        record.setFileName(captured.file().getFileName().toString());
+        record.setFilePath(captured.file().toString());
+        record.setFileSizeBytes(captured.size());
+        record.setSentAt(LocalDateTime.now());
+        record.setCaptureKey(captured.key());
+        record.setCapturedAt(captured.at());
+        record.setStatus(ScreenshotStatus.SUCCESS);
+        return record;
+    }
+
+    private void markFailed(ScreenshotRecordEntity record) {
         try {
-            ScreenshotRecordEntity failed = ScreenshotRecordEntity.builder()
-                    .githubUsername(req.githubUsername())
-                    .recipientEmail(req.recipientEmail())
-                    .fileName(fileName != null ? fileName : "N/A")
-                    .filePath("N/A")
-                    .fileSizeBytes(0)
-                    .sentAt(LocalDateTime.now())
-                    .status(ScreenshotStatus.FAILED)
-                    .build();
-            repository.save(failed);
+            record.setFilePath("N/A");
+            record.setFileSizeBytes(0);
+            record.setSentAt(LocalDateTime.now());
+            record.setStatus(ScreenshotStatus.FAILED);
+            repository.save(record);
         } catch (Exception persistEx) {
             log.error("Failed to persist FAILED ScreenshotRecordEntity: {}", persistEx.getMessage(), persistEx);
         }
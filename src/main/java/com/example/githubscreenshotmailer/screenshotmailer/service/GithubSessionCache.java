@@ -0,0 +1,264 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers the authenticated GitHub cookies of the last successful login so later {@code withLogin}
+ * captures can inject them into a fresh browser instead of running the login (and 2FA) flow again.
+ * The cookies are kept in memory and, when an encryption key is configured, persisted AES-GCM encrypted
+ * so they survive restarts.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GithubSessionCache {
+
+    /** Cookie that carries the server-side session; without it the cached jar is useless. */
+    static final String SESSION_COOKIE = "user_session";
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final GithubAutomationProperties props;
+
+    private volatile List<StoredCookie> cookies;
+    private volatile boolean loadedFromDisk;
+    /** Guards loading, replacing and forgetting the jar; a lock rather than synchronized, as each touches a file. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Injects the cached session cookies into the browser via DevTools (no navigation needed).
+     *
+     * @return {@code true} if a non-expired session was injected
+     */
+    public boolean restore(ChromeDriver driver) {
+        return restoreSession(driver) != null;
+    }
+
+    /**
+     * Same as {@link #restore}, returning the injected session so that a capture which finds it rejected can
+     * {@link #invalidate(Session) forget exactly that one}.
+     *
+     * @return the injected session, or {@code null} if none was injected
+     */
+    public Session restoreSession(ChromeDriver driver) {
+        Session session = lookup();
+        if (session == null) return null;
+
+        try {
+            List<Map<String, Object>> params = new ArrayList<>();
+            for (StoredCookie c : session.cookies) {
+                params.add(c.toCdp());
+            }
+            Map<String, Object> cmd = new HashMap<>();
+            cmd.put("cookies", params);
+            driver.executeCdpCommand("Network.setCookies", cmd);
+            log.debug("Restored cached GitHub session ({} cookies)", params.size());
+            return session;
+        } catch (Exception ex) {
+            log.warn("Failed to restore cached GitHub session: {}", ex.toString());
+            return null;
+        }
+    }
+
+    /** Captures the github.com cookies of a browser that has just logged in. */
+    public void store(WebDriver driver) {
+        if (!props.getSessionCache().isEnabled()) return;
+        try {
+            Set<Cookie> all = driver.manage().getCookies();
+            List<StoredCookie> captured = all.stream()
+                    .filter(c -> c.getDomain() != null && c.getDomain().endsWith("github.com"))
+                    .map(StoredCookie::of)
+                    .toList();
+            if (captured.stream().noneMatch(c -> SESSION_COOKIE.equals(c.name()))) {
+                log.warn("Login finished without a {} cookie; session not cached", SESSION_COOKIE);
+                return;
+            }
+            lock.lock();
+            try {
+                this.cookies = captured;
+                persist(captured);
+            } finally {
+                lock.unlock();
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to cache GitHub session: {}", ex.toString());
+        }
+    }
+
+    /**
+     * The session {@link #restore} would inject, without touching a browser; a {@code withLogin} capture started
+     * now skips the login unless this is {@code null}.
+     *
+     * @return the cached session, or {@code null} if there is no live one
+     */
+    public Session lookup() {
+        if (!props.getSessionCache().isEnabled()) return null;
+        List<StoredCookie> current = current();
+        return current != null && hasLiveSessionCookie(current) ? new Session(current) : null;
+    }
+
+    /**
+     * Forgets {@code rejected} after GitHub no longer accepted it, unless another capture has stored a newer
+     * session in the meantime: that one was not rejected and stays cached.
+     *
+     * @return {@code true} if the session was forgotten
+     */
+    public boolean invalidate(Session rejected) {
+        lock.lock();
+        try {
+            if (cookies != rejected.cookies) return false;
+            forget();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void forget() {
+        this.cookies = List.of();
+        Path file = sessionFile();
+        try {
+            if (file != null) Files.deleteIfExists(file);
+        } catch (Exception ex) {
+            log.warn("Failed to delete cached GitHub session file {}: {}", file, ex.toString());
+        }
+    }
+
+    private List<StoredCookie> current() {
+        if (cookies == null && !loadedFromDisk) {
+            // A lock rather than synchronized: load() reads a file, which would pin a virtual thread
+            lock.lock();
+            try {
+                if (cookies == null && !loadedFromDisk) {
+                    cookies = load();
+                    loadedFromDisk = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return cookies;
+    }
+
+    private boolean hasLiveSessionCookie(List<StoredCookie> jar) {
+        long now = Instant.now().getEpochSecond();
+        return jar.stream().anyMatch(c -> SESSION_COOKIE.equals(c.name())
+                && (c.expiry() == null || c.expiry() > now));
+    }
+
+    private void persist(List<StoredCookie> jar) throws Exception {
+        SecretKey key = key();
+        Path file = sessionFile();
+        if (key == null || file == null) return;
+
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+        byte[] encrypted = cipher.doFinal(MAPPER.writeValueAsBytes(jar));
+
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<StoredCookie> load() {
+        SecretKey key = key();
+        Path file = sessionFile();
+        if (key == null || file == null || !Files.exists(file)) return null;
+        try {
+            byte[] raw = Files.readAllBytes(file);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, raw, 0, IV_LENGTH));
+            byte[] json = cipher.doFinal(raw, IV_LENGTH, raw.length - IV_LENGTH);
+            return MAPPER.readValue(json, new TypeReference<List<StoredCookie>>() {});
+        } catch (Exception ex) {
+            log.warn("Ignoring unreadable cached GitHub session {}: {}", file, ex.toString());
+            return null;
+        }
+    }
+
+    private SecretKey key() {
+        String encoded = props.getSessionCache().getEncryptionKey();
+        if (encoded == null || encoded.isBlank()) return null;
+        return new SecretKeySpec(Base64.getDecoder().decode(encoded.trim()), "AES");
+    }
+
+    private Path sessionFile() {
+        String configured = props.getSessionCache().getFile();
+        if (configured != null && !configured.isBlank()) return Path.of(configured).toAbsolutePath();
+        if (props.getScreenshotDir() == null) return null;
+        return Path.of(props.getScreenshotDir()).toAbsolutePath().resolve("_auth").resolve("github-session.bin");
+    }
+
+    /**
+     * A session handed out by {@link #lookup} or {@link #restoreSession}; only identifies it, the cookies stay
+     * private.
+     */
+    public static final class Session {
+
+        private final List<StoredCookie> cookies;
+
+        private Session(List<StoredCookie> cookies) {
+            this.cookies = cookies;
+        }
+    }
+
+    /** Serializable view of a browser cookie. */
+    record StoredCookie(String name, String value, String domain, String path,
+                        Long expiry, boolean secure, boolean httpOnly, String sameSite) {
+
+        static StoredCookie of(Cookie c) {
+            return new StoredCookie(c.getName(), c.getValue(), c.getDomain(), c.getPath(),
+                    c.getExpiry() != null ? c.getExpiry().toInstant().getEpochSecond() : null,
+                    c.isSecure(), c.isHttpOnly(), c.getSameSite());
+        }
+
+        /** Shape expected by the DevTools {@code Network.setCookies} command. */
+        Map<String, Object> toCdp() {
+            Map<String, Object> m = new HashMap<>();
+            m.put("name", name);
+            m.put("value", value);
+            m.put("domain", domain);
+            m.put("path", path != null ? path : "/");
+            m.put("secure", secure);
+            m.put("httpOnly", httpOnly);
+            if (expiry != null) m.put("expires", expiry);
+            if (sameSite != null && !sameSite.isBlank()) m.put("sameSite", sameSite);
+            return m;
+        }
+    }
+
+}
@@ -10,6 +10,7 @@ import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +19,16 @@ public class MailService {
     private final JavaMailSender mailSender;
 
     public void sendScreenshot(String to, String subject, String body, File attachment) {
+        sendScreenshot(to, subject, body, attachment, null);
+    }
+
+    /** @param contentType MIME type of the attachment; guessed from its file name when null */
+    public void sendScreenshot(String to, String subject, String body, File attachment, String contentType) {
+        sendScreenshots(to, subject, body, attachment != null ? List.of(attachment) : List.of(), contentType);
+    }
+
+    /** Sends every file as an attachment of one message; {@code contentType} applies to all of them. */
+    public void sendScreenshots(String to, String subject, String body, List<File> attachments, String contentType) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true);
@@ -25,8 +36,12 @@ public class MailService {
             helper.setTo(to);
             helper.setSubject(subject);
             helper.setText(body, false);
-            if (attachment != null) {
-                helper.addAttachment(attachment.getName(), new FileSystemResource(attachment));
+            for (File attachment : attachments) {
+                if (contentType != null) {
+                    helper.addAttachment(attachment.getName(), new FileSystemResource(attachment), contentType);
+                } else {
+                    helper.addAttachment(attachment.getName(), new FileSystemResource(attachment));
+                }
             }
 
             mailSender.send(message);
@@ -0,0 +1,102 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts the requests a page has in flight, from DevTools {@code Network.requestWillBeSent} to
+ * {@code loadingFinished}/{@code loadingFailed}, so a capture can wait until the network has been quiet for a
+ * while instead of relying on the load event. Long-lived streams (WebSocket, EventSource) are ignored because
+ * they never finish.
+ */
+final class NetworkIdleTracker implements AutoCloseable {
+
+    private static final Set<String> STREAMING_TYPES = Set.of("WebSocket", "EventSource");
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final List<Runnable> subscriptions = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private volatile long lastActivityNanos = System.nanoTime();
+
+    /** Starts tracking; must be called before navigating so the document request itself is seen. */
+    static NetworkIdleTracker start(BrowserEvents events) {
+        NetworkIdleTracker tracker = new NetworkIdleTracker();
+        if (events.isAvailable()) {
+            tracker.subscriptions.add(events.subscribe("Network.requestWillBeSent", tracker::onRequest));
+            tracker.subscriptions.add(events.subscribe("Network.loadingFinished", tracker::onDone));
+            tracker.subscriptions.add(events.subscribe("Network.loadingFailed", tracker::onDone));
+        }
+        return tracker;
+    }
+
+    boolean isAvailable() {
+        return !subscriptions.isEmpty();
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Parks until at most {@code maxInFlight} requests have been pending for {@code quietPeriod}.
+     *
+     * @return {@code true} once idle, {@code false} if the deadline passed first
+     */
+    boolean awaitIdle(Duration quietPeriod, int maxInFlight, long deadlineNanos) throws InterruptedException {
+        long quietNanos = quietPeriod.toNanos();
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long quietFor = now - lastActivityNanos;
+                if (inFlight.size() <= maxInFlight && quietFor >= quietNanos) return true;
+
+                long remaining = deadlineNanos - now;
+                if (remaining <= 0) return false;
+                long waitNanos = inFlight.size() <= maxInFlight ? quietNanos - quietFor : remaining;
+                changed.await(Math.min(remaining, waitNanos), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        subscriptions.forEach(Runnable::run);
+        subscriptions.clear();
+    }
+
+    void onRequest(Map<String, Object> params) {
+        if (STREAMING_TYPES.contains(String.valueOf(params.get("type")))) return;
+        if (params.get("requestId") instanceof String id) {
+            inFlight.add(id);
+            signal();
+        }
+    }
+
+    void onDone(Map<String, Object> params) {
+        if (params.get("requestId") instanceof String id && inFlight.remove(id)) {
+            signal();
+        }
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            lastActivityNanos = System.nanoTime();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
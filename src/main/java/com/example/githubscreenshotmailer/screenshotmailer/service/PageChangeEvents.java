@@ -0,0 +1,99 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Wakes a waiting login step as soon as Chrome reports that the page may have changed: a main-frame
+ * navigation, a response from one of GitHub's session endpoints or a session cookie being set.
+ * Waiters are parked on a queue in between, so nothing refreshes or re-queries the page while the user
+ * has not acted yet. Without DevTools {@link #isEventDriven()} is {@code false} and callers poll instead.
+ */
+final class PageChangeEvents implements AutoCloseable {
+
+    static final String NAVIGATED = "navigated";
+    static final String SESSION_RESPONSE = "session-response";
+    static final String SESSION_COOKIE = "session-cookie";
+
+    private static final Pattern SESSION_ENDPOINT =
+            Pattern.compile("^https://github\\.com/(sessions?|login)(/|\\?|$)");
+    private static final Pattern SESSION_COOKIE_HEADER =
+            Pattern.compile("(?im)^\\s*(user_session|logged_in|dotcom_user)=");
+
+    private final List<Runnable> subscriptions = new ArrayList<>();
+    private final BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+
+    /** Subscribes to the page of the given browser; never fails, falls back to a non event-driven instance. */
+    static PageChangeEvents attach(WebDriver driver) {
+        PageChangeEvents events = new PageChangeEvents();
+        BrowserEvents browser = BrowserEvents.of(driver);
+        if (browser.isAvailable()) {
+            events.subscriptions.add(browser.subscribe("Page.frameNavigated", events::onFrameNavigated));
+            events.subscriptions.add(browser.subscribe("Network.responseReceived", events::onResponseReceived));
+            events.subscriptions.add(browser.subscribe("Network.responseReceivedExtraInfo", events::onResponseExtraInfo));
+        }
+        return events;
+    }
+
+    boolean isEventDriven() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Parks the caller until a page change is reported or the timeout elapses.
+     *
+     * @return what woke the caller, or {@code null} on timeout
+     */
+    String await(Duration timeout) {
+        try {
+            String reason = changes.poll(Math.max(0, timeout.toMillis()), TimeUnit.MILLISECONDS);
+            // A burst of events (navigation + responses + cookies) needs a single re-check only
+            changes.clear();
+            return reason;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        subscriptions.forEach(Runnable::run);
+        subscriptions.clear();
+    }
+
+    void onFrameNavigated(Map<String, Object> params) {
+        // Only the top-level document matters; iframes (ads, captchas) navigate on their own
+        if (params.get("frame") instanceof Map<?, ?> frame && frame.get("parentId") == null) {
+            changes.offer(NAVIGATED);
+        }
+    }
+
+    void onResponseReceived(Map<String, Object> params) {
+        if (params.get("response") instanceof Map<?, ?> response
+                && response.get("url") instanceof String url
+                && SESSION_ENDPOINT.matcher(url).find()) {
+            changes.offer(SESSION_RESPONSE);
+        }
+    }
+
+    void onResponseExtraInfo(Map<String, Object> params) {
+        if (!(params.get("headers") instanceof Map<?, ?> headers)) return;
+        for (Map.Entry<?, ?> header : headers.entrySet()) {
+            if ("set-cookie".equalsIgnoreCase(String.valueOf(header.getKey()))
+                    && SESSION_COOKIE_HEADER.matcher(String.valueOf(header.getValue())).find()) {
+                changes.offer(SESSION_COOKIE);
+                return;
+            }
+        }
+    }
+
+}
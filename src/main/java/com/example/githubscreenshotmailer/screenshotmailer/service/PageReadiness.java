@@ -0,0 +1,113 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.GithubDomUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Navigates a browser and returns as soon as the page is stable enough to capture, in three stages:
+ * <ol>
+ *     <li>{@code dom}: the document is parsed (the driver uses the eager page-load strategy);</li>
+ *     <li>{@code network}: no more than the allowed number of requests in flight for the quiet period,
+ *     tracked through DevTools; without DevTools this falls back to the load event;</li>
+ *     <li>{@code selectors}: the configured CSS selectors are present.</li>
+ * </ol>
+ * Only the first stage is mandatory. The later ones give up at their deadline and the capture proceeds with
+ * what has rendered; every stage is timed as {@code screenshot.page.readiness} with its outcome.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PageReadiness {
+
+    private final GithubAutomationProperties props;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Opens the URL and waits for it to become ready.
+     *
+     * @throws TimeoutException if the document is not even parsed within the DOM deadline
+     */
+    public void navigate(WebDriver driver, String url) {
+        GithubAutomationProperties.Readiness cfg = props.getReadiness();
+
+        try (NetworkIdleTracker network = NetworkIdleTracker.start(BrowserEvents.of(driver))) {
+            long start = System.nanoTime();
+            driver.get(url);
+            try {
+                new WebDriverWait(driver, Duration.ofSeconds(Math.max(1, cfg.getDomTimeoutSeconds())))
+                        .until(GithubDomUtil.domReady());
+            } catch (TimeoutException te) {
+                record("dom", "deadline", start);
+                throw te;
+            }
+            record("dom", "ready", start);
+
+            start = System.nanoTime();
+            record("network", awaitNetworkIdle(driver, network, cfg) ? "ready" : "deadline", start);
+
+            List<String> selectors = cfg.getRequiredSelectors();
+            if (selectors != null && !selectors.isEmpty()) {
+                start = System.nanoTime();
+                record("selectors", awaitSelectors(driver, selectors, cfg) ? "ready" : "deadline", start);
+            }
+        }
+    }
+
+    private boolean awaitNetworkIdle(WebDriver driver, NetworkIdleTracker network,
+                                     GithubAutomationProperties.Readiness cfg) {
+        Duration deadline = Duration.ofSeconds(Math.max(1, cfg.getNetworkIdleTimeoutSeconds()));
+        if (!network.isAvailable()) {
+            try {
+                new WebDriverWait(driver, deadline).until(GithubDomUtil.pageLoaded());
+                return true;
+            } catch (TimeoutException te) {
+                log.debug("Page did not fire load within {}, capturing anyway", deadline);
+                return false;
+            }
+        }
+        try {
+            boolean idle = network.awaitIdle(Duration.ofMillis(Math.max(0, cfg.getNetworkIdleMs())),
+                    Math.max(0, cfg.getMaxInflightRequests()), System.nanoTime() + deadline.toNanos());
+            if (!idle) log.debug("Network not idle within {} ({} requests in flight), capturing anyway",
+                    deadline, network.inFlight());
+            return idle;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean awaitSelectors(WebDriver driver, List<String> selectors,
+                                   GithubAutomationProperties.Readiness cfg) {
+        try {
+            new WebDriverWait(driver, Duration.ofSeconds(Math.max(1, cfg.getSelectorTimeoutSeconds())))
+                    .until(GithubDomUtil.allPresent(selectors));
+            return true;
+        } catch (TimeoutException te) {
+            log.debug("Required selectors {} not present in time, capturing anyway", selectors);
+            return false;
+        }
+    }
+
+    private void record(String stage, String outcome, long startNanos) {
+        Timer.builder("screenshot.page.readiness")
+                .description("Time spent in each page readiness stage")
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encodes an opaque RGB PNG row by row, so a page stitched from tiles is written while the tiles arrive and never
+ * held in memory as a whole: besides the caller's tile, only two rows and one 64 KiB chunk are. Each row gets the
+ * filter that makes it smallest, as libpng picks them.
+ */
+final class PngStreamWriter implements AutoCloseable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int BYTES_PER_PIXEL = 3;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final IdatStream chunks = new IdatStream();
+    private final DeflaterOutputStream idat;
+    private final byte[][] filtered = new byte[5][];
+    private byte[] previous;
+    private byte[] current;
+    private int rows;
+
+    PngStreamWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        out.write(SIGNATURE);
+        chunk("IHDR", ByteBuffer.allocate(13)
+                .putInt(width).putInt(height)
+                .put((byte) 8)   // bits per sample
+                .put((byte) 2)   // truecolour
+                .put((byte) 0).put((byte) 0).put((byte) 0)
+                .array(), 13);
+
+        idat = new DeflaterOutputStream(chunks, deflater, CHUNK_SIZE);
+        previous = new byte[width * BYTES_PER_PIXEL];
+        current = new byte[width * BYTES_PER_PIXEL];
+        for (int i = 0; i < filtered.length; i++) filtered[i] = new byte[width * BYTES_PER_PIXEL];
+    }
+
+    /** Rows still expected before {@link #finish()}. */
+    int rowsLeft() {
+        return height - rows;
+    }
+
+    /** Appends the next row, given as {@code width} packed RGB pixels; alpha is ignored. */
+    void writeRow(int[] rgb) throws IOException {
+        if (rows == height) throw new IllegalStateException("all " + height + " rows were already written");
+        for (int x = 0, i = 0; x < width; x++) {
+            int p = rgb[x];
+            current[i++] = (byte) (p >> 16);
+            current[i++] = (byte) (p >> 8);
+            current[i++] = (byte) p;
+        }
+
+        int best = 0;
+        long bestSum = Long.MAX_VALUE;
+        for (int type = 0; type < filtered.length; type++) {
+            long sum = filter(type, filtered[type]);
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = type;
+            }
+        }
+        idat.write(best);
+        idat.write(filtered[best]);
+
+        byte[] done = previous;
+        previous = current;
+        current = done;
+        rows++;
+    }
+
+    /**
+     * Writes the end of the image; the underlying stream is left open.
+     *
+     * @throws IllegalStateException when fewer rows were written than the header announced
+     */
+    void finish() throws IOException {
+        if (rows != height) throw new IllegalStateException("only " + rows + " of " + height + " rows were written");
+        idat.finish();
+        chunks.flushChunk();
+        chunk("IEND", new byte[0], 0);
+    }
+
+    /** Releases the compressor, whether or not the image was finished; the underlying stream is left open. */
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    /** Filters {@link #current} into {@code into}; returns the sum of the signed bytes' magnitudes. */
+    private long filter(int type, byte[] into) {
+        long sum = 0;
+        for (int i = 0; i < into.length; i++) {
+            int x = current[i] & 0xff;
+            int a = i >= BYTES_PER_PIXEL ? current[i - BYTES_PER_PIXEL] & 0xff : 0;
+            int b = previous[i] & 0xff;
+            int c = i >= BYTES_PER_PIXEL ? previous[i - BYTES_PER_PIXEL] & 0xff : 0;
+            int predicted = switch (type) {
+                case 0 -> 0;
+                case 1 -> a;
+                case 2 -> b;
+                case 3 -> (a + b) >>> 1;
+                default -> paeth(a, b, c);
+            };
+            byte value = (byte) (x - predicted);
+            into[i] = value;
+            sum += Math.abs(value);
+        }
+        return sum;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) return a;
+        return pb <= pc ? b : c;
+    }
+
+    private void chunk(String type, byte[] data, int length) throws IOException {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(data, 0, length);
+        out.write(ByteBuffer.allocate(4).putInt(length).array());
+        out.write(name);
+        out.write(data, 0, length);
+        out.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+    /** Collects compressed bytes and writes them as IDAT chunks of at most {@link #CHUNK_SIZE}. */
+    private final class IdatStream extends OutputStream {
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int size;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (size == buffer.length) flushChunk();
+            buffer[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (size == buffer.length) flushChunk();
+                int n = Math.min(len, buffer.length - size);
+                System.arraycopy(b, off, buffer, size, n);
+                size += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            if (size == 0) return;
+            chunk("IDAT", buffer, size);
+            size = 0;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureRegion;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.ScreenshotUtil;
+import lombok.experimental.UtilityClass;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Captures one element of the page: a single script scrolls it into view and measures it, then one
+ * {@code Page.captureScreenshot} clip takes exactly that box. The viewport is left as it is (no device
+ * metrics override), so Chrome only rasterizes the element rather than the whole page.
+ */
+@UtilityClass
+class RegionCapture {
+
+    /** Returns {@code [x, y, width, height, viewportWidth, viewportHeight]} in document CSS pixels, or null. */
+    private static final String MEASURE = """
+            (selector) => {
+              const el = document.querySelector(selector);
+              if (!el) return null;
+              el.scrollIntoView({block: 'start', inline: 'nearest'});
+              const r = el.getBoundingClientRect();
+              if (r.width === 0 || r.height === 0) return null;
+              return [r.left + window.scrollX, r.top + window.scrollY, r.width, r.height,
+                      window.innerWidth, window.innerHeight];
+            }""";
+
+    private static final Json JSON = new Json();
+
+    /** Measuring script for {@code executeScript}, taking the selector as its argument. */
+    String webDriverScript() {
+        return "return (" + MEASURE + ")(arguments[0]);";
+    }
+
+    /** Measuring expression for {@code Runtime.evaluate}, with the selector embedded as a JSON string. */
+    String devToolsExpression(CaptureRegion region) {
+        return "(" + MEASURE + ")(" + JSON.toJson(region.selector()) + ")";
+    }
+
+    /**
+     * Captures the measured box into {@code target}.
+     *
+     * @param box what the measuring script returned
+     * @return the size of the written file in bytes
+     */
+    long capture(BiFunction<String, Map<String, Object>, Map<String, Object>> cdp, Object box,
+                 CaptureOptions options, Path target) throws IOException {
+        CaptureRegion region = options.region();
+        if (!(box instanceof List<?> values) || values.size() < 6) {
+            throw new ScreenshotCaptureException(
+                    "region '%s' (%s) is not on the page".formatted(region.name(), region.selector()), null);
+        }
+        double x = number(values.get(0));
+        double y = number(values.get(1));
+        double width = Math.ceil(number(values.get(2)));
+        double height = Math.ceil(number(values.get(3)));
+
+        Map<String, Object> clip = new HashMap<>();
+        clip.put("x", Math.floor(x));
+        clip.put("y", Math.floor(y));
+        clip.put("width", width);
+        clip.put("height", height);
+        clip.put("scale", 1);
+
+        Map<String, Object> params = new HashMap<>(options.screenshotParams());
+        params.put("clip", clip);
+        params.put("fromSurface", true);
+        // Only an element larger than the viewport needs Chrome to render beyond it
+        params.put("captureBeyondViewport", width > number(values.get(4)) || height > number(values.get(5)));
+
+        String data = (String) cdp.apply("Page.captureScreenshot", params).get("data");
+        return ScreenshotUtil.writeBase64Image(data, target);
+    }
+
+    private double number(Object value) {
+        return ((Number) value).doubleValue();
+    }
+
+}
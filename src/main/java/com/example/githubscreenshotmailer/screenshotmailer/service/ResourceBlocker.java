@@ -0,0 +1,116 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ResourceBlockingOptions;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies the resource blocking profile to a browser for the duration of one capture and measures what the
+ * page actually loaded. Page weight is recorded per capture, tagged with whether blocking was on, so the
+ * saving shows up as the difference between the two series; blocked requests are counted by resource type.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResourceBlocker {
+
+    private final GithubAutomationProperties props;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Starts blocking on the given browser. Closing the returned session lifts the block list again and
+     * records the page weight; without DevTools nothing is blocked or measured.
+     */
+    public Session start(WebDriver driver, ResourceBlockingOptions override) {
+        List<String> patterns = effectivePatterns(override);
+        BrowserEvents events = BrowserEvents.of(driver);
+        Session session = new Session(events, !patterns.isEmpty());
+        if (!events.isAvailable()) return session;
+
+        try {
+            session.subscriptions.add(events.subscribe("Network.loadingFinished", session::onLoadingFinished));
+            session.subscriptions.add(events.subscribe("Network.loadingFailed", session::onLoadingFailed));
+            events.send("Network.setBlockedURLs", Map.of("urls", patterns));
+        } catch (Exception ex) {
+            log.warn("Failed to apply resource blocking, loading everything: {}", ex.toString());
+        }
+        return session;
+    }
+
+    List<String> effectivePatterns(ResourceBlockingOptions override) {
+        GithubAutomationProperties.ResourceBlocking cfg = props.getResourceBlocking();
+        boolean enabled = override != null && override.enabled() != null ? override.enabled() : cfg.isEnabled();
+        if (!enabled) return List.of();
+
+        Set<String> patterns = new LinkedHashSet<>();
+        if (cfg.getPatterns() != null) patterns.addAll(cfg.getPatterns());
+        if (override != null && override.extraPatterns() != null) patterns.addAll(override.extraPatterns());
+        return new ArrayList<>(patterns);
+    }
+
+    /** Blocking and accounting for one capture. */
+    public class Session implements AutoCloseable {
+
+        private final BrowserEvents events;
+        private final boolean blocking;
+        private final List<Runnable> subscriptions = new ArrayList<>();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong requests = new AtomicLong();
+
+        private Session(BrowserEvents events, boolean blocking) {
+            this.events = events;
+            this.blocking = blocking;
+        }
+
+        @Override
+        public void close() {
+            if (subscriptions.isEmpty()) return;
+            subscriptions.forEach(Runnable::run);
+            subscriptions.clear();
+            try {
+                // Pooled browsers must not carry one request's block list into the next capture
+                events.send("Network.setBlockedURLs", Map.of("urls", List.of()));
+            } catch (Exception ex) {
+                log.debug("Failed to clear blocked URLs: {}", ex.toString());
+            }
+
+            String tag = blocking ? "on" : "off";
+            DistributionSummary.builder("screenshot.browser.page.bytes")
+                    .description("Bytes transferred by the browser during one capture")
+                    .baseUnit("bytes")
+                    .tag("blocking", tag)
+                    .register(meterRegistry)
+                    .record(bytes.get());
+            DistributionSummary.builder("screenshot.browser.page.requests")
+                    .description("Requests completed by the browser during one capture")
+                    .tag("blocking", tag)
+                    .register(meterRegistry)
+                    .record(requests.get());
+        }
+
+        void onLoadingFinished(Map<String, Object> params) {
+            requests.incrementAndGet();
+            if (params.get("encodedDataLength") instanceof Number n) bytes.addAndGet(n.longValue());
+        }
+
+        void onLoadingFailed(Map<String, Object> params) {
+            if (params.get("blockedReason") == null) return;
+            Object type = params.get("type");
+            meterRegistry.counter("screenshot.browser.requests.blocked",
+                    "type", type != null ? type.toString() : "Other").increment();
+        }
+    }
+
+}
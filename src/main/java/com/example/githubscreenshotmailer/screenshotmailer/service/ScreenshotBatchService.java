@@ -0,0 +1,122 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.JobQueueFullException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotBatch;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotJob;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.BatchScreenshotRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ScreenshotRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.WorkerThreadsUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues every request of a batch as an asynchronous job of {@link ScreenshotJobService} and returns at once with
+ * the job ids, so a batch never holds an HTTP thread. Batch items run on workers of their own, at most
+ * {@code batch.parallelism} at a time across all batches, and wait in a bounded queue of {@code batch.queueCapacity};
+ * items that no longer fit are reported as not accepted in their slot while the rest of the batch runs. Items do
+ * not depend on each other: each gets its own email and record, and is polled like any other job. When no session
+ * is cached yet, the later {@code withLogin} items of a batch start only once its first one finished, so they
+ * reuse its login instead of all logging in at once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScreenshotBatchService {
+
+    private final ScreenshotJobService jobService;
+    private final GithubSessionCache sessionCache;
+    private final GithubAutomationProperties props;
+    private final MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor workers;
+
+    @PostConstruct
+    void start() {
+        GithubAutomationProperties.Batch cfg = props.getBatch();
+        int size = Math.max(1, cfg.getParallelism());
+        workers = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, cfg.getQueueCapacity())),
+                WorkerThreadsUtil.named("screenshot-batch-", props.isVirtualThreads()));
+
+        Gauge.builder("screenshot.batch.items", workers, w -> w.getQueue().size())
+                .description("Batch items waiting for or being processed by a worker")
+                .tag("state", "queued")
+                .register(meterRegistry);
+        Gauge.builder("screenshot.batch.items", workers, ThreadPoolExecutor::getActiveCount)
+                .tag("state", "running")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (workers != null) workers.shutdownNow();
+    }
+
+    /** Submits every request that fits the batch queue as a job; the result lists them in request order. */
+    public ScreenshotBatch submit(BatchScreenshotRequest batch) {
+        List<ScreenshotRequest> requests = batch.requests();
+        int queueCapacity = props.getBatch().getQueueCapacity();
+
+        // Completed once the first login item finished, or at once when no item has to wait for it
+        CompletableFuture<Void> loggedIn = new CompletableFuture<>();
+        int loginFirst = sessionCache.lookup() != null ? -1 : firstWithLogin(requests);
+        if (loginFirst < 0) loggedIn.complete(null);
+
+        List<ScreenshotBatch.Item> items = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            ScreenshotRequest req = requests.get(i);
+            Executor executor = workers;
+            if (i == loginFirst) {
+                executor = task -> workers.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        loggedIn.complete(null);
+                    }
+                });
+            } else if (loginFirst >= 0 && i > loginFirst && req.withLogin()) {
+                // The first login item was queued before this one, so it is already running when this one waits
+                executor = task -> workers.execute(() -> {
+                    loggedIn.join();
+                    task.run();
+                });
+            }
+            try {
+                ScreenshotJob job = jobService.submit(req, executor, queueCapacity);
+                items.add(new ScreenshotBatch.Item(i, req.githubUsername(), req.recipientEmail(), job, null));
+                meterRegistry.counter("screenshot.batch.results", "outcome", "accepted").increment();
+            } catch (JobQueueFullException ex) {
+                if (i == loginFirst) loggedIn.complete(null);
+                items.add(new ScreenshotBatch.Item(i, req.githubUsername(), req.recipientEmail(), null, ex.getMessage()));
+                meterRegistry.counter("screenshot.batch.results", "outcome", "rejected").increment();
+            }
+        }
+
+        ScreenshotBatch result = new ScreenshotBatch(items);
+        log.info("Screenshot batch of {} queued: {} accepted, {} rejected",
+                items.size(), result.accepted(), result.rejected());
+        return result;
+    }
+
+    private static int firstWithLogin(List<ScreenshotRequest> requests) {
+        for (int i = 0; i < requests.size(); i++) {
+            if (requests.get(i).withLogin()) return i;
+        }
+        return -1;
+    }
+
+}
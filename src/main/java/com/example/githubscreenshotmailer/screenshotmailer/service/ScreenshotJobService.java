@@ -0,0 +1,143 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.JobQueueFullException;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.ResourceNotFoundException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotJob;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotRecord;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ScreenshotRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.JobStage;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.WorkerThreadsUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs screenshot requests in the background so the HTTP thread returns at once with a job id. Jobs wait in a
+ * bounded queue for a fixed number of workers; a full queue rejects new jobs instead of growing without limit.
+ * Job state is kept in memory and dropped {@code retentionMinutes} after the job finished, so jobs do not
+ * survive a restart; the screenshot records they produce do.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScreenshotJobService {
+
+    private final GithubScreenshotService screenshotService;
+    private final GithubAutomationProperties props;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ScreenshotJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor workers;
+
+    @PostConstruct
+    void start() {
+        GithubAutomationProperties.Jobs cfg = props.getJobs();
+        int size = Math.max(1, cfg.getWorkers());
+        workers = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, cfg.getQueueCapacity())),
+                WorkerThreadsUtil.named("screenshot-job-", props.isVirtualThreads()));
+
+        Gauge.builder("screenshot.jobs", workers, w -> w.getQueue().size())
+                .description("Asynchronous screenshot jobs waiting for or being processed by a worker")
+                .tag("state", "queued")
+                .register(meterRegistry);
+        Gauge.builder("screenshot.jobs", workers, ThreadPoolExecutor::getActiveCount)
+                .tag("state", "running")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (workers != null) workers.shutdownNow();
+    }
+
+    /**
+     * Queues the request.
+     *
+     * @throws JobQueueFullException when {@code queueCapacity} jobs are already waiting
+     */
+    public ScreenshotJob submit(ScreenshotRequest req) {
+        return submit(req, workers, props.getJobs().getQueueCapacity());
+    }
+
+    /**
+     * Queues the request on {@code executor} instead of the job workers, e.g. the batch workers; the job is
+     * polled like any other.
+     *
+     * @throws JobQueueFullException when {@code executor} rejects the job, i.e. its {@code queueCapacity} is reached
+     */
+    ScreenshotJob submit(ScreenshotRequest req, Executor executor, int queueCapacity) {
+        purgeExpired();
+
+        String id = UUID.randomUUID().toString();
+        ScreenshotJob job = ScreenshotJob.builder()
+                .id(id)
+                .githubUsername(req.githubUsername())
+                .stage(JobStage.QUEUED)
+                .submittedAt(LocalDateTime.now())
+                .build();
+        jobs.put(id, job);
+        try {
+            executor.execute(() -> run(id, req));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(id);
+            meterRegistry.counter("screenshot.jobs.rejected").increment();
+            throw new JobQueueFullException(queueCapacity);
+        }
+        return job;
+    }
+
+    /**
+     * Current state of a job.
+     *
+     * @throws ResourceNotFoundException for unknown ids and jobs past their retention
+     */
+    public ScreenshotJob get(String id) {
+        ScreenshotJob job = jobs.get(id);
+        if (job == null) throw new ResourceNotFoundException("Screenshot job", id);
+        return job;
+    }
+
+    private void run(String id, ScreenshotRequest req) {
+        jobs.computeIfPresent(id, (k, job) -> job.withStartedAt(LocalDateTime.now()));
+        try {
+            // The job queue is the bound here: the job waits for a capture permit instead of failing with 429
+            ScreenshotRecord result = screenshotService.processQueued(req,
+                    stage -> jobs.computeIfPresent(id, (k, job) -> job.withStage(stage)));
+            finish(id, JobStage.SUCCEEDED, result, null);
+        } catch (Exception ex) {
+            log.warn("Screenshot job {} for {} failed: {}", id, req.githubUsername(), ex.getMessage());
+            finish(id, JobStage.FAILED, null, ex.getMessage());
+        }
+    }
+
+    private void finish(String id, JobStage stage, ScreenshotRecord result, String error) {
+        jobs.computeIfPresent(id, (k, job) -> job
+                .withStage(stage)
+                .withResult(result)
+                .withError(error)
+                .withFinishedAt(LocalDateTime.now()));
+    }
+
+    private void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(Math.max(0, props.getJobs().getRetentionMinutes()));
+        jobs.values().removeIf(job -> job.finishedAt() != null && job.finishedAt().isBefore(cutoff));
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.WorkerThreadsUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs a screenshot request as three stages, capture → mail → persist, each on its own worker pool with a
+ * bounded queue. A stage hands its result to the next stage's queue and picks up new work straight away, so
+ * a browser is free again as soon as the file is on disk and a slow SMTP server only backs up the mail queue.
+ * When a queue is full, whoever feeds it (the caller for capture, the previous stage otherwise) waits for room.
+ * <p>
+ * Per stage: {@code screenshot.pipeline.queue} (waiting items), {@code screenshot.pipeline.active} (busy
+ * workers), {@code screenshot.pipeline.wait} (time in the queue) and {@code screenshot.pipeline.duration}
+ * (time in the worker), all tagged {@code stage=capture|mail|persist}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScreenshotPipeline {
+
+    public enum Stage { CAPTURE, MAIL, PERSIST }
+
+    private final GithubAutomationProperties props;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Stage, StageWorkers> stages = new EnumMap<>(Stage.class);
+
+    @PostConstruct
+    void start() {
+        GithubAutomationProperties.Pipeline cfg = props.getPipeline();
+        int captureWorkers = cfg.getCapture().getWorkers() > 0
+                ? cfg.getCapture().getWorkers()
+                : props.getPool().getMaxTotal();
+        boolean virtual = props.isVirtualThreads();
+        stages.put(Stage.CAPTURE, new StageWorkers(Stage.CAPTURE, captureWorkers, cfg.getCapture().getQueueCapacity(), virtual));
+        // JavaMail's SMTP transport blocks inside synchronized methods, which would pin a virtual thread
+        stages.put(Stage.MAIL, new StageWorkers(Stage.MAIL, cfg.getMail().getWorkers(), cfg.getMail().getQueueCapacity(), false));
+        stages.put(Stage.PERSIST, new StageWorkers(Stage.PERSIST, cfg.getPersist().getWorkers(), cfg.getPersist().getQueueCapacity(), virtual));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stages.values().forEach(stage -> stage.executor.shutdownNow());
+    }
+
+    /** Queues only the capture stage, e.g. for a capture that several requests will share. */
+    public <C> CompletableFuture<C> capture(Supplier<C> capture) {
+        return run(Stage.CAPTURE, capture);
+    }
+
+    /**
+     * Runs the mail and persist stages once {@code captured} completes, each on its stage's workers with the
+     * previous stage's result; the first exception skips the remaining stages and completes the returned future.
+     */
+    public <C, M, R> CompletableFuture<R> deliver(CompletableFuture<C> captured, Function<C, M> mail,
+                                                  Function<M, R> persist) {
+        return captured
+                .thenCompose(result -> run(Stage.MAIL, () -> mail.apply(result)))
+                .thenCompose(mailed -> run(Stage.PERSIST, () -> persist.apply(mailed)));
+    }
+
+    /**
+     * Sends a message outside a screenshot request, e.g. a login challenge, on the mail workers, so every SMTP
+     * send shares the one limit of {@code pipeline.mail.workers}. It queues behind the screenshot emails.
+     */
+    public CompletableFuture<Void> mail(Runnable send) {
+        return run(Stage.MAIL, () -> {
+            send.run();
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> run(Stage stage, Supplier<T> work) {
+        StageWorkers workers = stages.get(stage);
+        long queuedAt = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            long startedAt = System.nanoTime();
+            workers.wait.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+            try {
+                return work.get();
+            } finally {
+                workers.duration.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        }, workers.executor);
+    }
+
+    /** Waits for room in the queue instead of rejecting, which slows the feeding stage down to this one's pace. */
+    private static final RejectedExecutionHandler WAIT_FOR_ROOM = (task, executor) -> {
+        if (executor.isShutdown()) throw new RejectedExecutionException("screenshot pipeline is shut down");
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("interrupted waiting for the screenshot pipeline", ex);
+        }
+    };
+
+    private final class StageWorkers {
+
+        private final ThreadPoolExecutor executor;
+        private final Timer wait;
+        private final Timer duration;
+
+        private StageWorkers(Stage stage, int workers, int queueCapacity, boolean virtual) {
+            String name = stage.name().toLowerCase();
+            int size = Math.max(1, workers);
+            executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                    WorkerThreadsUtil.named("screenshot-" + name + "-", virtual),
+                    WAIT_FOR_ROOM);
+
+            Gauge.builder("screenshot.pipeline.queue", executor, e -> e.getQueue().size())
+                    .description("Items waiting for a worker of the stage")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            Gauge.builder("screenshot.pipeline.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .description("Workers of the stage busy with an item")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            wait = Timer.builder("screenshot.pipeline.wait")
+                    .description("Time an item waited in the stage's queue")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            duration = Timer.builder("screenshot.pipeline.duration")
+                    .description("Time a worker of the stage spent on an item")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            log.debug("Screenshot pipeline stage {}: {} {} workers, queue {}",
+                    name, size, virtual ? "virtual" : "platform", queueCapacity);
+        }
+    }
+
+}
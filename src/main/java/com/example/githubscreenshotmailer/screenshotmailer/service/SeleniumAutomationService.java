@@ -1,8 +1,15 @@
 package com.example.githubscreenshotmailer.screenshotmailer.service;
 
 import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.BrowserCrashedException;
 import com.example.githubscreenshotmailer.screenshotmailer.exception.GithubLoginException;
 import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.model.GithubPageState;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ProfileShot;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ResourceBlockingOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ProfileTab;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ViewportPreset;
 import com.example.githubscreenshotmailer.screenshotmailer.utils.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +24,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
 @Service
@@ -25,28 +37,163 @@ public class SeleniumAutomationService {
 
     private final GithubAutomationProperties props;
     private final MailService mailService;
+    private final ChromeDriverPool driverPool;
+    private final GithubSessionCache sessionCache;
+    private final ResourceBlocker resourceBlocker;
+    private final PageReadiness pageReadiness;
+    private final BrowserCrashWatcher crashWatcher;
+    private final CaptureEngine captureEngine;
+    private final AdmissionControl admission;
+    private final ScreenshotPipeline pipeline;
+
+    /** Safety re-check while parked on DevTools events, in case a page change was not reported. */
+    private static final long EVENT_RECHECK_MS = 15_000;
+
+    /** Serializes interactive logins so concurrent captures share one session instead of racing 2FA. */
+    private final ReentrantLock loginLock = new ReentrantLock();
 
     public Path captureProfileScreenshot(String githubUsername, Path targetFile, boolean withLogin) {
-        ChromeDriver driver = new ChromeDriver(ChromeOptionsUtil.headless(props.isHeadless()));
-        try {
-            if (withLogin) {
-                loginWithEmailPasswordAndMobile(driver);
+        return captureProfileScreenshot(githubUsername, targetFile, withLogin, null);
+    }
+
+    public Path captureProfileScreenshot(String githubUsername, Path targetFile, boolean withLogin,
+                                         ResourceBlockingOptions blocking) {
+        return captureProfileScreenshot(githubUsername, targetFile, withLogin, blocking, CaptureOptions.PNG);
+    }
+
+    /**
+     * Captures the profile, retrying on another browser when the one in use crashes mid-capture
+     * ({@code pool.crashRetries} times). The image is encoded as {@code options} ask, so {@code targetFile}
+     * should carry the matching extension.
+     */
+    public Path captureProfileScreenshot(String githubUsername, Path targetFile, boolean withLogin,
+                                         ResourceBlockingOptions blocking, CaptureOptions options) {
+        return captureProfileScreenshots(githubUsername,
+                List.of(new ProfileShot(ProfileTab.OVERVIEW, options, targetFile)), withLogin, blocking).get(0);
+    }
+
+    /**
+     * Takes several shots of one profile in a single browser session: the browser is borrowed, blocking is set
+     * up and the login happens once, then each shot only navigates (when its page differs from the previous one)
+     * and emulates its viewport. A crash retries the whole batch on another browser.
+     *
+     * @return the written files, in the order of {@code shots}
+     */
+    public List<Path> captureProfileScreenshots(String githubUsername, List<ProfileShot> shots, boolean withLogin,
+                                                ResourceBlockingOptions blocking) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return captureOnce(githubUsername, shots, withLogin, blocking);
+            } catch (BrowserCrashedException crash) {
+                if (attempt >= Math.max(0, props.getPool().getCrashRetries())) throw crash;
+                log.warn("Retrying capture of {} on another browser: {}", githubUsername, crash.getMessage());
+            }
+        }
+    }
+
+    private List<Path> captureOnce(String githubUsername, List<ProfileShot> shots, boolean withLogin,
+                                   ResourceBlockingOptions blocking) {
+        ChromeDriver driver = driverPool.borrow();
+        boolean reusable = true;
+        boolean emulating = false;
+        BrowserCrashWatcher.Watch crash = crashWatcher.watch(driver);
+        try (ResourceBlocker.Session ignored = resourceBlocker.start(driver, blocking)) {
+            GithubSessionCache.Session restored = withLogin ? sessionCache.restoreSession(driver) : null;
+            if (withLogin && restored == null) {
+                loginAndRememberSession(driver);
             }
 
-            driver.get("https://github.com/" + githubUsername);
-            new WebDriverWait(driver, Duration.ofSeconds(30)).until(GithubDomUtil.pageLoaded());
+            List<Path> written = new ArrayList<>(shots.size());
+            ProfileTab openTab = null;
+            ViewportPreset viewport = null;
+            for (ProfileShot shot : shots) {
+                ViewportPreset wanted = shot.options().viewport();
+                if (wanted != viewport) {
+                    if (wanted != null) {
+                        ScreenshotUtil.emulateViewport(driver, wanted);
+                        emulating = true;
+                    } else {
+                        ScreenshotUtil.clearViewport(driver);
+                    }
+                    viewport = wanted;
+                }
+
+                if (shot.tab() != openTab) {
+                    openProfile(driver, githubUsername, shot.tab());
+                    // The first page tells whether a cached session was accepted
+                    if (openTab == null && restored != null && !GithubDomUtil.probe(driver).loggedIn()) {
+                        log.info("Cached GitHub session was rejected, logging in again");
+                        // Only if still cached: a concurrent capture may already have replaced it with a fresh one
+                        sessionCache.invalidate(restored);
+                        loginAndRememberSession(driver);
+                        openProfile(driver, githubUsername, shot.tab());
+                    }
+                    openTab = shot.tab();
+                }
 
-            byte[] png = ScreenshotUtil.captureFullPagePng(driver);
-            Files.createDirectories(targetFile.getParent());
-            Files.write(targetFile, png);
-            return targetFile;
+                Files.createDirectories(shot.file().getParent());
+                captureEngine.capture(driver, shot.file(), shot.options());
+                written.add(shot.file());
+            }
+            return written;
 
         } catch (WebDriverException wde) {
+            reusable = false;
+            if (crash.crashed()) throw crash.failure(wde);
             throw new ScreenshotCaptureException("WebDriver failed during capture: " + wde.getMessage(), wde);
         } catch (IOException ioe) {
             throw new ScreenshotCaptureException("Failed to write screenshot file: " + ioe.getMessage(), ioe);
+        } catch (RuntimeException ex) {
+            // Login steps swallow WebDriver errors, so a crash can also surface as a login failure
+            if (crash.crashed()) throw crash.failure(ex);
+            throw ex;
         } finally {
-            try { driver.quit(); } catch (Exception ignore) {}
+            crash.close();
+            if (emulating && reusable && !crash.crashed()) {
+                reusable = resetViewport(driver);
+            }
+            if (crash.crashed()) {
+                driverPool.invalidate(driver, "crash");
+            } else if (reusable) {
+                driverPool.release(driver);
+            } else {
+                driverPool.invalidate(driver);
+            }
+        }
+    }
+
+    /** Puts the pooled browser back to its launch window; one that refuses is not handed out again. */
+    private boolean resetViewport(ChromeDriver driver) {
+        try {
+            ScreenshotUtil.clearViewport(driver);
+            return true;
+        } catch (WebDriverException ex) {
+            log.debug("Failed to clear viewport emulation: {}", ex.toString());
+            return false;
+        }
+    }
+
+    private void openProfile(WebDriver driver, String githubUsername, ProfileTab tab) {
+        pageReadiness.navigate(driver, tab.url(githubUsername));
+    }
+
+    // -------------------- Session reuse --------------------
+    private void loginAndRememberSession(ChromeDriver driver) {
+        // Bounds the captures queued behind a login; a full queue fails with 429 and returns the browser
+        try (AdmissionControl.Permit ignored = admission.enter(AdmissionControl.Resource.LOGIN)) {
+            loginWhileAdmitted(driver);
+        }
+    }
+
+    private void loginWhileAdmitted(ChromeDriver driver) {
+        loginLock.lock();
+        try {
+            // Another capture may have logged in while this one was waiting for the lock
+            if (sessionCache.restore(driver)) return;
+            loginWithEmailPasswordAndMobile(driver);
+            sessionCache.store(driver);
+        } finally {
+            loginLock.unlock();
         }
     }
 
@@ -72,34 +219,41 @@ public class SeleniumAutomationService {
 
             wait.until(ExpectedConditions.or(
                     ExpectedConditions.presenceOfElementLocated(By.cssSelector("summary[aria-label*='View profile']")), // success
-                    ExpectedConditions.presenceOfElementLocated(By.cssSelector("input#otp, input[name='otp'], input[name='verification_code']")), // OTP
+                    ExpectedConditions.presenceOfElementLocated(By.cssSelector(GithubDomUtil.OTP_INPUT_SELECTOR)), // OTP
                     ExpectedConditions.urlContains("/sessions/verified-device"), // mobile/device verification
                     ExpectedConditions.presenceOfElementLocated(By.cssSelector(".flash-error")) // banner
             ));
 
-            if (GithubDomUtil.isLoggedIn(driver)) return;
+            GithubPageState page = GithubDomUtil.probe(driver);
+            if (page.loggedIn()) return;
+
+            // With a TOTP secret the authenticator app is faster than waiting for a phone tap
+            if (hasTotpSecret() && page.mobilePage() && trySwitchToOtpFromMobile(driver)) {
+                page = GithubDomUtil.probe(driver);
+            }
 
-            if (GithubDomUtil.isMobileVerificationPage(driver)) {
-                String digit = GithubMobileUtil.extractMobileApprovalDigit(driver);
-                emailMobileChallenge(driver, digit);
-                waitForMobileApproval(driver, email, pass);
-                if (GithubDomUtil.isLoggedIn(driver)) return;
+            if (page.mobilePage()) {
+                emailMobileChallenge(driver, page.challengeDigit());
+                page = waitForMobileApproval(driver, email, pass);
+                if (page.loggedIn()) return;
             }
 
-            if (GithubDomUtil.isOtpPage(driver)) {
+            if (page.otpPage()) {
+                if (hasTotpSecret()) {
+                    if (submitTotpCode(driver).loggedIn()) return;
+                    throw new GithubLoginException("TOTP code was not accepted (check github-automation.totpSecret and the server clock)");
+                }
                 if (trySwitchToMobileFromOtp(driver)) {
-                    String digit = GithubMobileUtil.extractMobileApprovalDigit(driver);
-                    emailMobileChallenge(driver, digit);
-                    waitForMobileApproval(driver, email, pass);
-                    if (GithubDomUtil.isLoggedIn(driver)) return;
+                    emailMobileChallenge(driver, GithubDomUtil.probe(driver).challengeDigit());
+                    if (waitForMobileApproval(driver, email, pass).loggedIn()) return;
                 }
                 throw new GithubLoginException(
-                        "2FA code requested but this service only supports GitHub Mobile approval. " +
-                                "Please choose 'Use GitHub Mobile' on the 2FA screen."
+                        "2FA code requested but no github-automation.totpSecret is configured and GitHub Mobile " +
+                                "approval is not available. Configure the TOTP secret or choose 'Use GitHub Mobile' on the 2FA screen."
                 );
             }
 
-            if (GithubDomUtil.hasFlashError(driver)) {
+            if (page.flashError()) {
                 throw new GithubLoginException("invalid credentials");
             }
 
@@ -112,6 +266,52 @@ public class SeleniumAutomationService {
         }
     }
 
+    // -------------------- TOTP (authenticator app) --------------------
+    private boolean hasTotpSecret() {
+        String secret = props.getTotpSecret();
+        return secret != null && !secret.isBlank();
+    }
+
+    private GithubPageState submitTotpCode(WebDriver driver) {
+        String code;
+        try {
+            code = TotpUtil.currentCode(props.getTotpSecret());
+        } catch (IllegalArgumentException iae) {
+            throw new GithubLoginException("github-automation.totpSecret is invalid: " + iae.getMessage());
+        }
+        WebElement otp = driver.findElement(By.cssSelector(GithubDomUtil.OTP_INPUT_SELECTOR));
+        GithubDomUtil.type(otp, code);
+
+        // GitHub usually auto-submits once all digits are typed; only press Verify if we are still on the form
+        try {
+            if (GithubDomUtil.probe(driver).otpPage()) {
+                GithubDomUtil.clickIfPresent(driver, By.cssSelector("button[type='submit'], input[type='submit']"));
+            }
+        } catch (StaleElementReferenceException ignored) {}
+
+        new WebDriverWait(driver, Duration.ofSeconds(15)).until(d -> {
+            GithubPageState state = GithubDomUtil.probe(d);
+            return state.loggedIn() || state.flashError();
+        });
+        log.info("Submitted TOTP code for GitHub login");
+        return GithubDomUtil.probe(driver);
+    }
+
+    private boolean trySwitchToOtpFromMobile(WebDriver driver) {
+        String[] candidates = new String[] {
+                "use your authenticator app", "authenticator app", "authentication app", "use a different method"
+        };
+        for (String text : candidates) {
+            WebElement el = GithubDomUtil.findByTextContains(driver, text);
+            if (el != null) {
+                try { el.click(); } catch (Exception ignore) {}
+                GithubDomUtil.sleep(800);
+                if (GithubDomUtil.probe(driver).otpPage()) return true;
+            }
+        }
+        return false;
+    }
+
     // -------------------- Mobile approval: email + wait --------------------
     private void emailMobileChallenge(WebDriver driver, String digit) {
         try {
@@ -129,76 +329,92 @@ public class SeleniumAutomationService {
                     ? "Approve the sign-in on your phone by selecting digit: " + digit
                     : "Approve the sign-in on your phone (screenshot attached shows the number).";
 
-            mailService.sendScreenshot(props.getLoginEmail(), subject, body, path.toFile());
+            // On the mail workers like every other SMTP send; the approval wait starts once it went out
+            pipeline.mail(() -> mailService.sendScreenshot(props.getLoginEmail(), subject, body, path.toFile())).join();
             log.info("Emailed GitHub Mobile challenge to {} (digit: {}) at {}", props.getLoginEmail(), digit, path);
         } catch (Exception e) {
-            log.warn("Failed to email GitHub Mobile challenge: {}", e.toString());
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.warn("Failed to email GitHub Mobile challenge: {}", cause.toString());
         }
     }
 
-    private void waitForMobileApproval(WebDriver driver, String email, String pass) {
-        long timeoutSec = Math.max(30, props.getMobileApprovalTimeoutSeconds());
-        long pollSec    = Math.max(1,  props.getMobilePollingIntervalSeconds());
-        long start      = System.currentTimeMillis();
+    /**
+     * Waits for the user to approve the sign-in on their phone. With DevTools the thread stays parked until
+     * Chrome reports a navigation, a session endpoint response or a session cookie, so approval is noticed
+     * right away; without it the page is re-probed every poll interval. The page is never refreshed blindly.
+     *
+     * @return the last probed page state once logged in, or once GitHub falls back to the OTP form
+     */
+    private GithubPageState waitForMobileApproval(WebDriver driver, String email, String pass) {
+        long timeoutMs  = TimeUnit.SECONDS.toMillis(Math.max(30, props.getMobileApprovalTimeoutSeconds()));
+        long pollMs     = TimeUnit.SECONDS.toMillis(Math.max(1, props.getMobilePollingIntervalSeconds()));
+        long deadline   = System.currentTimeMillis() + timeoutMs;
         WebDriverWait shortWait = new WebDriverWait(driver, Duration.ofSeconds(6));
 
-        int polls = 0;
-        String initialDigit = GithubMobileUtil.extractMobileApprovalDigit(driver);
-
-        while ((System.currentTimeMillis() - start) / 1000 < timeoutSec) {
-
-            if (GithubDomUtil.isLoggedIn(driver)) return;
-
-            if (GithubDomUtil.clickIfPresent(driver,
-                    By.xpath("//button[normalize-space()='Continue']"),
-                    By.xpath("//button[normalize-space()='Verify']"),
-                    By.xpath("//a[normalize-space()='Continue']"),
-                    By.xpath("//a[normalize-space()='Verify']"),
-                    By.xpath("//*[self::button or self::a][contains(translate(.,'ABCDEFGHIJKLMNOPQRSTUVWXYZ','abcdefghijklmnopqrstuvwxyz'),'continue')]"),
-                    By.xpath("//*[self::button or self::a][contains(translate(.,'ABCDEFGHIJKLMNOPQRSTUVWXYZ','abcdefghijklmnopqrstuvwxyz'),'verify')]"),
-                    By.cssSelector("button[type='submit'], input[type='submit']"))) {
-                GithubDomUtil.sleep(800);
-                if (GithubDomUtil.isLoggedIn(driver)) return;
-            }
+        GithubPageState page = GithubDomUtil.probe(driver);
+        String initialDigit = page.challengeDigit();
+
+        try (PageChangeEvents events = PageChangeEvents.attach(driver)) {
+            while (System.currentTimeMillis() < deadline) {
+
+                if (page.loggedIn() || page.otpPage()) return page;
+
+                if (GithubDomUtil.clickIfPresent(driver,
+                        By.xpath("//button[normalize-space()='Continue']"),
+                        By.xpath("//button[normalize-space()='Verify']"),
+                        By.xpath("//a[normalize-space()='Continue']"),
+                        By.xpath("//a[normalize-space()='Verify']"),
+                        By.xpath("//*[self::button or self::a][contains(translate(.,'ABCDEFGHIJKLMNOPQRSTUVWXYZ','abcdefghijklmnopqrstuvwxyz'),'continue')]"),
+                        By.xpath("//*[self::button or self::a][contains(translate(.,'ABCDEFGHIJKLMNOPQRSTUVWXYZ','abcdefghijklmnopqrstuvwxyz'),'verify')]"),
+                        By.cssSelector("button[type='submit'], input[type='submit']"))) {
+                    events.await(Duration.ofMillis(800));
+                    page = GithubDomUtil.probe(driver);
+                    if (page.loggedIn()) return page;
+                }
 
-            if (!driver.findElements(By.cssSelector("input[type='password']#password, input[name='password']")).isEmpty()) {
-                try {
-                    WebElement pw = driver.findElement(By.cssSelector("input[type='password']#password, input[name='password']"));
-                    pw.clear(); pw.sendKeys(pass);
-                    if (!driver.findElements(By.cssSelector("input[name='commit'], button[type='submit']")).isEmpty()) {
-                        driver.findElement(By.cssSelector("input[name='commit'], button[type='submit']")).click();
-                    } else {
-                        pw.sendKeys(Keys.ENTER);
-                    }
-                    shortWait.until(d -> GithubDomUtil.isLoggedIn(d) || GithubDomUtil.isMobileVerificationPage(d) || GithubDomUtil.isOtpPage(d));
-                    if (GithubDomUtil.isLoggedIn(driver)) return;
-                } catch (Exception ignored) {}
-            }
+                if (!driver.findElements(By.cssSelector("input[type='password']#password, input[name='password']")).isEmpty()) {
+                    try {
+                        WebElement pw = driver.findElement(By.cssSelector("input[type='password']#password, input[name='password']"));
+                        pw.clear(); pw.sendKeys(pass);
+                        if (!driver.findElements(By.cssSelector("input[name='commit'], button[type='submit']")).isEmpty()) {
+                            driver.findElement(By.cssSelector("input[name='commit'], button[type='submit']")).click();
+                        } else {
+                            pw.sendKeys(Keys.ENTER);
+                        }
+                        shortWait.until(d -> {
+                            GithubPageState state = GithubDomUtil.probe(d);
+                            return state.loggedIn() || state.mobilePage() || state.otpPage();
+                        });
+                        page = GithubDomUtil.probe(driver);
+                        if (page.loggedIn()) return page;
+                    } catch (Exception ignored) {}
+                }
 
-            polls++;
-            if (polls % 3 == 0) {
-                try { driver.navigate().refresh(); } catch (Exception ignored) {}
-                GithubDomUtil.sleep(600);
-            }
-            if (polls % 5 == 0) {
-                try { driver.navigate().to("https://github.com/"); } catch (Exception ignored) {}
-                GithubDomUtil.sleep(900);
-            }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) break;
+                if (events.isEventDriven()) {
+                    String reason = events.await(Duration.ofMillis(Math.min(remaining, EVENT_RECHECK_MS)));
+                    if (reason != null) log.debug("Page change during mobile approval: {}", reason);
+                } else {
+                    GithubDomUtil.sleep(Math.min(remaining, pollMs));
+                }
 
-            String currentDigit = GithubMobileUtil.extractMobileApprovalDigit(driver);
-            if (currentDigit != null && initialDigit != null && !currentDigit.equals(initialDigit)) {
-                log.info("Detected new mobile challenge digit {} (was {}). Avoiding re-login to prevent loops.", currentDigit, initialDigit);
+                page = GithubDomUtil.probe(driver);
+                String currentDigit = page.challengeDigit();
+                if (currentDigit != null && initialDigit != null && !currentDigit.equals(initialDigit)) {
+                    log.info("Detected new mobile challenge digit {} (was {}). Avoiding re-login to prevent loops.", currentDigit, initialDigit);
+                }
             }
-
-            if (GithubDomUtil.isOtpPage(driver)) return;
-            GithubDomUtil.sleep(pollSec * 1000L);
         }
 
         try {
             driver.navigate().to("https://github.com/");
-            new WebDriverWait(driver, Duration.ofSeconds(8))
-                    .until(d -> GithubDomUtil.isLoggedIn(d) || GithubDomUtil.isOtpPage(d) || GithubDomUtil.isMobileVerificationPage(d));
-            if (GithubDomUtil.isLoggedIn(driver)) return;
+            new WebDriverWait(driver, Duration.ofSeconds(8)).until(d -> {
+                GithubPageState state = GithubDomUtil.probe(d);
+                return state.loggedIn() || state.otpPage() || state.mobilePage();
+            });
+            page = GithubDomUtil.probe(driver);
+            if (page.loggedIn()) return page;
         } catch (Exception ignored) {}
 
         throw new GithubLoginException("waiting for GitHub Mobile approval timed out");
@@ -214,7 +430,7 @@ public class SeleniumAutomationService {
             if (el != null) {
                 try { el.click(); } catch (Exception ignore) {}
                 GithubDomUtil.sleep(800);
-                if (GithubDomUtil.isMobileVerificationPage(driver)) return true;
+                if (GithubDomUtil.probe(driver).mobilePage()) return true;
             }
         }
         return false;
@@ -0,0 +1,195 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.ScreenshotUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Captures a page of known size with {@code Page.captureScreenshot} clips instead of resizing the viewport to
+ * the whole page. The captured height is capped by {@code maxPageHeight} (cropped or scaled down), and with a
+ * {@code tileHeight} Chrome only ever rasterizes one tile at a time. PNG tiles are encoded row by row into the
+ * target as they arrive, so the JVM holds one tile, not the page. JPEG cannot be written that way by the JDK: its
+ * tiles are stitched into one in-memory image, scaled down when it would exceed {@code maxStitchedPixels}. The
+ * JDK cannot encode WebP at all, so WebP pages are always taken in one clip.
+ */
+@Slf4j
+final class TiledCapture {
+
+    private final BiFunction<String, Map<String, Object>, Map<String, Object>> cdp;
+    private final GithubAutomationProperties.Capture cfg;
+
+    /** @param cdp sends a DevTools command and returns its result */
+    TiledCapture(BiFunction<String, Map<String, Object>, Map<String, Object>> cdp,
+                 GithubAutomationProperties.Capture cfg) {
+        this.cdp = cdp;
+        this.cfg = cfg;
+    }
+
+    /** Whether a page of this height needs clips at all, rather than one plain full-page shot. */
+    boolean needed(double contentHeight) {
+        return cfg.getTileHeight() > 0 || (cfg.getMaxPageHeight() > 0 && contentHeight > cfg.getMaxPageHeight());
+    }
+
+    /**
+     * Captures the page of the given CSS size into {@code target}.
+     *
+     * @return the size of the written file in bytes
+     */
+    long capture(double contentWidth, double contentHeight, Path target, CaptureOptions options) throws IOException {
+        double width = Math.max(1, Math.ceil(contentWidth));
+        double height = Math.max(1, Math.ceil(contentHeight));
+        double scale = 1;
+
+        int maxHeight = cfg.getMaxPageHeight();
+        if (maxHeight > 0 && height > maxHeight) {
+            if (cfg.getOverflow() == GithubAutomationProperties.Capture.Overflow.SCALE) {
+                scale = maxHeight / height;
+            } else {
+                height = maxHeight;
+            }
+            log.debug("Page is {}px tall, over the {}px cap: {}", Math.ceil(contentHeight), maxHeight, cfg.getOverflow());
+        }
+
+        double tileHeight = cfg.getTileHeight() > 0 ? cfg.getTileHeight() : height;
+        if (tileHeight >= height || options.format() == ImageFormat.WEBP) {
+            return ScreenshotUtil.writeBase64Image(shoot(0, width, height, scale, options.screenshotParams()), target);
+        }
+        return stitch(width, height, tileHeight, scale, target, options);
+    }
+
+    private long stitch(double width, double height, double tileHeight, double scale, Path target,
+                        CaptureOptions options) throws IOException {
+        BufferedImage first = tile(0, width, height, tileHeight, scale);
+        if (options.format() == ImageFormat.PNG) {
+            return streamPng(first, width, height, tileHeight, scale, target);
+        }
+
+        long pixels = (long) first.getWidth() * pageRows(first, height, tileHeight);
+        long limit = cfg.getMaxStitchedPixels();
+        if (limit > 0 && pixels > limit) {
+            double shrink = Math.sqrt((double) limit / pixels);
+            log.debug("Stitched page of {} pixels is over the {} pixel limit, scaled by {}", pixels, limit, shrink);
+            first.flush();
+            scale *= shrink;
+            first = tile(0, width, height, tileHeight, scale);
+        }
+
+        BufferedImage page = new BufferedImage(first.getWidth(), pageRows(first, height, tileHeight),
+                BufferedImage.TYPE_3BYTE_BGR);
+        int drawnRows = 0;
+        for (double y = 0; y < height; y += tileHeight) {
+            BufferedImage tile = y == 0 ? first : tile(y, width, height, tileHeight, scale);
+            Graphics2D g = page.createGraphics();
+            try {
+                g.drawImage(tile, 0, drawnRows, null);
+            } finally {
+                g.dispose();
+            }
+            drawnRows += tile.getHeight();
+            tile.flush();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(options.format().getCdpName()).next();
+        try (OutputStream file = Files.newOutputStream(target);
+             ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (options.format().isLossy()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(options.quality() / 100f);
+            }
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(page, null, null), param);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(target);
+            throw ex;
+        } finally {
+            writer.dispose();
+        }
+        return Files.size(target);
+    }
+
+    /** Encodes the tiles into the target while they are taken; only the current tile is in memory. */
+    private long streamPng(BufferedImage first, double width, double height, double tileHeight, double scale,
+                           Path target) throws IOException {
+        int pixelWidth = first.getWidth();
+        int[] row = new int[pixelWidth];
+        try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(target));
+             PngStreamWriter png = new PngStreamWriter(file, pixelWidth, pageRows(first, height, tileHeight))) {
+            for (double y = 0; y < height && png.rowsLeft() > 0; y += tileHeight) {
+                BufferedImage tile = y == 0 ? first : tile(y, width, height, tileHeight, scale);
+                int columns = Math.min(pixelWidth, tile.getWidth());
+                for (int r = 0; r < tile.getHeight() && png.rowsLeft() > 0; r++) {
+                    tile.getRGB(0, r, columns, 1, row, 0, pixelWidth);
+                    png.writeRow(row);
+                }
+                tile.flush();
+            }
+            // Rounding of the tile heights can leave the last row or two uncovered; they repeat the row above
+            while (png.rowsLeft() > 0) png.writeRow(row);
+            png.finish();
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(target);
+            throw ex;
+        }
+        return Files.size(target);
+    }
+
+    /** The tile starting at {@code y}; lossless, so that only the stitched page is encoded in the requested format. */
+    private BufferedImage tile(double y, double width, double height, double tileHeight, double scale)
+            throws IOException {
+        return decode(shoot(y, width, Math.min(tileHeight, height - y), scale, CaptureOptions.PNG.screenshotParams()));
+    }
+
+    /** Device pixel rows of the page, from the first tile as Chrome rendered it (scale times devicePixelRatio). */
+    private static int pageRows(BufferedImage first, double height, double tileHeight) {
+        double density = first.getHeight() / Math.min(tileHeight, height);
+        return (int) Math.ceil(height * density);
+    }
+
+    private String shoot(double y, double width, double height, double scale, Map<String, Object> encoding) {
+        Map<String, Object> clip = new HashMap<>();
+        clip.put("x", 0);
+        clip.put("y", y);
+        clip.put("width", width);
+        clip.put("height", height);
+        clip.put("scale", scale);
+
+        Map<String, Object> params = new HashMap<>(encoding);
+        params.put("clip", clip);
+        params.put("captureBeyondViewport", true);
+        params.put("fromSurface", true);
+        return (String) cdp.apply("Page.captureScreenshot", params).get("data");
+    }
+
+    private static BufferedImage decode(String base64) throws IOException {
+        try (InputStream in = Base64.getDecoder().wrap(
+                new ByteArrayInputStream(base64.getBytes(StandardCharsets.ISO_8859_1)))) {
+            BufferedImage image = ImageIO.read(in);
+            if (image == null) throw new IOException("Page.captureScreenshot returned an unreadable tile");
+            return image;
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.ScreenshotUtil;
+import lombok.RequiredArgsConstructor;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Sizes the page with JavaScript and captures through chromedriver's HTTP endpoint (three scripts, four CDP calls).
+ * Pages over the height cap, or any page in tiled mode, are captured in clips instead; a region is measured
+ * with one script and captured as one clip.
+ */
+@Component
+@RequiredArgsConstructor
+public class WebDriverCaptureEngine implements CaptureEngine {
+
+    public static final String NAME = "webdriver";
+
+    private final GithubAutomationProperties props;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public long capture(ChromeDriver driver, Path target, CaptureOptions options) throws IOException {
+        if (options.region() != null) {
+            Object box = driver.executeScript(RegionCapture.webDriverScript(), options.region().selector());
+            return RegionCapture.capture(driver::executeCdpCommand, box, options, target);
+        }
+
+        Dimension size = ScreenshotUtil.pageSize(driver);
+        TiledCapture tiled = new TiledCapture(driver::executeCdpCommand, props.getCapture());
+        // The full-page path resizes the viewport itself, which would undo an emulated one
+        if (tiled.needed(size.getHeight()) || options.viewport() != null) {
+            return tiled.capture(size.getWidth(), size.getHeight(), target, options);
+        }
+        String data = ScreenshotUtil.captureFullPageBase64(driver, size, options.screenshotParams());
+        return ScreenshotUtil.writeBase64Image(data, target);
+    }
+
+}
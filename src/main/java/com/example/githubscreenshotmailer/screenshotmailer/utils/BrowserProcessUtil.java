@@ -0,0 +1,76 @@
+package com.example.githubscreenshotmailer.screenshotmailer.utils;
+
+import lombok.experimental.UtilityClass;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+@UtilityClass
+public class BrowserProcessUtil {
+
+    private static final Path PROC = Path.of("/proc");
+
+    /**
+     * Resident memory of all processes of the given browser (browser, renderers, GPU, ...), found through the
+     * profile directory Chrome was started with. Empty when it cannot be measured, e.g. outside Linux or for
+     * a remote browser.
+     */
+    public OptionalLong residentBytes(ChromeDriver driver) {
+        String userDataDir = userDataDir(driver.getCapabilities());
+        if (userDataDir == null || !Files.isDirectory(PROC)) return OptionalLong.empty();
+        return residentBytes("--user-data-dir=" + userDataDir);
+    }
+
+    /** Sums VmRSS of every process started with the given argument, and of all their descendants. */
+    OptionalLong residentBytes(String argument) {
+        Set<Long> pids = new HashSet<>();
+        ProcessHandle.allProcesses()
+                .filter(p -> p.info().arguments().map(args -> Arrays.asList(args).contains(argument)).orElse(false))
+                .forEach(root -> {
+                    pids.add(root.pid());
+                    root.descendants().forEach(child -> pids.add(child.pid()));
+                });
+        if (pids.isEmpty()) return OptionalLong.empty();
+
+        long total = 0;
+        for (long pid : pids) {
+            total += vmRssBytes(pid);
+        }
+        return OptionalLong.of(total);
+    }
+
+    private String userDataDir(Capabilities capabilities) {
+        if (capabilities == null) return null;
+        if (capabilities.getCapability("chrome") instanceof Map<?, ?> chrome
+                && chrome.get("userDataDir") instanceof String dir && !dir.isBlank()) {
+            return dir;
+        }
+        return null;
+    }
+
+    private long vmRssBytes(long pid) {
+        try {
+            List<String> status = Files.readAllLines(PROC.resolve(Long.toString(pid)).resolve("status"));
+            for (String line : status) {
+                if (line.startsWith("VmRSS:")) {
+                    // "VmRSS:     123456 kB"
+                    String[] parts = line.trim().split("\\s+");
+                    return Long.parseLong(parts[1]) * 1024L;
+                }
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // The process exited while being measured
+        }
+        return 0;
+    }
+
+}
@@ -1,14 +1,19 @@
 package com.example.githubscreenshotmailer.screenshotmailer.utils;
 
 import lombok.experimental.UtilityClass;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.chrome.ChromeOptions;
 
+import java.nio.file.Path;
+
 @UtilityClass
 public class ChromeOptionsUtil {
 
     public ChromeOptions headless(boolean headless) {
 
         ChromeOptions options = new ChromeOptions();
+        // driver.get returns after DOMContentLoaded; PageReadiness decides when the page is really done
+        options.setPageLoadStrategy(PageLoadStrategy.EAGER);
         if (headless) options.addArguments("--headless=new");
         options.addArguments(
                 "--no-sandbox",
@@ -24,4 +29,18 @@ public class ChromeOptionsUtil {
         return options;
     }
 
+    /**
+     * Same as {@link #headless(boolean)}, with a fixed profile directory and an HTTP disk cache of bounded size,
+     * so cached static assets outlive the browser. A directory must not be used by two browsers at once.
+     */
+    public ChromeOptions headless(boolean headless, Path userDataDir, Path diskCacheDir, long diskCacheSizeBytes) {
+        ChromeOptions options = headless(headless);
+        options.addArguments(
+                "--user-data-dir=" + userDataDir.toAbsolutePath(),
+                "--disk-cache-dir=" + diskCacheDir.toAbsolutePath(),
+                "--disk-cache-size=" + diskCacheSizeBytes
+        );
+        return options;
+    }
+
 }
@@ -1,12 +1,15 @@
 package com.example.githubscreenshotmailer.screenshotmailer.utils;
 
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
 import lombok.experimental.UtilityClass;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @UtilityClass
 public class FileUtil {
@@ -21,8 +24,33 @@ public class FileUtil {
         return p;
     }
 
+    /** Deletes a directory tree; files that cannot be deleted are left behind. */
+    public void deleteRecursively(Path root) {
+        if (!Files.exists(root)) return;
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ignored) {
+                    // Still in use, e.g. by a browser that has not exited yet
+                }
+            });
+        } catch (IOException ignored) {
+            // Removed concurrently
+        }
+    }
+
     public String suggestPngName(String githubUsername) {
-        return "%s_%s.png".formatted(githubUsername, UUID.randomUUID());
+        return suggestFileName(githubUsername, ImageFormat.PNG);
+    }
+
+    public String suggestFileName(String githubUsername, ImageFormat format) {
+        return "%s_%s.%s".formatted(githubUsername, UUID.randomUUID(), format.getExtension());
+    }
+
+    /** Like {@link #suggestFileName(String, ImageFormat)}, with a label telling apart several shots of one profile. */
+    public String suggestFileName(String githubUsername, String variant, ImageFormat format) {
+        return "%s_%s_%s.%s".formatted(githubUsername, variant, UUID.randomUUID(), format.getExtension());
     }
 
 }
@@ -1,61 +1,98 @@
 package com.example.githubscreenshotmailer.screenshotmailer.utils;
 
+import com.example.githubscreenshotmailer.screenshotmailer.model.GithubPageState;
 import lombok.experimental.UtilityClass;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 
+import java.util.List;
+import java.util.Map;
+
 @UtilityClass
 public class GithubDomUtil {
 
-    public ExpectedCondition<Boolean> pageLoaded() {
-        return d -> "complete".equals(((JavascriptExecutor) d).executeScript("return document.readyState"));
-    }
-
-    /** Consider session established if any of these are present. */
-    public boolean isLoggedIn(WebDriver driver) {
-        try {
-            Cookie userSession = driver.manage().getCookieNamed("user_session");
-            Cookie loggedIn    = driver.manage().getCookieNamed("logged_in");
-            Cookie dotcomUser  = driver.manage().getCookieNamed("dotcom_user");
-            if (userSession != null) return true;
-            if (loggedIn != null && "yes".equalsIgnoreCase(loggedIn.getValue())) return true;
-            if (dotcomUser != null && dotcomUser.getValue() != null && !dotcomUser.getValue().isBlank()) return true;
-        } catch (Exception ignored) {}
-
-        boolean profileMenu =
-                !driver.findElements(By.cssSelector("summary[aria-label*='View profile']")).isEmpty()
-                        || !driver.findElements(By.cssSelector("summary[aria-label='View profile and more']")).isEmpty()
-                        || !driver.findElements(By.cssSelector("details[aria-label='View profile and more']")).isEmpty();
+    public final String OTP_INPUT_SELECTOR = "input#otp, input[name='otp'], input[name='verification_code']";
 
-        boolean metaUserLogin = false;
-        try {
-            WebElement meta = driver.findElement(By.cssSelector("meta[name='user-login']"));
-            String content = meta.getAttribute("content");
-            metaUserLogin = content != null && !content.isBlank();
-        } catch (NoSuchElementException ignored) {}
+    /**
+     * Login state is derived from the non-HttpOnly session markers, the {@code user-login} meta tag and the
+     * profile menu. The challenge digit is the visible 2-3 digit text with the largest font size.
+     */
+    private final String PROBE_SCRIPT = """
+            var otpSelector = arguments[0];
+            var cookies = document.cookie || '';
+            var meta = document.querySelector("meta[name='user-login']");
+            var loggedIn = /(?:^|;\\s*)logged_in=yes(?:;|$)/i.test(cookies)
+                || /(?:^|;\\s*)dotcom_user=[^;\\s]+/.test(cookies)
+                || !!(meta && meta.content && meta.content.trim())
+                || !!document.querySelector("summary[aria-label*='View profile'], details[aria-label='View profile and more']");
+            var mobilePage = false, digit = null;
+            if (!loggedIn) {
+                var text = ((document.body && document.body.innerText) || '').toLowerCase();
+                mobilePage = location.pathname.indexOf('/sessions/verified-device') >= 0
+                    || ['check your phone', 'approve sign in', 'confirm digit', 'github mobile',
+                        'verify your identity', 'device verification'].some(function (t) { return text.indexOf(t) >= 0; });
+            }
+            if (mobilePage) {
+                var best = -1;
+                document.querySelectorAll('h1, h2, h3, .h0, .h1, .h2, .f0, .f1, .f2, .f3, strong, b, p, span, div')
+                    .forEach(function (el) {
+                        if (!el.getClientRects().length) return;
+                        var m = /^\\s*(\\d{2,3})\\s*$/.exec(el.innerText || '');
+                        if (!m) return;
+                        var px = parseFloat(getComputedStyle(el).fontSize) || 0;
+                        if (px > best) { best = px; digit = m[1]; }
+                    });
+            }
+            return {
+                loggedIn: loggedIn,
+                otpPage: !!document.querySelector(otpSelector),
+                mobilePage: mobilePage,
+                flashError: !!document.querySelector('.flash-error'),
+                challengeDigit: digit
+            };
+            """;
 
-        return profileMenu || metaUserLogin;
+    public ExpectedCondition<Boolean> pageLoaded() {
+        return d -> "complete".equals(((JavascriptExecutor) d).executeScript("return document.readyState"));
     }
 
-    public boolean hasFlashError(WebDriver driver) {
-        return !driver.findElements(By.cssSelector(".flash-error")).isEmpty();
+    /** The document has been parsed; subresources may still be loading (what an eager page load waits for). */
+    public ExpectedCondition<Boolean> domReady() {
+        return d -> {
+            Object state = ((JavascriptExecutor) d).executeScript("return document.readyState");
+            return "interactive".equals(state) || "complete".equals(state);
+        };
     }
 
-    public boolean isOtpPage(WebDriver driver) {
-        return !driver.findElements(By.cssSelector("input#otp, input[name='otp'], input[name='verification_code']")).isEmpty();
+    /** Every selector matches at least one element; checked in one script call. */
+    public ExpectedCondition<Boolean> allPresent(List<String> selectors) {
+        return d -> Boolean.TRUE.equals(((JavascriptExecutor) d).executeScript(
+                "return arguments[0].every(function (s) { return !!document.querySelector(s); });", selectors));
     }
 
-    public boolean isMobileVerificationPage(WebDriver driver) {
-        if (isLoggedIn(driver)) return false;
-        String url = driver.getCurrentUrl();
-        if (url != null && url.contains("/sessions/verified-device")) return true;
-        String src = driver.getPageSource().toLowerCase();
-        return src.contains("check your phone")
-                || src.contains("approve sign in")
-                || src.contains("confirm digit")
-                || src.contains("github mobile")
-                || src.contains("verify your identity")
-                || src.contains("device verification");
+    /**
+     * Evaluates the login state of the current page in one {@code executeScript} round trip instead of a
+     * WebDriver call per cookie, element and attribute. Mobile challenge text is matched against the rendered
+     * text inside the browser, so the page source never has to be shipped back.
+     */
+    public GithubPageState probe(WebDriver driver) {
+        if (!(driver instanceof JavascriptExecutor js)) return GithubPageState.UNKNOWN;
+        Object raw;
+        try {
+            raw = js.executeScript(PROBE_SCRIPT, OTP_INPUT_SELECTOR);
+        } catch (JavascriptException | StaleElementReferenceException ex) {
+            // The document was replaced while the script ran; the caller probes again on its next check
+            return GithubPageState.UNKNOWN;
+        }
+        if (!(raw instanceof Map<?, ?> m)) return GithubPageState.UNKNOWN;
+        Object digit = m.get("challengeDigit");
+        return new GithubPageState(
+                Boolean.TRUE.equals(m.get("loggedIn")),
+                Boolean.TRUE.equals(m.get("otpPage")),
+                Boolean.TRUE.equals(m.get("mobilePage")),
+                Boolean.TRUE.equals(m.get("flashError")),
+                digit != null ? digit.toString() : null
+        );
     }
 
     public WebElement findByTextContains(WebDriver driver, String textLower) {
@@ -86,7 +123,7 @@ public class GithubDomUtil {
     }
 
     public void sleep(long ms) {
-        try { Thread.sleep(ms); } catch (InterruptedException ignored) {}
+        try { Thread.sleep(ms); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
     }
 
 }
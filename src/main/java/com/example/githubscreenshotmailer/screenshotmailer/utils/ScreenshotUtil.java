@@ -1,9 +1,18 @@
 package com.example.githubscreenshotmailer.screenshotmailer.utils;
 
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ViewportPreset;
 import lombok.experimental.UtilityClass;
+import org.openqa.selenium.Dimension;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.chrome.ChromeDriver;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
@@ -11,8 +20,36 @@ import java.util.Map;
 @UtilityClass
 public class ScreenshotUtil {
 
+    private static final int WRITE_CHUNK_BYTES = 64 * 1024;
+
+    /** Renders the page at the preset's screen size until {@link #clearViewport(ChromeDriver)}. */
+    public void emulateViewport(ChromeDriver driver, ViewportPreset viewport) {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("mobile", viewport.isMobile());
+        metrics.put("width", viewport.getWidth());
+        metrics.put("height", viewport.getHeight());
+        metrics.put("deviceScaleFactor", viewport.getDeviceScaleFactor());
+        driver.executeCdpCommand("Emulation.setDeviceMetricsOverride", metrics);
+        driver.executeCdpCommand("Emulation.setTouchEmulationEnabled", Map.of("enabled", viewport.isMobile()));
+    }
+
+    public void clearViewport(ChromeDriver driver) {
+        driver.executeCdpCommand("Emulation.clearDeviceMetricsOverride", new HashMap<>());
+        driver.executeCdpCommand("Emulation.setTouchEmulationEnabled", Map.of("enabled", false));
+    }
+
     /** Full-page PNG via CDP (no manual scrolling). */
     public byte[] captureFullPagePng(ChromeDriver driver) {
+        return Base64.getDecoder().decode(captureFullPageBase64(driver));
+    }
+
+    /** Same as {@link #captureFullPagePng(ChromeDriver)}, but leaves the PNG base64-encoded as CDP returned it. */
+    public String captureFullPageBase64(ChromeDriver driver) {
+        return captureFullPageBase64(driver, pageSize(driver));
+    }
+
+    /** Scrollable size of the current page in CSS pixels. */
+    public Dimension pageSize(ChromeDriver driver) {
 
         JavascriptExecutor js = driver;
 
@@ -22,10 +59,26 @@ public class ScreenshotUtil {
         Number height = (Number) js.executeScript(
                 "return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight, " +
                         "            document.documentElement.clientHeight);");
+
+        return new Dimension(Math.max(1, width.intValue()), Math.max(1, height.intValue()));
+    }
+
+    /** Full-page capture of a page already measured with {@link #pageSize(ChromeDriver)}. */
+    public String captureFullPageBase64(ChromeDriver driver, Dimension size) {
+        return captureFullPageBase64(driver, size, Map.of());
+    }
+
+    /**
+     * Same as {@link #captureFullPageBase64(ChromeDriver, Dimension)}, encoded as described by {@code encoding}
+     * (extra {@code Page.captureScreenshot} parameters such as {@code format} and {@code quality}).
+     */
+    public String captureFullPageBase64(ChromeDriver driver, Dimension size, Map<String, Object> encoding) {
+
+        JavascriptExecutor js = driver;
         Number dpr    = (Number) js.executeScript("return window.devicePixelRatio || 1;");
 
-        int w = Math.max(1, width.intValue());
-        int h = Math.max(1, height.intValue());
+        int w = size.getWidth();
+        int h = size.getHeight();
         double scale = dpr.doubleValue();
 
         Map<String, Object> metrics = new HashMap<>();
@@ -42,15 +95,69 @@ public class ScreenshotUtil {
         visible.put("height", h);
         driver.executeCdpCommand("Emulation.setVisibleSize", visible);
 
-        Map<String, Object> shotParams = new HashMap<>();
+        Map<String, Object> shotParams = new HashMap<>(encoding);
         shotParams.put("fromSurface", true);
         shotParams.put("captureBeyondViewport", true);
         Map<String, Object> result = driver.executeCdpCommand("Page.captureScreenshot", shotParams);
 
         driver.executeCdpCommand("Emulation.clearDeviceMetricsOverride", new HashMap<>());
 
-        String base64 = (String) result.get("data");
-        return Base64.getDecoder().decode(base64);
+        return (String) result.get("data");
+    }
+
+    /**
+     * Decodes base64 image data straight into {@code target} in fixed-size chunks, so no decoded copy of the
+     * image is ever held in memory. A partially written file is deleted when decoding or writing fails.
+     *
+     * @return the number of bytes written
+     */
+    public long writeBase64Image(CharSequence base64, Path target) throws IOException {
+        try (InputStream png = Base64.getDecoder().wrap(new AsciiInputStream(base64));
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            byte[] chunk = new byte[WRITE_CHUNK_BYTES];
+            ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            long written = 0;
+            int read;
+            while ((read = png.read(chunk)) != -1) {
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    written += out.write(buffer);
+                }
+            }
+            return written;
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(target);
+            throw ex;
+        }
+    }
+
+    /** Reads the characters of base64 text as bytes without copying the text. */
+    private static final class AsciiInputStream extends InputStream {
+
+        private final CharSequence text;
+        private int position;
+
+        private AsciiInputStream(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read() {
+            return position < text.length() ? text.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            int remaining = text.length() - position;
+            if (remaining <= 0) return -1;
+            int n = Math.min(len, remaining);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) text.charAt(position++);
+            }
+            return n;
+        }
     }
 
 }
@@ -0,0 +1,36 @@
+package com.example.githubscreenshotmailer.screenshotmailer.utils;
+
+import com.eatthepath.otp.TimeBasedOneTimePasswordGenerator;
+import lombok.experimental.UtilityClass;
+import org.apache.commons.codec.binary.Base32;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.time.Instant;
+import java.util.Locale;
+
+@UtilityClass
+public class TotpUtil {
+
+    private final TimeBasedOneTimePasswordGenerator GENERATOR = new TimeBasedOneTimePasswordGenerator();
+
+    /** Current 6-digit RFC 6238 code for a Base32 secret as shown by GitHub's 2FA setup ("setup key"). */
+    public String currentCode(String base32Secret) {
+        return codeAt(base32Secret, Instant.now());
+    }
+
+    public String codeAt(String base32Secret, Instant instant) {
+        String normalized = base32Secret.replace(" ", "").replace("-", "").toUpperCase(Locale.ROOT);
+        byte[] keyBytes = new Base32().decode(normalized);
+        if (keyBytes.length == 0) {
+            throw new IllegalArgumentException("TOTP secret is not valid Base32");
+        }
+        try {
+            return GENERATOR.generateOneTimePasswordString(
+                    new SecretKeySpec(keyBytes, GENERATOR.getAlgorithm()), instant, Locale.ROOT);
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException("TOTP secret cannot be used as HMAC key", e);
+        }
+    }
+
+}
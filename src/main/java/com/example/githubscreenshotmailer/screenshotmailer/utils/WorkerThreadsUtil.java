@@ -0,0 +1,21 @@
+package com.example.githubscreenshotmailer.screenshotmailer.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.concurrent.ThreadFactory;
+
+@UtilityClass
+public class WorkerThreadsUtil {
+
+    /**
+     * Threads named {@code prefix1}, {@code prefix2}, ... Virtual threads cost almost nothing while they wait
+     * on WebDriver, JDBC or sleeps, but are pinned to their carrier inside {@code synchronized}; keep work that
+     * blocks in synchronized code (e.g. JavaMail's SMTP transport) on platform threads.
+     */
+    public ThreadFactory named(String prefix, boolean virtual) {
+        return virtual
+                ? Thread.ofVirtual().name(prefix, 1).factory()
+                : Thread.ofPlatform().name(prefix, 1).factory();
+    }
+
+}
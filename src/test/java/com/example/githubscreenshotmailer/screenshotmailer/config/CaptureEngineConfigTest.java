@@ -0,0 +1,56 @@
+package com.example.githubscreenshotmailer.screenshotmailer.config;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.service.CaptureEngine;
+import com.example.githubscreenshotmailer.screenshotmailer.service.DevToolsCaptureEngine;
+import com.example.githubscreenshotmailer.screenshotmailer.service.WebDriverCaptureEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CaptureEngineConfigTest {
+
+    private final CaptureEngineConfig config = new CaptureEngineConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void captureEngine_selectsConfiguredEngine_andRecordsTimeAndSize() throws Exception {
+        GithubAutomationProperties props = new GithubAutomationProperties();
+        props.getCapture().setEngine("DevTools");
+        DevToolsCaptureEngine devTools = mock(DevToolsCaptureEngine.class);
+        when(devTools.name()).thenReturn(DevToolsCaptureEngine.NAME);
+        ChromeDriver driver = mock(ChromeDriver.class);
+        Path target = tempDir.resolve("shot.png");
+        when(devTools.capture(driver, target, CaptureOptions.PNG)).thenReturn(2048L);
+
+        CaptureEngine engine = config.captureEngine(props, new WebDriverCaptureEngine(props), devTools, meterRegistry);
+
+        assertEquals("devtools", engine.name());
+        assertEquals(2048L, engine.capture(driver, target, CaptureOptions.PNG));
+        assertEquals(1L, meterRegistry.get("screenshot.capture.duration").tag("engine", "devtools").timer().count());
+        assertEquals(2048.0, meterRegistry.get("screenshot.capture.bytes").tag("engine", "devtools").summary().totalAmount());
+    }
+
+    @Test
+    void captureEngine_defaultsToWebDriver_andRejectsUnknownNames() {
+        GithubAutomationProperties props = new GithubAutomationProperties();
+        WebDriverCaptureEngine webDriver = new WebDriverCaptureEngine(props);
+        DevToolsCaptureEngine devTools = new DevToolsCaptureEngine(props, webDriver);
+
+        assertEquals("webdriver", config.captureEngine(props, webDriver, devTools, meterRegistry).name());
+
+        props.getCapture().setEngine("pipe");
+        assertThrows(IllegalArgumentException.class,
+                () -> config.captureEngine(props, webDriver, devTools, meterRegistry));
+    }
+
+}
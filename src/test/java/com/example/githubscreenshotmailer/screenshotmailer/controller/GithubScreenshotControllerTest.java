@@ -7,28 +7,45 @@ import com.example.githubscreenshotmailer.common.model.dto.request.CustomPagingR
 import com.example.githubscreenshotmailer.common.model.dto.request.CustomSorting;
 import com.example.githubscreenshotmailer.common.model.dto.response.CustomPagingResponse;
 import com.example.githubscreenshotmailer.common.model.dto.response.CustomResponse;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.ResourceNotFoundException;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.TooManyRequestsException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotBatch;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotJob;
 import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotRecord;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.BatchScreenshotRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.CaptureTarget;
 import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.FilterServicePagingRequest;
 import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ListScreenshotRecordRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.MultiScreenshotRequest;
 import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ScreenshotRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.JobStage;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ProfileTab;
 import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ScreenshotStatus;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ViewportPreset;
 import com.example.githubscreenshotmailer.screenshotmailer.model.mapper.CustomPageScreenshotRecordToCustomPagingScreenshotResponseMapper;
 import com.example.githubscreenshotmailer.screenshotmailer.model.mapper.ScreenshotRecordToScreenshotResponseMapper;
 import com.example.githubscreenshotmailer.screenshotmailer.service.GithubScreenshotService;
+import com.example.githubscreenshotmailer.screenshotmailer.service.ScreenshotBatchService;
+import com.example.githubscreenshotmailer.screenshotmailer.service.ScreenshotJobService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -37,6 +54,12 @@ class GithubScreenshotControllerTest extends AbstractRestControllerTest {
     @MockitoBean
     private GithubScreenshotService service;
 
+    @MockitoBean
+    private ScreenshotJobService jobService;
+
+    @MockitoBean
+    private ScreenshotBatchService batchService;
+
     private static final String BASE_URL = "/api/github-screenshots";
 
     private static final ScreenshotRecordToScreenshotResponseMapper DOMAIN_TO_RESPONSE =
@@ -85,6 +108,224 @@ class GithubScreenshotControllerTest extends AbstractRestControllerTest {
 
     }
 
+    @Test
+    @DisplayName("POST /api/github-screenshots?async=true -> 202 Accepted with a job id; nothing runs inline")
+    void createAsync_Returns202_WithJobId() throws Exception {
+
+        // Given
+        ScreenshotRequest request = new ScreenshotRequest("octocat", "user@example.com", false);
+        ScreenshotJob job = ScreenshotJob.builder()
+                .id("job-1")
+                .githubUsername("octocat")
+                .stage(JobStage.QUEUED)
+                .submittedAt(LocalDateTime.now())
+                .build();
+
+        // When
+        when(jobService.submit(any())).thenReturn(job);
+
+        // Then
+        mockMvc.perform(post(BASE_URL).param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.httpStatus").value("ACCEPTED"))
+                .andExpect(jsonPath("$.response.jobId").value("job-1"))
+                .andExpect(jsonPath("$.response.stage").value("QUEUED"));
+
+        // Verify
+        verify(jobService).submit(any());
+        verifyNoInteractions(service);
+
+    }
+
+    @Test
+    @DisplayName("GET /api/github-screenshots/jobs/{id} -> 200 with stage and result; 404 for unknown ids")
+    void getJob_ReturnsStageAndResult_or404() throws Exception {
+
+        // Given
+        ScreenshotRecord domain = sampleDomain();
+        ScreenshotJob done = ScreenshotJob.builder()
+                .id("job-1")
+                .githubUsername("octocat")
+                .stage(JobStage.SUCCEEDED)
+                .submittedAt(LocalDateTime.now())
+                .finishedAt(LocalDateTime.now())
+                .result(domain)
+                .build();
+
+        // When
+        when(jobService.get("job-1")).thenReturn(done);
+        when(jobService.get("missing")).thenThrow(new ResourceNotFoundException("Screenshot job", "missing"));
+
+        // Then
+        mockMvc.perform(get(BASE_URL + "/jobs/job-1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response.stage").value("SUCCEEDED"))
+                .andExpect(jsonPath("$.response.result.githubUsername").value(domain.githubUsername()));
+        mockMvc.perform(get(BASE_URL + "/jobs/missing"))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+
+    }
+
+    @Test
+    @DisplayName("POST /api/github-screenshots -> 429 with Retry-After when captures are saturated")
+    void create_WhenAdmissionIsFull_Returns429WithRetryAfter() throws Exception {
+
+        // Given
+        ScreenshotRequest request = new ScreenshotRequest("octocat",
+                "user@example.com",
+                false);
+
+        // When
+        when(service.process(any())).thenThrow(new TooManyRequestsException("capture", "queue full", 10));
+
+        // Then
+        mockMvc.perform(post(BASE_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andDo(print())
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "10"))
+                .andExpect(jsonPath("$.httpStatus").value("TOO_MANY_REQUESTS"));
+
+    }
+
+    @Test
+    @DisplayName("POST /api/github-screenshots/multi -> 201 Created; returns one payload per captured file")
+    void createMulti_HappyPath_Returns201() throws Exception {
+
+        // Given
+        ScreenshotRecord domain = sampleDomain();
+        MultiScreenshotRequest request = new MultiScreenshotRequest("octocat", "user@example.com", false, null,
+                null, null, List.of(new CaptureTarget(ProfileTab.OVERVIEW, ViewportPreset.MOBILE, null),
+                new CaptureTarget(ProfileTab.REPOSITORIES, null, null)));
+
+        // When
+        when(service.processMulti(any())).thenReturn(List.of(domain, domain));
+
+        // Then
+        mockMvc.perform(post(BASE_URL + "/multi")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.isSuccess").value(true))
+                .andExpect(jsonPath("$.response.length()").value(2))
+                .andExpect(jsonPath("$.response[0].githubUsername").value("octocat"));
+
+        // Verify
+        verify(service).processMulti(any());
+
+    }
+
+    @Test
+    @DisplayName("POST /api/github-screenshots/multi -> 400 when no target is given; service not called")
+    void createMulti_NoTargets_Returns400_AndServiceNotCalled() throws Exception {
+
+        // Given
+        MultiScreenshotRequest request = new MultiScreenshotRequest("octocat", "user@example.com", false, null,
+                null, null, List.of());
+
+        // Then
+        mockMvc.perform(post(BASE_URL + "/multi")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        // Verify
+        verifyNoInteractions(service);
+
+    }
+
+    @Test
+    @DisplayName("POST /api/github-screenshots/batch -> 202 with counts and a job id or error per item")
+    void createBatch_Returns202_WithAJobIdPerItem() throws Exception {
+
+        // Given
+        BatchScreenshotRequest request = new BatchScreenshotRequest(List.of(
+                new ScreenshotRequest("octocat", "user@example.com", false),
+                new ScreenshotRequest("ghost", "user@example.com", false)));
+        ScreenshotJob job = ScreenshotJob.builder()
+                .id("job-1")
+                .githubUsername("octocat")
+                .stage(JobStage.QUEUED)
+                .submittedAt(LocalDateTime.now())
+                .build();
+        ScreenshotBatch batch = new ScreenshotBatch(List.of(
+                new ScreenshotBatch.Item(0, "octocat", "user@example.com", job, null),
+                new ScreenshotBatch.Item(1, "ghost", "user@example.com", null,
+                        "Screenshot job queue is full (1000 waiting), retry later")));
+
+        // When
+        when(batchService.submit(any())).thenReturn(batch);
+
+        // Then
+        mockMvc.perform(post(BASE_URL + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.httpStatus").value("ACCEPTED"))
+                .andExpect(jsonPath("$.response.total").value(2))
+                .andExpect(jsonPath("$.response.accepted").value(1))
+                .andExpect(jsonPath("$.response.rejected").value(1))
+                .andExpect(jsonPath("$.response.items[0].job.jobId").value("job-1"))
+                .andExpect(jsonPath("$.response.items[0].job.stage").value("QUEUED"))
+                .andExpect(jsonPath("$.response.items[1].accepted").value(false))
+                .andExpect(jsonPath("$.response.items[1].error")
+                        .value("Screenshot job queue is full (1000 waiting), retry later"));
+
+        // Verify
+        verify(batchService).submit(any());
+        verifyNoInteractions(service);
+
+    }
+
+    @Test
+    @DisplayName("POST /api/github-screenshots/batch -> 400 for an invalid item; nothing is processed")
+    void createBatch_InvalidItem_Returns400() throws Exception {
+
+        // Given
+        BatchScreenshotRequest request = new BatchScreenshotRequest(List.of(
+                new ScreenshotRequest("octocat", "not-an-email", false)));
+
+        // Then
+        mockMvc.perform(post(BASE_URL + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        // Verify
+        verifyNoInteractions(batchService);
+
+    }
+
+    @Test
+    @DisplayName("POST /api/github-screenshots/batch -> 400 for more than 500 requests; nothing is queued")
+    void createBatch_TooManyItems_Returns400() throws Exception {
+
+        // Given
+        List<ScreenshotRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 501; i++) requests.add(new ScreenshotRequest("user" + i, "user@example.com", false));
+
+        // Then
+        mockMvc.perform(post(BASE_URL + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchScreenshotRequest(requests))))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        // Verify
+        verifyNoInteractions(batchService);
+
+    }
+
     @Test
     @DisplayName("POST /api/github-screenshots -> withLogin=true also returns 201; still delegates to service")
     void create_WithLoginTrue_Returns201() throws Exception {
@@ -235,6 +476,7 @@ class GithubScreenshotControllerTest extends AbstractRestControllerTest {
                 "octocat.png",                 // fileName
                 "/screenshots/octocat.png",    // path
                 12_345L,                       // fileSize
+                ImageFormat.PNG,               // format
                 LocalDateTime.of(2025, 1, 1, 12, 0), // sentAt
                 ScreenshotStatus.SUCCESS          // status (or SUCCESS/FAILED depending on your enum)
         );
@@ -0,0 +1,71 @@
+package com.example.githubscreenshotmailer.screenshotmailer.model;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ResourceBlockingOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaptureKeyTest {
+
+    @Test
+    void id_ignoresQuality_forLosslessFormats() {
+
+        // Given
+        CaptureKey q100 = CaptureKey.of("octocat", false, null, new CaptureOptions(ImageFormat.PNG, 100, false));
+        CaptureKey q50 = CaptureKey.of("octocat", false, null, new CaptureOptions(ImageFormat.PNG, 50, false));
+
+        // Then
+        assertThat(q50).isEqualTo(q100);
+        assertThat(q50.id()).isEqualTo(q100.id());
+
+    }
+
+    @Test
+    void id_keepsQuality_forLossyFormats() {
+
+        // Given
+        CaptureKey q80 = CaptureKey.of("octocat", false, null, new CaptureOptions(ImageFormat.JPEG, 80, false));
+        CaptureKey q60 = CaptureKey.of("octocat", false, null, new CaptureOptions(ImageFormat.JPEG, 60, false));
+
+        // Then
+        assertThat(q60).isNotEqualTo(q80);
+        assertThat(q60.id()).isNotEqualTo(q80.id());
+
+    }
+
+    @Test
+    void id_ignoresOrderAndRepeats_ofExtraPatterns() {
+
+        // Given
+        CaptureKey ab = CaptureKey.of("octocat", false,
+                new ResourceBlockingOptions(true, List.of("*.mp4", "*.woff2")), CaptureOptions.PNG);
+        CaptureKey ba = CaptureKey.of("Octocat", false,
+                new ResourceBlockingOptions(true, List.of("*.woff2", "*.mp4", "*.woff2")), CaptureOptions.PNG);
+
+        // Then
+        assertThat(ba).isEqualTo(ab);
+        assertThat(ba.id()).isEqualTo(ab.id());
+        assertThat(ba.resourceBlocking().extraPatterns()).containsExactly("*.mp4", "*.woff2");
+
+    }
+
+    @Test
+    void id_treatsAnOverrideThatChangesNothing_likeNoOverride() {
+
+        // Given
+        CaptureKey none = CaptureKey.of("octocat", false, null, CaptureOptions.PNG);
+        CaptureKey empty = CaptureKey.of("octocat", false, new ResourceBlockingOptions(null, List.of()),
+                CaptureOptions.PNG);
+        CaptureKey disabled = CaptureKey.of("octocat", false, new ResourceBlockingOptions(false, List.of()),
+                CaptureOptions.PNG);
+
+        // Then
+        assertThat(empty.id()).isEqualTo(none.id());
+        assertThat(disabled.id()).isNotEqualTo(none.id());
+
+    }
+
+}
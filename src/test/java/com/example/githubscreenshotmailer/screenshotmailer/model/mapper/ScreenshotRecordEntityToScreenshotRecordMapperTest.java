@@ -2,6 +2,7 @@ package com.example.githubscreenshotmailer.screenshotmailer.model.mapper;
 
 import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotRecord;
 import com.example.githubscreenshotmailer.screenshotmailer.model.entity.ScreenshotRecordEntity;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
 import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ScreenshotStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -55,6 +56,8 @@ class ScreenshotRecordEntityToScreenshotRecordMapperTest {
         assertThat(result.fileName()).isEqualTo("octocat.png");
         assertThat(result.path()).isEqualTo("/abs/path/octocat.png");
         assertThat(result.fileSize()).isEqualTo(12_345L);
+        // Rows from before formats were stored are PNG
+        assertThat(result.format()).isEqualTo(ImageFormat.PNG);
         assertThat(result.sentAt()).isEqualTo(LocalDateTime.of(2025, 1, 1, 12, 0));
         assertThat(result.status()).isEqualTo(ScreenshotStatus.SUCCESS);
     }
@@ -2,6 +2,7 @@ package com.example.githubscreenshotmailer.screenshotmailer.model.mapper;
 
 import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotRecord;
 import com.example.githubscreenshotmailer.screenshotmailer.model.dto.response.ScreenshotResponse;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
 import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ScreenshotStatus;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -35,6 +36,7 @@ class ScreenshotRecordToScreenshotResponseMapperTest {
                 "octo.png",
                 "/screenshots/octo.png",
                 12_345L,
+                ImageFormat.JPEG,
                 sentAt,
                 ScreenshotStatus.SUCCESS
         );
@@ -50,6 +52,7 @@ class ScreenshotRecordToScreenshotResponseMapperTest {
         assertThat(prop(resp, "fileName")).isEqualTo("octo.png");
         assertThat(prop(resp, "path")).isEqualTo("/screenshots/octo.png");
         assertThat(prop(resp, "fileSize")).isEqualTo(12_345L);
+        assertThat(prop(resp, "format")).isEqualTo("JPEG");
         assertThat(prop(resp, "sentAt")).isEqualTo(sentAt);
         // status is mapped to String (enum name)
         assertThat(prop(resp, "status")).isEqualTo("SUCCESS");
@@ -70,6 +73,7 @@ class ScreenshotRecordToScreenshotResponseMapperTest {
                 "o2.png",
                 "/p/o2.png",
                 1L,
+                ImageFormat.PNG,
                 LocalDateTime.of(2025, 2, 2, 2, 2),
                 null // status is null
         );
@@ -93,12 +97,12 @@ class ScreenshotRecordToScreenshotResponseMapperTest {
     void map_collection_filtersOutNulls_andMapsValidOnes() {
         // Given
         ScreenshotRecord a = new ScreenshotRecord(
-                "img-A", "a", "a@ex.com", "a.png", "/a/a.png", 1L,
+                "img-A", "a", "a@ex.com", "a.png", "/a/a.png", 1L, ImageFormat.PNG,
                 LocalDateTime.of(2025, 2, 2, 2, 2), ScreenshotStatus.SUCCESS
         );
         ScreenshotRecord b = null; // should be filtered out
         ScreenshotRecord c = new ScreenshotRecord(
-                "img-C", "c", "c@ex.com", "c.png", "/c/c.png", 3L,
+                "img-C", "c", "c@ex.com", "c.png", "/c/c.png", 3L, ImageFormat.PNG,
                 LocalDateTime.of(2025, 3, 3, 3, 3), ScreenshotStatus.FAILED
         );
 
@@ -0,0 +1,127 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest extends AbstractBaseServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionControl admission;
+    private ExecutorService waiters;
+
+    @BeforeEach
+    void setup() {
+        GithubAutomationProperties props = new GithubAutomationProperties();
+        props.getAdmission().setCapture(new GithubAutomationProperties.Limit(1, 1, 30, 7));
+        props.getAdmission().setLogin(new GithubAutomationProperties.Limit(1, 1, 0, 30));
+        meterRegistry = new SimpleMeterRegistry();
+        admission = new AdmissionControl(props, meterRegistry);
+        waiters = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        waiters.shutdownNow();
+    }
+
+    @Test
+    void fullQueue_isRejectedAtOnce_withRetryAfter_whileQueuedRequestsGetTheReleasedPermit() throws Exception {
+
+        // Given: the only permit is held and one request waits for it
+        AdmissionControl.Permit held = admission.enter(AdmissionControl.Resource.CAPTURE);
+        Future<AdmissionControl.Permit> queued = waiters.submit(() -> admission.enter(AdmissionControl.Resource.CAPTURE));
+        while (admission.waiting(AdmissionControl.Resource.CAPTURE) == 0) Thread.onSpinWait();
+
+        // When
+        TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class,
+                () -> admission.enter(AdmissionControl.Resource.CAPTURE));
+        held.close();
+        held.close();
+
+        // Then
+        assertEquals(7, rejected.getRetryAfterSeconds());
+        assertTrue(rejected.getMessage().contains("queue full"));
+        AdmissionControl.Permit handedOver = queued.get(5, TimeUnit.SECONDS);
+        assertEquals(1, admission.active(AdmissionControl.Resource.CAPTURE));
+        handedOver.close();
+        assertEquals(0, admission.active(AdmissionControl.Resource.CAPTURE));
+        assertEquals(0, admission.waiting(AdmissionControl.Resource.CAPTURE));
+        assertEquals(1.0, meterRegistry.get("screenshot.admission.rejected").tag("resource", "capture").counter().count());
+
+    }
+
+    @Test
+    void waitLongerThanAllowed_isRejected_andLeavesTheQueue() {
+
+        // Given
+        AdmissionControl.Permit held = admission.enter(AdmissionControl.Resource.LOGIN);
+
+        // When
+        TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class,
+                () -> admission.enter(AdmissionControl.Resource.LOGIN));
+
+        // Then
+        assertTrue(rejected.getMessage().contains("waited too long"));
+        assertEquals(30, rejected.getRetryAfterSeconds());
+        assertEquals(0, admission.waiting(AdmissionControl.Resource.LOGIN));
+        held.close();
+        assertDoesNotThrow(() -> admission.enter(AdmissionControl.Resource.LOGIN).close());
+
+    }
+
+    @Test
+    void unsetConcurrency_followsTheBrowserPool() {
+
+        // Given
+        GithubAutomationProperties props = new GithubAutomationProperties();
+        props.getPool().setMaxTotal(2);
+        AdmissionControl defaults = new AdmissionControl(props, new SimpleMeterRegistry());
+
+        // When
+        defaults.enter(AdmissionControl.Resource.CAPTURE);
+        defaults.enter(AdmissionControl.Resource.CAPTURE);
+
+        // Then
+        assertEquals(2, defaults.active(AdmissionControl.Resource.CAPTURE));
+
+    }
+
+    @Test
+    void queuedWork_waitsPastTheQueueCapacityAndMaxWait_insteadOfBeingRejected() throws Exception {
+
+        // Given: the login permit is held and its one queue place is taken
+        AdmissionControl.Permit held = admission.enter(AdmissionControl.Resource.LOGIN);
+        Future<AdmissionControl.Permit> queued = waiters.submit(() ->
+                admission.queued(() -> admission.enter(AdmissionControl.Resource.LOGIN)));
+        while (admission.waiting(AdmissionControl.Resource.LOGIN) == 0) Thread.onSpinWait();
+
+        // When
+        Thread.sleep(50);
+        assertFalse(queued.isDone());
+        held.close();
+
+        // Then
+        queued.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, admission.waiting(AdmissionControl.Resource.LOGIN));
+        assertEquals(0.0, meterRegistry.get("screenshot.admission.rejected").tag("resource", "login").counter().count());
+        assertThrows(TooManyRequestsException.class, () -> {
+            try (AdmissionControl.Permit again = admission.enter(AdmissionControl.Resource.LOGIN)) {
+                admission.enter(AdmissionControl.Resource.LOGIN);
+            }
+        });
+
+    }
+
+}
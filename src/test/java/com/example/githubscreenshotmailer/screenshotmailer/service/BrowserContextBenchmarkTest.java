@@ -0,0 +1,110 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares one Chrome process per capture with browser contexts sharing a process: resident memory of all
+ * browsers while {@code concurrency} captures are leased, and captures per second. Needs Chrome installed, so
+ * it only runs on demand:
+ * {@code mvn test -Dtest=BrowserContextBenchmarkTest -Dcapture.benchmark=true}
+ * (optionally {@code -Dcapture.benchmark.concurrency=4 -Dcapture.benchmark.iterations=40}).
+ */
+@EnabledIfSystemProperty(named = "capture.benchmark", matches = "true")
+class BrowserContextBenchmarkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void processPerCapture_vsContextsInOneProcess() throws Exception {
+        int concurrency = Integer.getInteger("capture.benchmark.concurrency", 4);
+        int iterations = Integer.getInteger("capture.benchmark.iterations", 40);
+
+        for (int contextsPerBrowser : new int[] {1, concurrency}) {
+            GithubAutomationProperties props = new GithubAutomationProperties();
+            props.getDriverService().setShared(false);
+            props.getPool().setMinIdle(0);
+            props.getPool().setMaxTotal(concurrency);
+            props.getPool().setContextsPerBrowser(contextsPerBrowser);
+
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            ChromeDriverServiceManager driverService = new ChromeDriverServiceManager(props, registry);
+            driverService.start();
+            ChromeDriverPool pool = new ChromeDriverPool(props, registry, driverService, new BrowserProfiles(props));
+            pool.start();
+            try {
+                // All browsers launched and leased at once is the memory peak of this concurrency
+                List<ChromeDriver> leased = new ArrayList<>();
+                for (int i = 0; i < concurrency; i++) leased.add(pool.borrow());
+                leased.forEach(this::openPage);
+                long rss = browserResidentBytes();
+                leased.forEach(pool::release);
+
+                CaptureEngine engine = new WebDriverCaptureEngine(props);
+                ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+                long start = System.nanoTime();
+                List<Future<Long>> shots = new ArrayList<>();
+                for (int i = 0; i < iterations; i++) {
+                    Path target = tempDir.resolve(contextsPerBrowser + "-" + i + ".png");
+                    shots.add(workers.submit(() -> {
+                        ChromeDriver driver = pool.borrow();
+                        try {
+                            openPage(driver);
+                            return engine.capture(driver, target, CaptureOptions.PNG);
+                        } finally {
+                            pool.release(driver);
+                        }
+                    }));
+                }
+                for (Future<Long> shot : shots) assertTrue(shot.get() > 0);
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                workers.shutdown();
+
+                System.out.printf("contextsPerBrowser %-2d  %d concurrent  rss %6d MB  %6.2f captures/s%n",
+                        contextsPerBrowser, concurrency, rss / (1024 * 1024), iterations / seconds);
+            } finally {
+                pool.shutdown();
+                driverService.shutdown();
+            }
+        }
+    }
+
+    private void openPage(ChromeDriver driver) {
+        String html = "<html><body style='margin:0'>"
+                + "<div style='height:3000px;background:linear-gradient(#fff,#24292f)'>profile</div></body></html>";
+        driver.get("data:text/html;base64," + Base64.getEncoder().encodeToString(html.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** VmRSS of every process below this JVM: chromedriver and all Chrome processes it launched. */
+    private static long browserResidentBytes() {
+        return ProcessHandle.current().descendants().mapToLong(p -> {
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc", Long.toString(p.pid()), "status"))) {
+                    if (line.startsWith("VmRSS:")) return Long.parseLong(line.trim().split("\\s+")[1]) * 1024L;
+                }
+            } catch (Exception ignored) {
+                // Exited while being measured, or not Linux
+            }
+            return 0;
+        }).sum();
+    }
+
+}
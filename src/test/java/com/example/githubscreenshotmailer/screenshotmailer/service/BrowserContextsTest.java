@@ -0,0 +1,245 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.BrowserProcessUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.stubbing.Answer;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BrowserContextsTest extends AbstractBaseServiceTest {
+
+    private GithubAutomationProperties props;
+    private ChromeDriverServiceManager driverService;
+    private BrowserContexts contexts;
+
+    // Browsers launched through the driver service: hosts get no debuggerAddress option, attached sessions do
+    private final List<ChromeDriver> hosts = new ArrayList<>();
+    private final List<ChromeDriver> attached = new ArrayList<>();
+    // Browser-level DevTools commands sent to the hosts, e.g. "Target.createBrowserContext"
+    private final List<String> commands = new ArrayList<>();
+    private final List<String> disposed = new ArrayList<>();
+    private Answer<ChromeDriver> newDriver;
+
+    @BeforeEach
+    void setup() {
+        props = new GithubAutomationProperties();
+        props.getPool().setContextsPerBrowser(2);
+
+        AtomicInteger ids = new AtomicInteger();
+        driverService = mock(ChromeDriverServiceManager.class);
+        newDriver = inv -> {
+            ChromeOptions options = inv.getArgument(0);
+            ChromeDriver driver = mock(ChromeDriver.class);
+            when(driver.switchTo()).thenReturn(mock(WebDriver.TargetLocator.class));
+            when(driver.getWindowHandle()).thenReturn("main");
+            if (options.asMap().toString().contains("debuggerAddress")) {
+                when(driver.maybeGetDevTools()).thenReturn(Optional.empty());
+                attached.add(driver);
+                return driver;
+            }
+            Capabilities caps = mock(Capabilities.class);
+            when(caps.getCapability("goog:chromeOptions")).thenReturn(Map.of("debuggerAddress", "localhost:9222"));
+            when(driver.getCapabilities()).thenReturn(caps);
+            DevTools devTools = mock(DevTools.class);
+            when(devTools.send(any())).thenAnswer(call -> {
+                Command<?> command = call.getArgument(0);
+                commands.add(command.getMethod());
+                int id = ids.incrementAndGet();
+                return switch (command.getMethod()) {
+                    case "Target.createBrowserContext" -> Map.of("browserContextId", "ctx-" + id);
+                    case "Target.createTarget" -> Map.of("targetId", "tab-" + id);
+                    case "Target.disposeBrowserContext" -> {
+                        disposed.add((String) command.getParams().get("browserContextId"));
+                        yield Map.of();
+                    }
+                    default -> Map.of();
+                };
+            });
+            when(driver.maybeGetDevTools()).thenReturn(Optional.of(devTools));
+            hosts.add(driver);
+            return driver;
+        };
+        when(driverService.newDriver(any())).thenAnswer(newDriver);
+
+        contexts = new BrowserContexts(props, driverService);
+    }
+
+    @Test
+    void open_sharesOneProcessUpToTheLimit_thenLaunchesAnother() {
+
+        // When
+        ChromeDriver first = contexts.open();
+        ChromeDriver second = contexts.open();
+        ChromeDriver third = contexts.open();
+
+        // Then
+        assertEquals(2, contexts.hostCount());
+        assertEquals(2, hosts.size());
+        assertEquals(List.of(first, second, third), attached);
+        assertEquals(3, commands.stream().filter("Target.createBrowserContext"::equals).count());
+        verify(first.switchTo()).window(startsWith("tab-"));
+        verify(driverService, times(5)).newDriver(argThat(o ->
+                !o.asMap().toString().contains("debuggerAddress") || o.asMap().toString().contains("localhost:9222")));
+        // Context sessions load pages like the pooled browsers do
+        verify(driverService, times(3)).newDriver(argThat(o -> o.asMap().toString().contains("debuggerAddress")
+                && "eager".equals(String.valueOf(o.getCapability("pageLoadStrategy")))));
+
+    }
+
+    @Test
+    void open_launchesANewHostOutsideTheLock_soOtherCallsAreNotHeldUp() throws Exception {
+
+        // Given: the host browser takes a while to start
+        CountDownLatch launching = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        doAnswer(inv -> {
+            ChromeOptions options = inv.getArgument(0);
+            if (!options.asMap().toString().contains("debuggerAddress")) {
+                launching.countDown();
+                assertTrue(proceed.await(5, TimeUnit.SECONDS));
+            }
+            return newDriver.answer(inv);
+        }).when(driverService).newDriver(any());
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+
+        try {
+            // When
+            Future<ChromeDriver> opened = caller.submit(() -> contexts.open());
+            assertTrue(launching.await(5, TimeUnit.SECONDS));
+
+            // Then: the launching host is counted without waiting for it, and its lease gets it once it is up
+            assertEquals(1, contexts.hostCount());
+            proceed.countDown();
+            ChromeDriver driver = opened.get(5, TimeUnit.SECONDS);
+            assertEquals(List.of(driver), attached);
+            assertEquals(1, hosts.size());
+        } finally {
+            proceed.countDown();
+            caller.shutdownNow();
+        }
+
+    }
+
+    @Test
+    void open_whenAttachingFails_disposesTheContextItCreated() {
+
+        // Given: the host is up, but the session for the context cannot be attached
+        contexts.close(contexts.open());
+        disposed.clear();
+        doAnswer(inv -> {
+            ChromeOptions options = inv.getArgument(0);
+            if (options.asMap().toString().contains("debuggerAddress")) throw new WebDriverException("attach failed");
+            return newDriver.answer(inv);
+        }).when(driverService).newDriver(any());
+
+        // When
+        assertThrows(WebDriverException.class, () -> contexts.open());
+
+        // Then
+        assertEquals(1, disposed.size());
+        assertEquals(1, contexts.hostCount());
+
+    }
+
+    @Test
+    void open_checksWhetherAHostIsAliveOutsideTheLock_andReplacesADeadOne() throws Exception {
+
+        // Given: the running host hangs when asked whether it is alive, then turns out dead
+        contexts.close(contexts.open());
+        CountDownLatch asked = new CountDownLatch(1);
+        CountDownLatch answer = new CountDownLatch(1);
+        when(hosts.getFirst().getWindowHandle()).thenAnswer(inv -> {
+            asked.countDown();
+            assertTrue(answer.await(5, TimeUnit.SECONDS));
+            throw new WebDriverException("browser gone");
+        });
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+
+        try {
+            // When
+            Future<ChromeDriver> opened = caller.submit(() -> contexts.open());
+            assertTrue(asked.await(5, TimeUnit.SECONDS));
+
+            // Then: other calls are not held up by the hung browser
+            assertEquals(1, contexts.hostCount());
+            answer.countDown();
+            assertNotNull(opened.get(5, TimeUnit.SECONDS));
+            assertEquals(2, hosts.size());
+            assertEquals(1, contexts.hostCount());
+            verify(driverService).quit(hosts.getFirst());
+        } finally {
+            answer.countDown();
+            caller.shutdownNow();
+        }
+
+    }
+
+    @Test
+    void renew_disposesTheContext_andMovesTheSessionToAFreshTab() {
+
+        // Given
+        ChromeDriver driver = contexts.open();
+
+        // When
+        boolean renewed = contexts.renew(driver);
+
+        // Then
+        assertTrue(renewed);
+        assertEquals(List.of("ctx-1"), disposed);
+        verify(driver.switchTo(), times(2)).window(startsWith("tab-"));
+        verify(driverService, never()).quit(any());
+
+    }
+
+    @Test
+    void close_endsTheSession_andQuitsADrainingHostOnceItIsEmpty() {
+
+        // Given
+        ChromeDriver first = contexts.open();
+        ChromeDriver second = contexts.open();
+
+        try (MockedStatic<BrowserProcessUtil> processes = mockStatic(BrowserProcessUtil.class)) {
+            processes.when(() -> BrowserProcessUtil.residentBytes(any(ChromeDriver.class)))
+                    .thenReturn(OptionalLong.of(2048L * 1024 * 1024));
+
+            // When
+            assertTrue(contexts.overMemoryLimit(first, 1024L * 1024 * 1024));
+            contexts.close(first);
+
+            // Then
+            verify(driverService).quit(first);
+            verify(driverService, never()).quit(hosts.getFirst());
+
+            contexts.close(second);
+            verify(driverService).quit(hosts.getFirst());
+            assertEquals(0, contexts.hostCount());
+        }
+
+    }
+
+}
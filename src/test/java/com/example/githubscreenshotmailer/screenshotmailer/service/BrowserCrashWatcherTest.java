@@ -0,0 +1,106 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.BrowserCrashedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BrowserCrashWatcherTest extends AbstractBaseServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BrowserCrashWatcher watcher;
+
+    private ChromeDriver driver;
+    private final Map<String, Consumer<Map<String, Object>>> handlers = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        watcher = new BrowserCrashWatcher(meterRegistry);
+
+        driver = mock(ChromeDriver.class);
+        DevTools devTools = mock(DevTools.class);
+        when(driver.maybeGetDevTools()).thenReturn(Optional.of(devTools));
+        doAnswer(inv -> {
+            handlers.put(((Event<?>) inv.getArgument(0)).getMethod(), inv.getArgument(1));
+            return null;
+        }).when(devTools).addListener(any(Event.class), any(Consumer.class));
+    }
+
+    @AfterEach
+    void clearInterrupt() {
+        Thread.interrupted();
+    }
+
+    @Test
+    void watch_withoutDevTools_neverReportsACrash() {
+
+        // When
+        BrowserCrashWatcher.Watch watch = watcher.watch(mock(WebDriver.class));
+        watch.close();
+
+        // Then
+        assertFalse(watch.crashed());
+
+    }
+
+    @Test
+    void targetCrashed_interruptsCapturingThread_andCloseClearsTheInterrupt() {
+
+        // Given
+        BrowserCrashWatcher.Watch watch = watcher.watch(driver);
+
+        // When
+        handlers.get("Inspector.targetCrashed").accept(Map.of());
+
+        // Then
+        assertTrue(watch.crashed());
+        assertTrue(Thread.currentThread().isInterrupted());
+        BrowserCrashedException failure = watch.failure(new WebDriverException("interrupted"));
+        assertTrue(failure.getMessage().contains("targetCrashed"));
+        assertInstanceOf(WebDriverException.class, failure.getCause());
+        assertEquals(1.0, meterRegistry.get("screenshot.browser.crashes").tag("event", "targetCrashed").counter().count());
+
+        watch.close();
+        assertFalse(Thread.currentThread().isInterrupted());
+
+    }
+
+    @Test
+    void detached_afterClose_isIgnored() {
+
+        // Given
+        BrowserCrashWatcher.Watch first = watcher.watch(driver);
+        first.close();
+        BrowserCrashWatcher.Watch second = watcher.watch(driver);
+
+        // When
+        handlers.get("Inspector.detached").accept(Map.of("reason", "Render process gone."));
+
+        // Then
+        assertFalse(first.crashed());
+        assertTrue(second.crashed());
+        assertTrue(second.failure(null).getMessage().contains("Render process gone."));
+        assertEquals(1.0, meterRegistry.get("screenshot.browser.crashes").tag("event", "detached").counter().count());
+        second.close();
+
+    }
+
+}
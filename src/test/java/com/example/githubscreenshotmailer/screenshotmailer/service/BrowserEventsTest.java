@@ -0,0 +1,168 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BrowserEventsTest extends AbstractBaseServiceTest {
+
+    private ChromeDriver driver;
+    private DevTools devTools;
+    private final Map<String, Consumer<Map<String, Object>>> listeners = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        driver = mock(ChromeDriver.class);
+        devTools = mock(DevTools.class);
+        when(driver.maybeGetDevTools()).thenReturn(Optional.of(devTools));
+        doAnswer(inv -> {
+            listeners.put(((Event<?>) inv.getArgument(0)).getMethod(), inv.getArgument(1));
+            return null;
+        }).when(devTools).addListener(any(Event.class), any(Consumer.class));
+    }
+
+    @Test
+    void of_connectsOncePerBrowser_andEnablesPageAndNetwork() {
+
+        // When
+        BrowserEvents first = BrowserEvents.of(driver);
+        BrowserEvents second = BrowserEvents.of(driver);
+
+        // Then
+        assertSame(first, second);
+        assertTrue(first.isAvailable());
+        verify(devTools, times(1)).createSessionIfThereIsNotOne(any());
+        verify(devTools).send(argThat((Command<?> c) -> "Page.enable".equals(c.getMethod())));
+        verify(devTools).send(argThat((Command<?> c) -> "Network.enable".equals(c.getMethod())));
+        verify(devTools).send(argThat((Command<?> c) -> "Inspector.enable".equals(c.getMethod())));
+
+    }
+
+    @Test
+    void of_connectingOneBrowser_doesNotHoldUpAnother() throws Exception {
+
+        // Given: the first browser's DevTools handshake hangs
+        CountDownLatch connecting = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        doAnswer(inv -> {
+            connecting.countDown();
+            assertTrue(proceed.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(devTools).createSessionIfThereIsNotOne(any());
+        ChromeDriver other = mock(ChromeDriver.class);
+        when(other.maybeGetDevTools()).thenReturn(Optional.empty());
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+
+        try {
+            // When
+            Future<BrowserEvents> slow = caller.submit(() -> BrowserEvents.of(driver));
+            assertTrue(connecting.await(5, TimeUnit.SECONDS));
+            BrowserEvents fast = BrowserEvents.of(other);
+
+            // Then
+            assertFalse(fast.isAvailable());
+            assertFalse(slow.isDone());
+            proceed.countDown();
+            assertTrue(slow.get(5, TimeUnit.SECONDS).isAvailable());
+        } finally {
+            proceed.countDown();
+            caller.shutdownNow();
+            BrowserEvents.forget(driver);
+            BrowserEvents.forget(other);
+        }
+
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void subscribe_registersOneListenerPerMethod_andFansOutToSubscribers() {
+
+        // Given
+        BrowserEvents events = BrowserEvents.of(driver);
+        List<String> received = new ArrayList<>();
+
+        // When
+        Runnable unsubscribeA = events.subscribe("Network.loadingFinished", p -> received.add("a"));
+        events.subscribe("Network.loadingFinished", p -> received.add("b"));
+        listeners.get("Network.loadingFinished").accept(Map.of());
+
+        // Then
+        verify(devTools, times(1)).addListener(any(Event.class), any(Consumer.class));
+        assertEquals(List.of("a", "b"), received);
+
+        // When
+        unsubscribeA.run();
+        listeners.get("Network.loadingFinished").accept(Map.of());
+
+        // Then
+        assertEquals(List.of("a", "b", "b"), received);
+
+    }
+
+    @Test
+    void failingSubscriber_doesNotStarveTheOthers() {
+
+        // Given
+        BrowserEvents events = BrowserEvents.of(driver);
+        List<String> received = new ArrayList<>();
+        events.subscribe("Page.frameNavigated", p -> { throw new IllegalStateException("boom"); });
+        events.subscribe("Page.frameNavigated", p -> received.add("ok"));
+
+        // When
+        listeners.get("Page.frameNavigated").accept(Map.of());
+
+        // Then
+        assertEquals(List.of("ok"), received);
+
+    }
+
+    @Test
+    void forget_reconnectsOnNextUse() {
+
+        // Given
+        BrowserEvents first = BrowserEvents.of(driver);
+
+        // When
+        BrowserEvents.forget(driver);
+
+        // Then
+        assertNotSame(first, BrowserEvents.of(driver));
+
+    }
+
+    @Test
+    void browserWithoutDevTools_isUnavailable_andIgnoresSubscriptionsAndCommands() {
+
+        // Given
+        BrowserEvents events = BrowserEvents.of(mock(WebDriver.class));
+
+        // When & Then
+        assertFalse(events.isAvailable());
+        assertDoesNotThrow(() -> events.subscribe("Page.frameNavigated", p -> {}).run());
+        assertDoesNotThrow(() -> events.send("Network.setBlockedURLs", Map.of("urls", List.of())));
+
+    }
+
+}
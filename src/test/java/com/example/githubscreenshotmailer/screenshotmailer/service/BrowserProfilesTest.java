@@ -0,0 +1,86 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BrowserProfilesTest extends AbstractBaseServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private GithubAutomationProperties props;
+    private BrowserProfiles profiles;
+
+    @BeforeEach
+    void setup() {
+        props = new GithubAutomationProperties();
+        props.getBrowserProfile().setWorkDir(tempDir.resolve("work").toString());
+        profiles = new BrowserProfiles(props);
+    }
+
+    @Test
+    void acquire_copiesTemplate_withoutLocksOrCaches() throws Exception {
+
+        // Given
+        Path template = Files.createDirectories(tempDir.resolve("template"));
+        Files.createDirectories(template.resolve("Default/Cache"));
+        Files.writeString(template.resolve("Local State"), "{}");
+        Files.writeString(template.resolve("Default/Preferences"), "{\"intl\":{}}");
+        Files.writeString(template.resolve("Default/Cache/data_0"), "stale");
+        Files.writeString(template.resolve("SingletonLock"), "host-1");
+        props.getBrowserProfile().setTemplateDir(template.toString());
+
+        // When
+        BrowserProfiles.Profile profile = profiles.acquire();
+
+        // Then
+        assertEquals("{\"intl\":{}}", Files.readString(profile.userDataDir().resolve("Default/Preferences")));
+        assertTrue(Files.exists(profile.userDataDir().resolve("Local State")));
+        assertFalse(Files.exists(profile.userDataDir().resolve("Default/Cache")));
+        assertFalse(Files.exists(profile.userDataDir().resolve("SingletonLock")));
+        assertTrue(Files.isDirectory(profile.diskCacheDir()));
+
+    }
+
+    @Test
+    void release_deletesProfile_butKeepsCacheForTheNextBrowser() throws Exception {
+
+        // Given
+        BrowserProfiles.Profile first = profiles.acquire();
+        BrowserProfiles.Profile concurrent = profiles.acquire();
+        Files.writeString(first.diskCacheDir().resolve("index"), "cached");
+
+        // When
+        profiles.release(first);
+        BrowserProfiles.Profile next = profiles.acquire();
+
+        // Then
+        assertNotEquals(first.diskCacheDir(), concurrent.diskCacheDir());
+        assertFalse(Files.exists(first.userDataDir()));
+        assertNotEquals(first.userDataDir(), next.userDataDir());
+        assertEquals(first.diskCacheDir(), next.diskCacheDir());
+        assertEquals("cached", Files.readString(next.diskCacheDir().resolve("index")));
+
+    }
+
+    @Test
+    void acquire_returnsNull_whenDisabled_soChromeKeepsItsTemporaryProfile() {
+
+        // Given
+        props.getBrowserProfile().setEnabled(false);
+
+        // When & Then
+        assertNull(profiles.acquire());
+        assertFalse(profiles.options(null).asMap().toString().contains("--user-data-dir"));
+
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.model.entity.ScreenshotRecordEntity;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ScreenshotStatus;
+import com.example.githubscreenshotmailer.screenshotmailer.repository.ScreenshotRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CaptureCacheTest extends AbstractBaseServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private GithubAutomationProperties props;
+    private ScreenshotRecordRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private CaptureCache cache;
+
+    @BeforeEach
+    void setup() {
+        props = new GithubAutomationProperties();
+        repository = mock(ScreenshotRecordRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CaptureCache(props, repository, meterRegistry);
+    }
+
+    @Test
+    void lookup_hitsWithinTheTtl_andMissesWhenStaleOrTheFileIsGone() throws Exception {
+
+        // Given
+        Path fresh = file("fresh.png", 10);
+        Path stale = file("stale.png", 10);
+        Path deleted = file("deleted.png", 10);
+        cache.put("fresh", new CaptureCache.Entry(fresh, 10, LocalDateTime.now().minusMinutes(9)));
+        cache.put("stale", new CaptureCache.Entry(stale, 10, LocalDateTime.now().minusMinutes(11)));
+        cache.put("deleted", new CaptureCache.Entry(deleted, 10, LocalDateTime.now()));
+        Files.delete(deleted);
+
+        // When / Then
+        assertEquals(fresh, cache.lookup("fresh").orElseThrow().file());
+        assertTrue(cache.lookup("stale").isEmpty());
+        assertTrue(cache.lookup("deleted").isEmpty());
+        assertTrue(cache.lookup("unknown").isEmpty());
+        assertEquals(1, cache.size());
+        assertEquals(1.0, meterRegistry.get("screenshot.capture.cache").tag("result", "hit").counter().count());
+        assertEquals(3.0, meterRegistry.get("screenshot.capture.cache").tag("result", "miss").counter().count());
+
+    }
+
+    @Test
+    void put_evictsTheLeastRecentlyUsed_beyondEntryCountAndTotalSize() throws Exception {
+
+        // Given
+        props.getCaptureCache().setMaxEntries(2);
+        props.getCaptureCache().setMaxSizeMb(1);
+        long halfMb = 512 * 1024;
+        LocalDateTime now = LocalDateTime.now();
+        cache.put("a", new CaptureCache.Entry(file("a.png", 1), halfMb, now));
+        cache.put("b", new CaptureCache.Entry(file("b.png", 1), halfMb, now));
+        cache.lookup("a");
+
+        // When: a third entry exceeds the entry count, b is the least recently used
+        cache.put("c", new CaptureCache.Entry(file("c.png", 1), 1, now));
+
+        // Then
+        assertTrue(cache.lookup("b").isEmpty());
+        assertTrue(cache.lookup("a").isPresent());
+        assertTrue(cache.lookup("c").isPresent());
+
+        // When: a large entry exceeds the total size, both older ones go
+        cache.put("d", new CaptureCache.Entry(file("d.png", 1), 1024 * 1024, now));
+
+        // Then
+        assertEquals(1, cache.size());
+        assertEquals(1024 * 1024, cache.bytes());
+        assertTrue(Files.exists(tempDir.resolve("a.png")), "evicting an entry must not delete its file");
+
+    }
+
+    @Test
+    void rebuild_indexesRecentSuccessfulRecordsWhoseFilesExist_newestPerKeyWins() throws Exception {
+
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        Path older = file("older.png", 3);
+        Path newer = file("newer.png", 4);
+        when(repository.findByStatusAndCaptureKeyIsNotNullAndCapturedAtAfterOrderByCapturedAtAsc(
+                eq(ScreenshotStatus.SUCCESS), any())).thenReturn(List.of(
+                record("k1", older, now.minusMinutes(5)),
+                record("k1", newer, now.minusMinutes(1)),
+                record("k2", tempDir.resolve("missing.png"), now.minusMinutes(1))));
+
+        // When
+        cache.rebuild();
+
+        // Then
+        assertEquals(newer, cache.lookup("k1").orElseThrow().file());
+        assertTrue(cache.lookup("k2").isEmpty());
+        verify(repository).findByStatusAndCaptureKeyIsNotNullAndCapturedAtAfterOrderByCapturedAtAsc(
+                eq(ScreenshotStatus.SUCCESS), argThat(cutoff -> cutoff.isAfter(now.minusMinutes(11))
+                        && cutoff.isBefore(now.minusMinutes(9))));
+
+    }
+
+    @Test
+    void disabled_neverRemembersOrQueries() throws Exception {
+
+        // Given
+        props.getCaptureCache().setEnabled(false);
+
+        // When
+        cache.rebuild();
+        cache.put("a", new CaptureCache.Entry(file("a.png", 1), 1, LocalDateTime.now()));
+
+        // Then
+        assertTrue(cache.lookup("a").isEmpty());
+        verifyNoInteractions(repository);
+
+    }
+
+    private Path file(String name, int bytes) throws Exception {
+        return Files.write(tempDir.resolve(name), new byte[bytes]);
+    }
+
+    private static ScreenshotRecordEntity record(String key, Path file, LocalDateTime capturedAt) {
+        return ScreenshotRecordEntity.builder()
+                .githubUsername("octocat")
+                .recipientEmail("to@example.com")
+                .fileName(file.getFileName().toString())
+                .filePath(file.toString())
+                .fileSizeBytes(3)
+                .sentAt(capturedAt)
+                .status(ScreenshotStatus.SUCCESS)
+                .captureKey(key)
+                .capturedAt(capturedAt)
+                .build();
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptureCoalescerTest extends AbstractBaseServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CaptureCoalescer coalescer;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new CaptureCoalescer(meterRegistry);
+    }
+
+    @Test
+    void sameKeyWhileRunning_joinsTheRunningCapture_otherKeysAndLaterRequestsStartTheirOwn() {
+
+        // Given
+        AtomicInteger starts = new AtomicInteger();
+        CompletableFuture<String> running = new CompletableFuture<>();
+
+        // When
+        CompletableFuture<String> first = coalescer.capture("octocat", () -> { starts.incrementAndGet(); return running; });
+        CompletableFuture<String> joined = coalescer.capture("octocat", () -> { starts.incrementAndGet(); return running; });
+        CompletableFuture<String> other = coalescer.capture("torvalds",
+                () -> { starts.incrementAndGet(); return CompletableFuture.completedFuture("other.png"); });
+        running.complete("octocat.png");
+        CompletableFuture<String> later = coalescer.capture("octocat",
+                () -> { starts.incrementAndGet(); return CompletableFuture.completedFuture("fresh.png"); });
+
+        // Then
+        assertEquals("octocat.png", first.join());
+        assertSame(first, joined);
+        assertEquals("other.png", other.join());
+        assertEquals("fresh.png", later.join());
+        assertEquals(3, starts.get());
+        assertEquals(0, coalescer.inFlight());
+        assertEquals(3.0, meterRegistry.get("screenshot.capture.coalesce").tag("result", "started").counter().count());
+        assertEquals(1.0, meterRegistry.get("screenshot.capture.coalesce").tag("result", "joined").counter().count());
+
+    }
+
+    @Test
+    void failedCapture_failsEveryJoinedRequest_andIsNotRemembered() {
+
+        // Given
+        CompletableFuture<String> running = new CompletableFuture<>();
+        CompletableFuture<String> first = coalescer.capture("octocat", () -> running);
+        CompletableFuture<String> joined = coalescer.capture("octocat", () -> running);
+
+        // When
+        running.completeExceptionally(new IllegalStateException("browser crashed"));
+
+        // Then
+        assertThrows(CompletionException.class, first::join);
+        CompletionException ex = assertThrows(CompletionException.class, joined::join);
+        assertEquals("browser crashed", ex.getCause().getMessage());
+        assertEquals(0, coalescer.inFlight());
+
+    }
+
+}
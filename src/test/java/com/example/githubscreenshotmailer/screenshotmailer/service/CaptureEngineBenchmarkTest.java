@@ -0,0 +1,103 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import com.example.githubscreenshotmailer.screenshotmailer.utils.ChromeOptionsUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the capture engines, and the output formats, on a real headless Chrome. Needs Chrome installed, so it only runs on demand:
+ * {@code mvn test -Dtest=CaptureEngineBenchmarkTest -Dcapture.benchmark=true}
+ * (optionally {@code -Dcapture.benchmark.iterations=50}).
+ */
+@EnabledIfSystemProperty(named = "capture.benchmark", matches = "true")
+class CaptureEngineBenchmarkTest {
+
+    private static final int WARMUP = 3;
+
+    private static ChromeDriver driver;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void launch() {
+        driver = new ChromeDriver(ChromeOptionsUtil.headless(true));
+        // A long page, so sizing and the size of the transferred image both matter
+        String html = "<html><body style='margin:0'>"
+                + "<div style='height:6000px;background:linear-gradient(#fff,#24292f)'>profile</div></body></html>";
+        driver.get("data:text/html;base64," + Base64.getEncoder().encodeToString(html.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @AfterAll
+    static void quit() {
+        if (driver != null) driver.quit();
+    }
+
+    @Test
+    void devToolsEngine_vsWebDriverEngine() throws Exception {
+        int iterations = Integer.getInteger("capture.benchmark.iterations", 20);
+        GithubAutomationProperties props = new GithubAutomationProperties();
+        WebDriverCaptureEngine webDriver = new WebDriverCaptureEngine(props);
+        List<CaptureEngine> engines = List.of(webDriver, new DevToolsCaptureEngine(props, webDriver));
+
+        long[] pixels = new long[engines.size()];
+        for (int e = 0; e < engines.size(); e++) {
+            CaptureEngine engine = engines.get(e);
+            Path target = tempDir.resolve(engine.name() + ".png");
+            for (int i = 0; i < WARMUP; i++) engine.capture(driver, target, CaptureOptions.PNG);
+
+            long start = System.nanoTime();
+            long size = 0;
+            for (int i = 0; i < iterations; i++) size = engine.capture(driver, target, CaptureOptions.PNG);
+            double avgMs = (System.nanoTime() - start) / 1_000_000.0 / iterations;
+
+            ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(target), 16, 8);
+            int width = header.getInt();
+            int height = header.getInt();
+            pixels[e] = (long) width * height;
+            System.out.printf("capture engine %-9s avg %8.1f ms  %dx%d  %d bytes%n",
+                    engine.name(), avgMs, width, height, size);
+        }
+
+        assertEquals(pixels[0], pixels[1], "Both engines must capture the same area");
+    }
+
+    @Test
+    void outputFormats_sizeAndLatency() throws Exception {
+        int iterations = Integer.getInteger("capture.benchmark.iterations", 20);
+        GithubAutomationProperties props = new GithubAutomationProperties();
+        CaptureEngine engine = new DevToolsCaptureEngine(props, new WebDriverCaptureEngine(props));
+
+        for (ImageFormat format : ImageFormat.values()) {
+            CaptureOptions options = new CaptureOptions(format, props.getCapture().getQuality(), false);
+            Path target = tempDir.resolve("shot." + format.getExtension());
+            for (int i = 0; i < WARMUP; i++) engine.capture(driver, target, options);
+
+            long start = System.nanoTime();
+            long size = 0;
+            for (int i = 0; i < iterations; i++) size = engine.capture(driver, target, options);
+            double avgMs = (System.nanoTime() - start) / 1_000_000.0 / iterations;
+
+            System.out.printf("format %-4s q%-3d avg %8.1f ms  %d bytes%n",
+                    format, options.quality(), avgMs, size);
+            assertTrue(size > 0);
+        }
+    }
+
+}
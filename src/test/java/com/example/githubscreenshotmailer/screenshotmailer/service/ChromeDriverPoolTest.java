@@ -0,0 +1,267 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedConstruction;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChromeDriverPoolTest extends AbstractBaseServiceTest {
+
+    private GithubAutomationProperties props;
+    private SimpleMeterRegistry meterRegistry;
+    private ChromeDriverPool pool;
+
+    private MockedConstruction<ChromeDriver> chromeConstr;
+    private ChromeDriverServiceManager driverService;
+
+    @BeforeEach
+    void setup() {
+        props = new GithubAutomationProperties();
+        props.setHeadless(true);
+        props.getPool().setMinIdle(0);
+        props.getPool().setMaxTotal(2);
+        props.getPool().setBorrowTimeoutSeconds(1);
+        props.getPool().setIdleTimeoutSeconds(1);
+
+        meterRegistry = new SimpleMeterRegistry();
+
+        chromeConstr = mockConstruction(ChromeDriver.class, (mock, ctx) -> {
+            when(mock.getWindowHandle()).thenReturn("main");
+            when(mock.getWindowHandles()).thenReturn(new LinkedHashSet<>(List.of("main")));
+            when(mock.switchTo()).thenReturn(mock(WebDriver.TargetLocator.class));
+        });
+
+        // Browsers come from the driver service; quitting one goes back through it
+        driverService = mock(ChromeDriverServiceManager.class);
+        when(driverService.newDriver(any())).thenAnswer(inv -> new ChromeDriver(inv.<ChromeOptions>getArgument(0)));
+        doAnswer(inv -> {
+            inv.<ChromeDriver>getArgument(0).quit();
+            return null;
+        }).when(driverService).quit(any());
+
+        pool = new ChromeDriverPool(props, meterRegistry, driverService, new BrowserProfiles(props));
+        pool.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+        chromeConstr.close();
+    }
+
+    @Test
+    void borrow_launchesNewBrowser_thenReusesReleasedOne() {
+
+        // When
+        ChromeDriver first = pool.borrow();
+        pool.release(first);
+        ChromeDriver second = pool.borrow();
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, chromeConstr.constructed().size());
+        assertEquals(1.0, meterRegistry.get("screenshot.browser.pool.borrow").tag("outcome", "miss").counter().count());
+        assertEquals(1.0, meterRegistry.get("screenshot.browser.pool.borrow").tag("outcome", "hit").counter().count());
+        assertEquals(2L, meterRegistry.get("screenshot.browser.pool.wait").timer().count());
+
+        // Verify the browser was wiped before being handed out again
+        verify(first).executeCdpCommand(eq("Network.clearBrowserCookies"), anyMap());
+        verify(first).executeCdpCommand(eq("Storage.clearDataForOrigin"),
+                argThat(m -> "https://github.com".equals(m.get("origin"))));
+        verify(first).get("about:blank");
+        verify(first, never()).quit();
+
+    }
+
+    @Test
+    void release_closesExtraTabs_beforeReturningToPool() {
+
+        // Given
+        ChromeDriver driver = pool.borrow();
+        WebDriver.TargetLocator locator = mock(WebDriver.TargetLocator.class);
+        when(driver.getWindowHandles()).thenReturn(new LinkedHashSet<>(List.of("main", "popup")));
+        when(driver.switchTo()).thenReturn(locator);
+
+        // When
+        pool.release(driver);
+
+        // Then
+        verify(locator).window("popup");
+        verify(driver).close();
+        verify(locator).window("main");
+        assertEquals(1, pool.idleCount());
+
+    }
+
+    @Test
+    void release_quitsBrowser_whenResetFails() {
+
+        // Given
+        ChromeDriver driver = pool.borrow();
+        when(driver.executeCdpCommand(eq("Network.clearBrowserCookies"), anyMap()))
+                .thenThrow(new WebDriverException("gone"));
+
+        // When
+        pool.release(driver);
+
+        // Then
+        verify(driver).quit();
+        assertEquals(0, pool.idleCount());
+        assertEquals(0, pool.liveCount());
+
+    }
+
+    @Test
+    void invalidate_quitsBrowser_andFreesItsSlot() {
+
+        // Given
+        ChromeDriver a = pool.borrow();
+        ChromeDriver b = pool.borrow();
+
+        // When
+        pool.invalidate(a);
+        ChromeDriver c = pool.borrow();
+
+        // Then
+        verify(a).quit();
+        assertNotSame(a, c);
+        assertEquals(2, pool.liveCount());
+
+        pool.release(b);
+        pool.release(c);
+
+    }
+
+    @Test
+    void borrow_timesOut_whenPoolIsExhausted() {
+
+        // Given
+        pool.borrow();
+        pool.borrow();
+
+        // When & Then
+        ScreenshotCaptureException ex = assertThrows(ScreenshotCaptureException.class, () -> pool.borrow());
+        assertTrue(ex.getMessage().contains("no browser available"));
+
+    }
+
+    @Test
+    void borrow_discardsUnhealthyIdleBrowser_andLaunchesFreshOne() {
+
+        // Given
+        ChromeDriver stale = pool.borrow();
+        pool.release(stale);
+        when(stale.getWindowHandle()).thenThrow(new WebDriverException("session deleted"));
+
+        // When
+        ChromeDriver fresh = pool.borrow();
+
+        // Then
+        assertNotSame(stale, fresh);
+        verify(stale).quit();
+
+    }
+
+    @Test
+    void maintain_warmsUpToMinIdle_andEvictsExpiredIdleBrowsers() throws Exception {
+
+        // Given
+        props.getPool().setMinIdle(1);
+
+        // When
+        pool.maintain();
+
+        // Then
+        assertEquals(1, pool.idleCount());
+
+        // Given: a second idle browser above minIdle which then expires
+        ChromeDriver a = pool.borrow();
+        ChromeDriver b = pool.borrow();
+        pool.release(a);
+        pool.release(b);
+        assertEquals(2, pool.idleCount());
+        Thread.sleep(1100);
+
+        // When
+        pool.maintain();
+
+        // Then
+        assertEquals(1, pool.idleCount());
+        assertEquals(1, pool.liveCount());
+
+    }
+
+    @Test
+    void release_recyclesBrowser_onceItReachesMaxUses() {
+
+        // Given
+        props.getPool().setMaxUsesPerBrowser(2);
+        ChromeDriver driver = pool.borrow();
+        pool.release(driver);
+        assertSame(driver, pool.borrow());
+
+        // When
+        pool.release(driver);
+
+        // Then
+        verify(driver).quit();
+        assertEquals(0, pool.idleCount());
+        assertEquals(1.0, meterRegistry.get("screenshot.browser.recycled").tag("reason", "uses").counter().count());
+        assertNotSame(driver, pool.borrow());
+
+    }
+
+    @Test
+    void invalidate_countsRecycleReason_andFreesSlot() {
+
+        // Given
+        ChromeDriver crashed = pool.borrow();
+        ChromeDriver broken = pool.borrow();
+
+        // When
+        pool.invalidate(crashed, "crash");
+        pool.invalidate(broken);
+
+        // Then
+        verify(crashed).quit();
+        verify(broken).quit();
+        assertEquals(1.0, meterRegistry.get("screenshot.browser.recycled").tag("reason", "crash").counter().count());
+        assertEquals(1.0, meterRegistry.get("screenshot.browser.recycled").tag("reason", "error").counter().count());
+        assertEquals(0, pool.liveCount());
+
+    }
+
+    @Test
+    void shutdown_quitsIdleAndLeasedBrowsers() {
+
+        // Given
+        ChromeDriver idle = pool.borrow();
+        ChromeDriver leased = pool.borrow();
+        pool.release(idle);
+
+        // When
+        pool.shutdown();
+
+        // Then
+        verify(idle).quit();
+        verify(leased).quit();
+        assertEquals(0, pool.liveCount());
+
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedConstruction;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ChromeDriverServiceManagerTest extends AbstractBaseServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private GithubAutomationProperties props;
+    private SimpleMeterRegistry meterRegistry;
+    private ChromeDriverServiceManager manager;
+
+    @BeforeEach
+    void setup() {
+        props = new GithubAutomationProperties();
+        props.getDriverService().setStartTimeoutSeconds(1);
+        meterRegistry = new SimpleMeterRegistry();
+        manager = new ChromeDriverServiceManager(props, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void perBrowserMode_launchesAndQuitsDriversTheDefaultWay() {
+
+        // Given
+        props.getDriverService().setShared(false);
+        manager.start();
+
+        try (MockedConstruction<ChromeDriver> chromeConstr = mockConstruction(ChromeDriver.class)) {
+
+            // When
+            ChromeDriver driver = manager.newDriver(new ChromeOptions());
+            manager.quit(driver);
+
+            // Then
+            assertEquals(1, chromeConstr.constructed().size());
+            verify(driver).quit();
+        }
+
+        Health health = manager.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals("per-browser", health.getDetails().get("mode"));
+
+    }
+
+    @Test
+    void sharedMode_startFailureDoesNotBlockBoot_butReportsDownAndFailsCaptures() {
+
+        // Given
+        props.getDriverService().setExecutable(tempDir.resolve("missing-chromedriver").toString());
+
+        // When
+        assertDoesNotThrow(() -> manager.start());
+
+        // Then
+        Health health = manager.health();
+        assertEquals(Status.DOWN, health.getStatus());
+        assertNotNull(health.getDetails().get("lastFailure"));
+        assertEquals(0.0, meterRegistry.get("screenshot.browser.driver.up").gauge().value());
+        assertEquals(1L, meterRegistry.get("screenshot.browser.driver.start").timer().count());
+
+        assertThrows(ScreenshotCaptureException.class, () -> manager.newDriver(new ChromeOptions()));
+
+    }
+
+    @Test
+    void watchdog_retriesStartingADriverThatNeverCameUp_withoutCountingARestart() {
+
+        // Given
+        props.getDriverService().setExecutable(tempDir.resolve("missing-chromedriver").toString());
+        manager.start();
+
+        // When
+        manager.checkAndRestart();
+
+        // Then
+        assertEquals(2L, meterRegistry.get("screenshot.browser.driver.start").timer().count());
+        assertEquals(0.0, meterRegistry.get("screenshot.browser.driver.restarts").counter().count());
+        assertFalse(manager.isRunning());
+
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureRegion;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DevToolsCaptureEngineTest extends AbstractBaseServiceTest {
+
+    private final WebDriverCaptureEngine fallback = mock(WebDriverCaptureEngine.class);
+    private final DevToolsCaptureEngine engine = new DevToolsCaptureEngine(new GithubAutomationProperties(), fallback);
+
+    @TempDir
+    Path tempDir;
+
+    private ChromeDriver driver;
+    private DevTools devTools;
+    private final List<Command<?>> sent = new ArrayList<>();
+    private Map<String, Object> evaluated = Map.of("result", Map.of("type", "object"));
+
+    @BeforeEach
+    void setup() {
+        driver = mock(ChromeDriver.class);
+        devTools = mock(DevTools.class);
+        when(driver.maybeGetDevTools()).thenReturn(Optional.of(devTools));
+    }
+
+    private void respond(Map<String, Object> layout, Map<String, Object> screenshot) {
+        when(devTools.send(any())).thenAnswer(inv -> {
+            Command<?> command = inv.getArgument(0);
+            sent.add(command);
+            return switch (command.getMethod()) {
+                case "Page.getLayoutMetrics" -> layout;
+                case "Page.captureScreenshot" -> screenshot;
+                case "Runtime.evaluate" -> evaluated;
+                default -> null;
+            };
+        });
+    }
+
+    @Test
+    void capture_sizesWithLayoutMetrics_andClipsTheWholeContent_inTwoRoundTrips() throws Exception {
+
+        // Given
+        byte[] png = "png-bytes".getBytes();
+        respond(Map.of("cssContentSize", Map.of("x", 0, "y", 0, "width", 1280.4, "height", 5400)),
+                Map.of("data", Base64.getEncoder().encodeToString(png)));
+
+        Path target = tempDir.resolve("shot.png");
+
+        // When
+        long written = engine.capture(driver, target, CaptureOptions.PNG);
+
+        // Then
+        assertEquals(png.length, written);
+        assertArrayEquals(png, Files.readAllBytes(target));
+        List<String> capture = sent.stream().map(Command::getMethod)
+                .filter(m -> m.startsWith("Page.get") || m.equals("Page.captureScreenshot")).toList();
+        assertEquals(List.of("Page.getLayoutMetrics", "Page.captureScreenshot"), capture);
+
+        Command<?> shot = sent.stream().filter(c -> c.getMethod().equals("Page.captureScreenshot")).findFirst().orElseThrow();
+        Map<?, ?> clip = (Map<?, ?>) shot.getParams().get("clip");
+        assertEquals(1281.0, clip.get("width"));
+        assertEquals(5400.0, clip.get("height"));
+        assertEquals(Boolean.TRUE, shot.getParams().get("captureBeyondViewport"));
+        verify(driver, never()).executeCdpCommand(any(), any());
+
+    }
+
+    @Test
+    void capture_acceptsLegacyContentSize() throws Exception {
+
+        // Given
+        respond(Map.of("contentSize", Map.of("width", 800, "height", 600)),
+                Map.of("data", Base64.getEncoder().encodeToString(new byte[]{1})));
+
+        Path target = tempDir.resolve("shot.png");
+
+        // When
+        engine.capture(driver, target, CaptureOptions.PNG);
+
+        // Then
+        assertArrayEquals(new byte[]{1}, Files.readAllBytes(target));
+
+    }
+
+    @Test
+    void capture_fallsBackToWebDriver_withoutDevTools() throws Exception {
+
+        // Given
+        ChromeDriver plain = mock(ChromeDriver.class);
+        Path target = tempDir.resolve("shot.png");
+        when(fallback.capture(plain, target, CaptureOptions.PNG)).thenReturn(1L);
+
+        // When & Then
+        assertEquals(1L, engine.capture(plain, target, CaptureOptions.PNG));
+        verify(fallback).capture(plain, target, CaptureOptions.PNG);
+
+    }
+
+    @Test
+    void capture_passesFormatQualityAndSpeedToChrome() throws Exception {
+
+        // Given
+        respond(Map.of("cssContentSize", Map.of("width", 800, "height", 600)),
+                Map.of("data", Base64.getEncoder().encodeToString(new byte[]{1})));
+
+        // When
+        engine.capture(driver, tempDir.resolve("shot.webp"), new CaptureOptions(ImageFormat.WEBP, 55, true));
+
+        // Then
+        Command<?> shot = sent.stream().filter(c -> c.getMethod().equals("Page.captureScreenshot")).findFirst().orElseThrow();
+        assertEquals("webp", shot.getParams().get("format"));
+        assertEquals(55, shot.getParams().get("quality"));
+        assertEquals(Boolean.TRUE, shot.getParams().get("optimizeForSpeed"));
+
+    }
+
+    @Test
+    void capture_region_measuresOnce_andClipsTheElement_withoutLayoutMetrics() throws Exception {
+
+        // Given
+        evaluated = Map.of("result", Map.of("type", "object",
+                "value", List.of(10.5, 300.2, 400, 120.4, 1280, 800)));
+        respond(Map.of(), Map.of("data", Base64.getEncoder().encodeToString(new byte[]{3})));
+        CaptureRegion region = new CaptureRegion("contribution-graph", ".js-yearly-contributions");
+
+        // When
+        engine.capture(driver, tempDir.resolve("graph.png"), new CaptureOptions(ImageFormat.PNG, 100, false, region));
+
+        // Then
+        assertEquals(List.of("Runtime.evaluate", "Page.captureScreenshot"), sent.stream().map(Command::getMethod)
+                .filter(m -> m.equals("Runtime.evaluate") || m.startsWith("Page.get") || m.equals("Page.captureScreenshot"))
+                .toList());
+        Command<?> measure = sent.stream().filter(c -> c.getMethod().equals("Runtime.evaluate")).findFirst().orElseThrow();
+        assertTrue(((String) measure.getParams().get("expression")).contains("\".js-yearly-contributions\""));
+
+        Command<?> shot = sent.stream().filter(c -> c.getMethod().equals("Page.captureScreenshot")).findFirst().orElseThrow();
+        Map<?, ?> clip = (Map<?, ?>) shot.getParams().get("clip");
+        assertEquals(10.0, clip.get("x"));
+        assertEquals(300.0, clip.get("y"));
+        assertEquals(400.0, clip.get("width"));
+        assertEquals(121.0, clip.get("height"));
+        assertEquals(Boolean.FALSE, shot.getParams().get("captureBeyondViewport"));
+
+    }
+
+    @Test
+    void capture_region_missingFromThePage_failsTheCapture() {
+
+        // Given
+        respond(Map.of(), Map.of());
+        CaptureRegion region = new CaptureRegion("pinned-repos", ".js-pinned-items-reorder-container");
+
+        // When & Then
+        ScreenshotCaptureException ex = assertThrows(ScreenshotCaptureException.class, () -> engine.capture(
+                driver, tempDir.resolve("pinned.png"), new CaptureOptions(ImageFormat.PNG, 100, false, region)));
+        assertTrue(ex.getMessage().contains("pinned-repos"));
+        assertTrue(sent.stream().noneMatch(c -> c.getMethod().equals("Page.captureScreenshot")));
+
+    }
+}
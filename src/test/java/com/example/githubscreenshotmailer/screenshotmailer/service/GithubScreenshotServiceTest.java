@@ -6,18 +6,33 @@ import com.example.githubscreenshotmailer.common.model.dto.request.CustomPagingR
 import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
 import com.example.githubscreenshotmailer.screenshotmailer.exception.ApiException;
 import com.example.githubscreenshotmailer.screenshotmailer.exception.EmailSendException;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.InvalidScreenshotRequestException;
 import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.TooManyRequestsException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureKey;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureRegion;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ProfileShot;
 import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotRecord;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.CaptureTarget;
 import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ListScreenshotRecordRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.MultiScreenshotRequest;
 import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ScreenshotRequest;
 import com.example.githubscreenshotmailer.screenshotmailer.model.entity.ScreenshotRecordEntity;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ProfileTab;
 import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ScreenshotStatus;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ViewportPreset;
 import com.example.githubscreenshotmailer.screenshotmailer.model.mapper.ScreenshotRecordEntityToScreenshotRecordMapper;
 import com.example.githubscreenshotmailer.screenshotmailer.repository.ScreenshotRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -27,7 +42,14 @@ import org.springframework.data.jpa.domain.Specification;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -50,16 +72,41 @@ class GithubScreenshotServiceTest extends AbstractBaseServiceTest {
     @Mock
     private GithubAutomationProperties props;
 
+    @Spy
+    private ScreenshotPipeline pipeline = new ScreenshotPipeline(new GithubAutomationProperties(), new SimpleMeterRegistry());
+
+    private final SimpleMeterRegistry coalescerMeters = new SimpleMeterRegistry();
+
+    @Spy
+    private CaptureCoalescer coalescer = new CaptureCoalescer(coalescerMeters);
+
+    @Mock
+    private CaptureCache captureCache;
+
+    @Spy
+    private AdmissionControl admission = new AdmissionControl(new GithubAutomationProperties(), new SimpleMeterRegistry());
+
     @TempDir
     Path tempDir;
 
     private static final ScreenshotRecordEntityToScreenshotRecordMapper ENTITY_TO_DOMAIN =
             ScreenshotRecordEntityToScreenshotRecordMapper.initialize();
 
+    @BeforeEach
+    void startPipeline() {
+        pipeline.start();
+    }
+
+    @AfterEach
+    void stopPipeline() {
+        pipeline.shutdown();
+    }
+
     @Test
-    void process_success_captures_emails_and_persists_success_entity() throws Exception {
+    void process_success_inserts_pending_record_then_captures_emails_and_updates_it_to_success() throws Exception {
 
         // Given
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
         when(props.getScreenshotDir()).thenReturn(tempDir.toString());
 
         ScreenshotRequest req = mockReq("octocat", "to@example.com", true);
@@ -69,48 +116,40 @@ class GithubScreenshotServiceTest extends AbstractBaseServiceTest {
         Files.writeString(saved, "png-bytes");
         long size = Files.size(saved);
 
-        ScreenshotRecordEntity persisted = ScreenshotRecordEntity.builder()
-                .githubUsername("octocat")
-                .recipientEmail("to@example.com")
-                .fileName("saved.png")
-                .filePath(saved.toString())
-                .fileSizeBytes(size)
-                .sentAt(LocalDateTime.now())
-                .status(ScreenshotStatus.SUCCESS)
-                .build();
-
-        ScreenshotRecord expected = ENTITY_TO_DOMAIN.map(persisted);
+        // The same entity is saved twice; remember the status it had at each call
+        List<ScreenshotStatus> savedStatuses = new ArrayList<>();
+        List<ScreenshotRecordEntity> savedEntities = new ArrayList<>();
 
         // When
-        when(seleniumAutomationService.captureProfileScreenshot(eq("octocat"), any(Path.class), eq(true)))
+        when(seleniumAutomationService.captureProfileScreenshot(eq("octocat"), any(Path.class), eq(true), isNull(), any(CaptureOptions.class)))
                 .thenReturn(saved);
-        when(repository.save(any(ScreenshotRecordEntity.class))).thenReturn(persisted);
+        when(repository.save(any(ScreenshotRecordEntity.class))).thenAnswer(inv -> {
+            ScreenshotRecordEntity entity = inv.getArgument(0);
+            savedStatuses.add(entity.getStatus());
+            savedEntities.add(entity);
+            return entity;
+        });
 
         // Then
         ScreenshotRecord result = service.process(req);
         assertNotNull(result);
-        assertEquals(expected.githubUsername(), result.githubUsername());
-        assertEquals(expected.recipientEmail(), result.recipientEmail());
-        assertEquals(expected.fileName(),       result.fileName());
-        assertEquals(expected.path(),           result.path());
-        assertEquals(expected.fileSize(),       result.fileSize());
-        assertEquals(expected.status(),         result.status());
+        assertEquals("octocat",          result.githubUsername());
+        assertEquals("to@example.com",   result.recipientEmail());
+        assertEquals("saved.png",        result.fileName());
+        assertEquals(saved.toString(),   result.path());
+        assertEquals(size,               result.fileSize());
+        assertEquals(ImageFormat.PNG,    result.format());
+        assertEquals(ScreenshotStatus.SUCCESS, result.status());
         assertNotNull(result.sentAt());
 
         // Verify
+        assertEquals(List.of(ScreenshotStatus.PENDING, ScreenshotStatus.SUCCESS), savedStatuses);
+        assertSame(savedEntities.get(0), savedEntities.get(1));
         verify(seleniumAutomationService, times(1))
-                .captureProfileScreenshot(eq("octocat"), any(Path.class), eq(true));
+                .captureProfileScreenshot(eq("octocat"), any(Path.class), eq(true), isNull(), any(CaptureOptions.class));
         verify(mailService, times(1))
-                .sendScreenshot(eq("to@example.com"), anyString(), anyString(), eq(saved.toFile()));
-        verify(repository, times(1))
-                .save(argThat(e ->
-                        "octocat".equals(e.getGithubUsername())
-                                && "to@example.com".equals(e.getRecipientEmail())
-                                && saved.toString().equals(e.getFilePath())
-                                && e.getFileSizeBytes() == size
-                                && e.getStatus() == ScreenshotStatus.SUCCESS
-                                && e.getSentAt() != null
-                ));
+                .sendScreenshot(eq("to@example.com"), anyString(), anyString(), eq(saved.toFile()), eq("image/png"));
+        verify(repository, times(2)).save(any(ScreenshotRecordEntity.class));
         verifyNoMoreInteractions(repository, seleniumAutomationService, mailService);
 
     }
@@ -119,6 +158,7 @@ class GithubScreenshotServiceTest extends AbstractBaseServiceTest {
     void process_mail_fails_with_ApiException_persists_failure_and_rethrows() throws Exception {
 
         // Given
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
         when(props.getScreenshotDir()).thenReturn(tempDir.toString());
         ScreenshotRequest req = mockReq("octocat", "to@example.com", false);
 
@@ -127,17 +167,18 @@ class GithubScreenshotServiceTest extends AbstractBaseServiceTest {
 
         //  When
         when(seleniumAutomationService.captureProfileScreenshot(eq("octocat"),
-                any(Path.class), eq(false)))
+                any(Path.class), eq(false), isNull(), any(CaptureOptions.class)))
                 .thenReturn(saved);
+        when(repository.save(any(ScreenshotRecordEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
         // Then
         doThrow(new EmailSendException("SMTP send error", new RuntimeException("smtp")))
-                .when(mailService).sendScreenshot(anyString(), anyString(), anyString(), any());
+                .when(mailService).sendScreenshot(anyString(), anyString(), anyString(), any(), any());
         ApiException ex = assertThrows(ApiException.class, () -> service.process(req));
         assertEquals("Email sending failed: SMTP send error", ex.getMessage());
 
-        // Verify
-        verify(repository, times(1)).save(argThat(e -> e.getStatus() == ScreenshotStatus.FAILED));
+        // Verify: the pending record, saved again as FAILED
+        verify(repository, times(2)).save(argThat(e -> e.getStatus() == ScreenshotStatus.FAILED));
         verifyNoMoreInteractions(repository);
 
     }
@@ -146,11 +187,13 @@ class GithubScreenshotServiceTest extends AbstractBaseServiceTest {
     void process_capture_throws_runtime_persists_failure_and_wraps_as_ScreenshotCaptureException() {
 
         // Given
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
         when(props.getScreenshotDir()).thenReturn(tempDir.toString());
         ScreenshotRequest req = mockReq("octocat", "to@example.com", true);
 
-        when(seleniumAutomationService.captureProfileScreenshot(eq("octocat"), any(Path.class), eq(true)))
+        when(seleniumAutomationService.captureProfileScreenshot(eq("octocat"), any(Path.class), eq(true), isNull(), any(CaptureOptions.class)))
                 .thenThrow(new RuntimeException("webdriver died"));
+        when(repository.save(any(ScreenshotRecordEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
         // Then
         ScreenshotCaptureException ex =
@@ -160,18 +203,86 @@ class GithubScreenshotServiceTest extends AbstractBaseServiceTest {
         assertTrue(ex.getCause().getMessage().contains("webdriver died"));
 
         // Verify
-        verify(repository, times(1)).save(argThat(e -> e.getStatus() == ScreenshotStatus.FAILED));
+        verify(repository, times(2)).save(argThat(e -> e.getStatus() == ScreenshotStatus.FAILED));
         verifyNoMoreInteractions(repository);
         verifyNoInteractions(mailService);
 
     }
 
+    @Test
+    void process_captureAdmissionFull_failsWith429_beforeAnyRecordIsWritten_andReleasesPermitsOfAdmittedCaptures() throws Exception {
+
+        // Given
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
+        when(props.getScreenshotDir()).thenReturn(tempDir.toString());
+        when(repository.save(any(ScreenshotRecordEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        Path saved = tempDir.resolve("admitted.png");
+        Files.writeString(saved, "png");
+        when(seleniumAutomationService.captureProfileScreenshot(eq("octocat"),
+                any(Path.class), eq(false), isNull(), any(CaptureOptions.class)))
+                .thenReturn(saved);
+
+        // When: one admitted request, then one arriving at a full capture queue
+        service.process(mockReq("octocat", "to@example.com", false));
+        doThrow(new TooManyRequestsException("capture", "queue full", 10))
+                .when(admission).enter(AdmissionControl.Resource.CAPTURE);
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> service.process(mockReq("hubot", "to@example.com", false)));
+
+        // Then
+        assertEquals(10, ex.getRetryAfterSeconds());
+        assertEquals(0, admission.active(AdmissionControl.Resource.CAPTURE));
+        verify(seleniumAutomationService, never()).captureProfileScreenshot(eq("hubot"),
+                any(Path.class), anyBoolean(), any(), any(CaptureOptions.class));
+        verify(mailService, times(1)).sendScreenshot(anyString(), anyString(), anyString(), any(), any());
+        verify(repository, never()).save(argThat(e -> "hubot".equals(e.getGithubUsername())));
+
+    }
+
+    @Test
+    void processQueued_waitsForACapturePermit_insteadOfFailingWith429() throws Exception {
+
+        // Given: every capture permit is taken
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
+        when(props.getScreenshotDir()).thenReturn(tempDir.toString());
+        when(repository.save(any(ScreenshotRecordEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        Path saved = tempDir.resolve("queued.png");
+        Files.writeString(saved, "png");
+        when(seleniumAutomationService.captureProfileScreenshot(eq("octocat"),
+                any(Path.class), eq(false), isNull(), any(CaptureOptions.class)))
+                .thenReturn(saved);
+        List<AdmissionControl.Permit> taken = new ArrayList<>();
+        for (int i = 0; i < new GithubAutomationProperties().getPool().getMaxTotal(); i++) {
+            taken.add(admission.enter(AdmissionControl.Resource.CAPTURE));
+        }
+        ExecutorService jobWorker = Executors.newSingleThreadExecutor();
+
+        try {
+            // When
+            Future<ScreenshotRecord> queued = jobWorker.submit(() ->
+                    service.processQueued(mockReq("octocat", "to@example.com", false), stage -> {}));
+            while (admission.waiting(AdmissionControl.Resource.CAPTURE) == 0) Thread.onSpinWait();
+            taken.getFirst().close();
+
+            // Then
+            assertEquals(ScreenshotStatus.SUCCESS, queued.get(5, TimeUnit.SECONDS).status());
+            verify(admission).await(AdmissionControl.Resource.CAPTURE);
+            // The capture itself, e.g. its login, also waits rather than being rejected
+            verify(admission).queued(any());
+        } finally {
+            taken.forEach(AdmissionControl.Permit::close);
+            jobWorker.shutdownNow();
+        }
+
+    }
+
     @Test
     void process_wraps_directory_creation_failure_early() throws Exception {
 
         // Given
         Path baseFile = tempDir.resolve("not-a-dir.txt");
         Files.writeString(baseFile, "x");
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
         when(props.getScreenshotDir()).thenReturn(baseFile.toString());
 
         ScreenshotRequest req = mockReq("octocat", "to@example.com", true);
@@ -190,6 +301,7 @@ class GithubScreenshotServiceTest extends AbstractBaseServiceTest {
     void process_persistFailure_swallows_repository_error_and_preserves_original_exception() throws Exception {
 
         // Given
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
         when(props.getScreenshotDir()).thenReturn(tempDir.toString());
         ScreenshotRequest req = mockReq("octocat", "to@example.com", true);
 
@@ -197,18 +309,20 @@ class GithubScreenshotServiceTest extends AbstractBaseServiceTest {
         Files.writeString(saved, "png");
 
         // When
-        when(seleniumAutomationService.captureProfileScreenshot(eq("octocat"), any(Path.class), eq(true)))
+        when(seleniumAutomationService.captureProfileScreenshot(eq("octocat"), any(Path.class), eq(true), isNull(), any(CaptureOptions.class)))
                 .thenReturn(saved);
         doThrow(new EmailSendException("SMTP send error", new RuntimeException("x")))
-                .when(mailService).sendScreenshot(anyString(), anyString(), anyString(), any());
+                .when(mailService).sendScreenshot(anyString(), anyString(), anyString(), any(), any());
         when(repository.save(any(ScreenshotRecordEntity.class)))
+                .thenAnswer(inv -> inv.getArgument(0))
                 .thenThrow(new RuntimeException("db down"));
 
         // Then
-        assertThrows(ApiException.class, () -> service.process(req));
+        ApiException ex = assertThrows(ApiException.class, () -> service.process(req));
+        assertEquals("Email sending failed: SMTP send error", ex.getMessage());
 
-        // Verify
-        verify(repository, times(1)).save(any(ScreenshotRecordEntity.class));
+        // Verify: pending insert, then the failed FAILED update
+        verify(repository, times(2)).save(any(ScreenshotRecordEntity.class));
 
     }
 
@@ -312,4 +426,222 @@ class GithubScreenshotServiceTest extends AbstractBaseServiceTest {
         return req;
     }
 
-}
\ No newline at end of file
+    @Test
+    void process_requestedFormat_namesEncodesMailsAndRecordsIt() throws Exception {
+
+        // Given
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
+        when(props.getScreenshotDir()).thenReturn(tempDir.toString());
+        ScreenshotRequest req = mockReq("octocat", "to@example.com", false);
+        when(req.format()).thenReturn(ImageFormat.JPEG);
+        when(req.quality()).thenReturn(60);
+
+        Path saved = tempDir.resolve("saved.jpg");
+        Files.writeString(saved, "jpeg-bytes");
+        when(seleniumAutomationService.captureProfileScreenshot(eq("octocat"), any(Path.class), eq(false), isNull(),
+                any(CaptureOptions.class))).thenReturn(saved);
+        when(repository.save(any(ScreenshotRecordEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        ScreenshotRecord result = service.process(req);
+
+        // Then
+        assertEquals(ImageFormat.JPEG, result.format());
+        assertTrue(result.fileName().endsWith(".jpg"));
+        verify(seleniumAutomationService).captureProfileScreenshot(eq("octocat"),
+                argThat(p -> p.getFileName().toString().endsWith(".jpg")), eq(false), isNull(),
+                eq(new CaptureOptions(ImageFormat.JPEG, 60, false)));
+        verify(mailService).sendScreenshot(eq("to@example.com"), anyString(), anyString(), eq(saved.toFile()),
+                eq("image/jpeg"));
+
+    }
+
+    @Test
+    void process_region_isResolvedFromTheAllowlist_orRejectedAsBadRequest() throws Exception {
+
+        // Given
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
+        when(props.getScreenshotDir()).thenReturn(tempDir.toString());
+        ScreenshotRequest graph = mockReq("octocat", "to@example.com", false);
+        when(graph.region()).thenReturn("contribution-graph");
+        ScreenshotRequest unknown = mockReq("octocat", "to@example.com", false);
+        when(unknown.region()).thenReturn("body");
+
+        Path saved = tempDir.resolve("graph.png");
+        Files.writeString(saved, "png");
+        when(seleniumAutomationService.captureProfileScreenshot(any(), any(), anyBoolean(), any(), any()))
+                .thenReturn(saved);
+        when(repository.save(any(ScreenshotRecordEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        service.process(graph);
+        InvalidScreenshotRequestException ex =
+                assertThrows(InvalidScreenshotRequestException.class, () -> service.process(unknown));
+
+        // Then
+        verify(seleniumAutomationService).captureProfileScreenshot(eq("octocat"), any(Path.class), eq(false), isNull(),
+                argThat(o -> new CaptureRegion("contribution-graph", ".js-yearly-contributions").equals(o.region())));
+        assertEquals(400, ex.getStatus().value());
+        assertTrue(ex.getMessage().contains("contribution-graph"));
+        // The rejected request neither captured nor left a record; the other one was inserted and updated
+        verify(seleniumAutomationService, times(1)).captureProfileScreenshot(any(), any(), anyBoolean(), any(), any());
+        verify(repository, times(2)).save(any());
+
+    }
+
+    @Test
+    void processMulti_capturesAllTargetsInOneCall_sendsOneMail_andPersistsARecordPerFile() throws Exception {
+
+        // Given
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
+        when(props.getScreenshotDir()).thenReturn(tempDir.toString());
+        MultiScreenshotRequest req = new MultiScreenshotRequest("octocat", "to@example.com", true, null, null, null,
+                List.of(new CaptureTarget(null, ViewportPreset.DESKTOP, null),
+                        new CaptureTarget(ProfileTab.REPOSITORIES, ViewportPreset.MOBILE, "pinned-repos")));
+
+        when(seleniumAutomationService.captureProfileScreenshots(eq("octocat"), anyList(), eq(true), isNull()))
+                .thenAnswer(inv -> {
+                    List<ProfileShot> shots = inv.getArgument(1);
+                    for (ProfileShot shot : shots) Files.writeString(shot.file(), "png");
+                    return shots.stream().map(ProfileShot::file).toList();
+                });
+        when(repository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        List<ScreenshotRecord> result = service.processMulti(req);
+
+        // Then
+        assertEquals(2, result.size());
+        assertTrue(result.get(0).fileName().startsWith("octocat_overview-desktop_"));
+        assertTrue(result.get(1).fileName().startsWith("octocat_repositories-mobile-pinned-repos_"));
+        assertTrue(result.stream().allMatch(r -> r.status() == ScreenshotStatus.SUCCESS && r.fileSize() == 3));
+
+        verify(seleniumAutomationService, times(1)).captureProfileScreenshots(eq("octocat"),
+                argThat(shots -> shots.size() == 2
+                        && shots.get(0).tab() == ProfileTab.OVERVIEW
+                        && shots.get(0).options().viewport() == ViewportPreset.DESKTOP
+                        && shots.get(1).tab() == ProfileTab.REPOSITORIES
+                        && shots.get(1).options().viewport() == ViewportPreset.MOBILE
+                        && shots.get(1).options().region() != null),
+                eq(true), isNull());
+        verify(mailService, times(1)).sendScreenshots(eq("to@example.com"), anyString(), anyString(),
+                argThat(files -> files.size() == 2), eq("image/png"));
+
+    }
+
+    @Test
+    void processMulti_captureFailure_persistsAFailedRecordPerTarget() {
+
+        // Given
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
+        when(props.getScreenshotDir()).thenReturn(tempDir.toString());
+        MultiScreenshotRequest req = new MultiScreenshotRequest("octocat", "to@example.com", false, null, null, null,
+                List.of(new CaptureTarget(null, null, null), new CaptureTarget(ProfileTab.STARS, null, null)));
+        when(seleniumAutomationService.captureProfileScreenshots(any(), anyList(), anyBoolean(), any()))
+                .thenThrow(new ScreenshotCaptureException("boom", null));
+        when(repository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        assertThrows(ScreenshotCaptureException.class, () -> service.processMulti(req));
+
+        // Then
+        verify(repository).saveAll(argThat(records -> ((List<?>) records).size() == 2));
+        verify(repository, times(2)).save(argThat(e -> e.getStatus() == ScreenshotStatus.FAILED));
+        verifyNoInteractions(mailService);
+
+    }
+
+    @Test
+    void process_concurrentRequestsForTheSameProfile_shareOneCapture_butEachGetsItsOwnMailAndRecord() throws Exception {
+
+        // Given
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
+        when(props.getScreenshotDir()).thenReturn(tempDir.toString());
+        when(repository.save(any(ScreenshotRecordEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Path saved = tempDir.resolve("shared.png");
+        Files.writeString(saved, "png");
+        CountDownLatch captureStarted = new CountDownLatch(1);
+        CountDownLatch releaseCapture = new CountDownLatch(1);
+        when(seleniumAutomationService.captureProfileScreenshot(any(), any(), anyBoolean(), any(), any()))
+                .thenAnswer(inv -> {
+                    captureStarted.countDown();
+                    releaseCapture.await(5, TimeUnit.SECONDS);
+                    return saved;
+                });
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // When: the second request arrives while the first one's capture is running
+            Future<ScreenshotRecord> first = callers.submit(() ->
+                    service.process(new ScreenshotRequest("octocat", "a@example.com", false)));
+            assertTrue(captureStarted.await(5, TimeUnit.SECONDS));
+            Future<ScreenshotRecord> second = callers.submit(() ->
+                    service.process(new ScreenshotRequest("OctoCat", "b@example.com", false)));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (joinedCaptures() < 1 && System.nanoTime() < deadline) Thread.sleep(10);
+            releaseCapture.countDown();
+
+            // Then
+            ScreenshotRecord a = first.get(5, TimeUnit.SECONDS);
+            ScreenshotRecord b = second.get(5, TimeUnit.SECONDS);
+            assertEquals(saved.toString(), a.path());
+            assertEquals(saved.toString(), b.path());
+            assertEquals("shared.png", b.fileName());
+            assertEquals(ScreenshotStatus.SUCCESS, a.status());
+            assertEquals(ScreenshotStatus.SUCCESS, b.status());
+            assertEquals(1.0, joinedCaptures());
+        } finally {
+            callers.shutdownNow();
+        }
+
+        // Verify
+        verify(seleniumAutomationService, times(1)).captureProfileScreenshot(any(), any(), anyBoolean(), any(), any());
+        verify(mailService).sendScreenshot(eq("a@example.com"), anyString(), anyString(), eq(saved.toFile()), any());
+        verify(mailService).sendScreenshot(eq("b@example.com"), anyString(), anyString(), eq(saved.toFile()), any());
+        // A pending insert and a SUCCESS update per request
+        verify(repository, times(4)).save(any(ScreenshotRecordEntity.class));
+
+    }
+
+    @Test
+    void process_recentCaptureOfTheSameKey_isMailedAgainWithoutABrowser_unlessForceRefresh() throws Exception {
+
+        // Given
+        when(props.getCapture()).thenReturn(new GithubAutomationProperties.Capture());
+        when(props.getScreenshotDir()).thenReturn(tempDir.toString());
+        when(repository.save(any(ScreenshotRecordEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Path cached = tempDir.resolve("cached.png");
+        Files.writeString(cached, "png");
+        LocalDateTime capturedAt = LocalDateTime.now().minusMinutes(3);
+        String key = CaptureKey.of("octocat", false, null,
+                new GithubAutomationProperties.Capture().options(null, null, null)).id();
+        when(captureCache.lookup(key)).thenReturn(Optional.of(new CaptureCache.Entry(cached, 3, capturedAt)));
+
+        Path fresh = tempDir.resolve("fresh.png");
+        Files.writeString(fresh, "fresh");
+        when(seleniumAutomationService.captureProfileScreenshot(any(), any(), anyBoolean(), any(), any()))
+                .thenReturn(fresh);
+
+        // When
+        ScreenshotRecord reused = service.process(new ScreenshotRequest("OctoCat", "a@example.com", false));
+        ScreenshotRecord refreshed = service.process(
+                new ScreenshotRequest("octocat", "b@example.com", false, null, null, null, null, true));
+
+        // Then
+        assertEquals(cached.toString(), reused.path());
+        assertEquals(fresh.toString(), refreshed.path());
+        verify(seleniumAutomationService, times(1)).captureProfileScreenshot(any(), any(), anyBoolean(), any(), any());
+        verify(mailService).sendScreenshot(eq("a@example.com"), anyString(), anyString(), eq(cached.toFile()), any());
+        verify(captureCache, times(1)).lookup(key);
+        verify(captureCache).put(eq(key), argThat(e -> e.file().equals(fresh) && e.size() == 5));
+        verify(repository, atLeastOnce()).save(argThat(e -> key.equals(e.getCaptureKey())
+                && capturedAt.equals(e.getCapturedAt()) && "a@example.com".equals(e.getRecipientEmail())));
+
+    }
+
+    private double joinedCaptures() {
+        return coalescerMeters.get("screenshot.capture.coalesce").tag("result", "joined").counter().count();
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GithubSessionCacheTest extends AbstractBaseServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private GithubAutomationProperties props;
+
+    @BeforeEach
+    void setup() {
+        props = new GithubAutomationProperties();
+        props.setScreenshotDir(tempDir.toString());
+        props.getSessionCache().setEncryptionKey(Base64.getEncoder().encodeToString(new byte[32]));
+    }
+
+    @Test
+    void restore_returnsFalse_whenNothingCached() {
+
+        // Given
+        GithubSessionCache cache = new GithubSessionCache(props);
+        ChromeDriver driver = mock(ChromeDriver.class);
+
+        // Then
+        assertFalse(cache.restore(driver));
+        verifyNoInteractions(driver);
+
+    }
+
+    @Test
+    void store_thenRestore_injectsGithubCookiesViaDevTools() {
+
+        // Given
+        GithubSessionCache cache = new GithubSessionCache(props);
+        cache.store(loggedInBrowser());
+        ChromeDriver driver = mock(ChromeDriver.class);
+
+        // When
+        boolean restored = cache.restore(driver);
+
+        // Then
+        assertTrue(restored);
+        verify(driver).executeCdpCommand(eq("Network.setCookies"), argThat(params -> {
+            List<?> cookies = (List<?>) params.get("cookies");
+            return cookies.size() == 2
+                    && cookies.stream().map(c -> ((Map<?, ?>) c).get("name")).toList()
+                    .containsAll(List.of("user_session", "dotcom_user"));
+        }));
+
+    }
+
+    @Test
+    void store_persistsEncryptedFile_readableByNewInstance() throws Exception {
+
+        // Given
+        new GithubSessionCache(props).store(loggedInBrowser());
+        Path file = tempDir.resolve("_auth").resolve("github-session.bin");
+
+        // Then: the file exists and does not leak the cookie value in clear text
+        assertTrue(Files.exists(file));
+        String raw = new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+        assertFalse(raw.contains("secret-session"));
+
+        // When: a fresh instance (e.g. after restart) reads it back
+        ChromeDriver driver = mock(ChromeDriver.class);
+        assertTrue(new GithubSessionCache(props).restore(driver));
+        verify(driver).executeCdpCommand(eq("Network.setCookies"), anyMap());
+
+    }
+
+    @Test
+    void restore_ignoresFileEncryptedWithDifferentKey() {
+
+        // Given
+        new GithubSessionCache(props).store(loggedInBrowser());
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+        props.getSessionCache().setEncryptionKey(Base64.getEncoder().encodeToString(otherKey));
+
+        // Then
+        assertFalse(new GithubSessionCache(props).restore(mock(ChromeDriver.class)));
+
+    }
+
+    @Test
+    void store_withoutKey_keepsSessionInMemoryOnly() {
+
+        // Given
+        props.getSessionCache().setEncryptionKey(null);
+        GithubSessionCache cache = new GithubSessionCache(props);
+
+        // When
+        cache.store(loggedInBrowser());
+
+        // Then
+        assertTrue(cache.restore(mock(ChromeDriver.class)));
+        assertFalse(Files.exists(tempDir.resolve("_auth").resolve("github-session.bin")));
+
+    }
+
+    @Test
+    void store_skipsJarWithoutSessionCookie() {
+
+        // Given
+        GithubSessionCache cache = new GithubSessionCache(props);
+        WebDriver browser = browserWith(Set.of(new Cookie("logged_in", "no", ".github.com", "/", null)));
+
+        // When
+        cache.store(browser);
+
+        // Then
+        assertFalse(cache.restore(mock(ChromeDriver.class)));
+
+    }
+
+    @Test
+    void restore_returnsFalse_whenSessionCookieExpired() {
+
+        // Given
+        GithubSessionCache cache = new GithubSessionCache(props);
+        Date past = Date.from(Instant.now().minusSeconds(60));
+        cache.store(browserWith(Set.of(new Cookie("user_session", "old", "github.com", "/", past))));
+
+        // Then
+        assertFalse(cache.restore(mock(ChromeDriver.class)));
+
+    }
+
+    @Test
+    void invalidate_forgetsSession_andDeletesFile() {
+
+        // Given
+        GithubSessionCache cache = new GithubSessionCache(props);
+        cache.store(loggedInBrowser());
+
+        // When
+        cache.invalidate(cache.lookup());
+
+        // Then
+        assertFalse(cache.restore(mock(ChromeDriver.class)));
+        assertFalse(Files.exists(tempDir.resolve("_auth").resolve("github-session.bin")));
+
+    }
+
+    @Test
+    void invalidateRejected_keepsASessionStoredSinceItWasRestored() {
+
+        // Given: a capture restored the session, and another capture logged in again before it was rejected
+        GithubSessionCache cache = new GithubSessionCache(props);
+        cache.store(loggedInBrowser());
+        GithubSessionCache.Session stale = cache.restoreSession(mock(ChromeDriver.class));
+        cache.store(loggedInBrowser());
+
+        // When
+        boolean forgotten = cache.invalidate(stale);
+
+        // Then
+        assertFalse(forgotten);
+        assertNotNull(cache.lookup());
+        assertTrue(Files.exists(tempDir.resolve("_auth").resolve("github-session.bin")));
+        GithubSessionCache.Session fresh = cache.restoreSession(mock(ChromeDriver.class));
+        assertTrue(cache.invalidate(fresh));
+        assertNull(cache.lookup());
+
+    }
+
+    @Test
+    void restore_returnsFalse_whenDevToolsCommandFails() {
+
+        // Given
+        GithubSessionCache cache = new GithubSessionCache(props);
+        cache.store(loggedInBrowser());
+        ChromeDriver driver = mock(ChromeDriver.class);
+        when(driver.executeCdpCommand(eq("Network.setCookies"), anyMap()))
+                .thenThrow(new WebDriverException("devtools closed"));
+
+        // Then
+        assertFalse(cache.restore(driver));
+
+    }
+
+    @Test
+    void disabled_neverStoresOrRestores() {
+
+        // Given
+        props.getSessionCache().setEnabled(false);
+        GithubSessionCache cache = new GithubSessionCache(props);
+        WebDriver browser = loggedInBrowser();
+
+        // When
+        cache.store(browser);
+
+        // Then
+        assertFalse(cache.restore(mock(ChromeDriver.class)));
+        verifyNoInteractions(browser);
+
+    }
+
+    private WebDriver loggedInBrowser() {
+        Date future = Date.from(Instant.now().plusSeconds(3600));
+        return browserWith(Set.of(
+                new Cookie("user_session", "secret-session", "github.com", "/", future, true, true, "Lax"),
+                new Cookie("dotcom_user", "rapter1990", ".github.com", "/", future),
+                new Cookie("_ga", "tracking", ".example.com", "/", future)
+        ));
+    }
+
+    private WebDriver browserWith(Set<Cookie> cookies) {
+        WebDriver browser = mock(WebDriver.class);
+        WebDriver.Options options = mock(WebDriver.Options.class);
+        when(browser.manage()).thenReturn(options);
+        when(options.getCookies()).thenReturn(cookies);
+        return browser;
+    }
+
+}
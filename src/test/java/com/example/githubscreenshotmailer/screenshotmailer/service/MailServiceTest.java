@@ -4,6 +4,7 @@ import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
 import com.example.githubscreenshotmailer.screenshotmailer.exception.EmailSendException;
 import jakarta.mail.Address;
 import jakarta.mail.MessagingException;
+import jakarta.mail.Multipart;
 import jakarta.mail.Session;
 import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.Test;
@@ -15,7 +16,9 @@ import org.springframework.mail.javamail.JavaMailSender;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
@@ -110,4 +113,49 @@ class MailServiceTest extends AbstractBaseServiceTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void sendScreenshot_withContentType_labelsTheAttachment() throws Exception {
+
+        // Given
+        MimeMessage realMessage = new MimeMessage((Session) null);
+        Path filePath = tempDir.resolve("shot.webp");
+        Files.writeString(filePath, "dummy-bytes");
+        when(mailSender.createMimeMessage()).thenReturn(realMessage);
+
+        // When
+        mailService.sendScreenshot("user@example.com", "Subject", "Body", filePath.toFile(), "image/webp");
+
+        // Then
+        realMessage.saveChanges();
+        Multipart mixed = (Multipart) realMessage.getContent();
+        assertEquals("shot.webp", mixed.getBodyPart(1).getFileName());
+        assertTrue(mixed.getBodyPart(1).getContentType().startsWith("image/webp"));
+        verify(mailSender).send(same(realMessage));
+
+    }
+
+    @Test
+    void sendScreenshots_attachesEveryFileToOneMessage() throws Exception {
+
+        // Given
+        MimeMessage realMessage = new MimeMessage((Session) null);
+        Path desktop = tempDir.resolve("desktop.png");
+        Path mobile = tempDir.resolve("mobile.png");
+        Files.writeString(desktop, "a");
+        Files.writeString(mobile, "b");
+        when(mailSender.createMimeMessage()).thenReturn(realMessage);
+
+        // When
+        mailService.sendScreenshots("user@example.com", "Subject", "Body",
+                List.of(desktop.toFile(), mobile.toFile()), "image/png");
+
+        // Then
+        realMessage.saveChanges();
+        Multipart mixed = (Multipart) realMessage.getContent();
+        assertEquals(3, mixed.getCount());
+        assertEquals("desktop.png", mixed.getBodyPart(1).getFileName());
+        assertEquals("mobile.png", mixed.getBodyPart(2).getFileName());
+        verify(mailSender, times(1)).send(same(realMessage));
+
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NetworkIdleTrackerTest extends AbstractBaseServiceTest {
+
+    private ChromeDriver driver;
+    private final Map<String, Consumer<Map<String, Object>>> handlers = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        driver = mock(ChromeDriver.class);
+        DevTools devTools = mock(DevTools.class);
+        when(driver.maybeGetDevTools()).thenReturn(Optional.of(devTools));
+        doAnswer(inv -> {
+            handlers.put(((Event<?>) inv.getArgument(0)).getMethod(), inv.getArgument(1));
+            return null;
+        }).when(devTools).addListener(any(Event.class), any(Consumer.class));
+    }
+
+    @Test
+    void start_withoutDevTools_isNotAvailable() {
+
+        // When
+        NetworkIdleTracker tracker = NetworkIdleTracker.start(BrowserEvents.of(mock(WebDriver.class)));
+
+        // Then
+        assertFalse(tracker.isAvailable());
+        tracker.close();
+
+    }
+
+    @Test
+    void awaitIdle_returnsOnceLastRequestFinishes_andQuietPeriodPassed() throws Exception {
+
+        // Given
+        NetworkIdleTracker tracker = NetworkIdleTracker.start(BrowserEvents.of(driver));
+        handlers.get("Network.requestWillBeSent").accept(Map.of("requestId", "1", "type", "Document"));
+        handlers.get("Network.requestWillBeSent").accept(Map.of("requestId", "2", "type", "Image"));
+        assertEquals(2, tracker.inFlight());
+
+        // When
+        CompletableFuture<Boolean> idle = CompletableFuture.supplyAsync(() -> {
+            try {
+                return tracker.awaitIdle(Duration.ofMillis(50), 0, System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+            } catch (InterruptedException ie) {
+                return false;
+            }
+        });
+        handlers.get("Network.loadingFinished").accept(Map.of("requestId", "1"));
+        handlers.get("Network.loadingFailed").accept(Map.of("requestId", "2"));
+
+        // Then
+        assertTrue(idle.get(2, TimeUnit.SECONDS));
+        assertEquals(0, tracker.inFlight());
+        tracker.close();
+
+    }
+
+    @Test
+    void awaitIdle_returnsFalseAtDeadline_whileRequestHangs_butIgnoresStreams() throws Exception {
+
+        // Given
+        NetworkIdleTracker tracker = NetworkIdleTracker.start(BrowserEvents.of(driver));
+        handlers.get("Network.requestWillBeSent").accept(Map.of("requestId", "ws", "type", "WebSocket"));
+        handlers.get("Network.requestWillBeSent").accept(Map.of("requestId", "xhr", "type", "XHR"));
+
+        // When
+        boolean strict = tracker.awaitIdle(Duration.ZERO, 0, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+        boolean tolerant = tracker.awaitIdle(Duration.ZERO, 1, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+
+        // Then
+        assertFalse(strict);
+        assertTrue(tolerant);
+        assertEquals(1, tracker.inFlight());
+        tracker.close();
+
+    }
+
+}
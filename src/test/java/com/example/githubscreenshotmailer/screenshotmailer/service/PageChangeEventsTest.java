@@ -0,0 +1,146 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PageChangeEventsTest extends AbstractBaseServiceTest {
+
+    private ChromeDriver driver;
+    private DevTools devTools;
+    private final Map<String, Consumer<Map<String, Object>>> handlers = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        driver = mock(ChromeDriver.class);
+        devTools = mock(DevTools.class);
+        when(driver.maybeGetDevTools()).thenReturn(Optional.of(devTools));
+        doAnswer(inv -> {
+            handlers.put(((Event<?>) inv.getArgument(0)).getMethod(), inv.getArgument(1));
+            return null;
+        }).when(devTools).addListener(any(Event.class), any(Consumer.class));
+    }
+
+    @Test
+    void attach_withoutDevTools_isNotEventDriven_andAwaitTimesOut() {
+
+        // When
+        PageChangeEvents events = PageChangeEvents.attach(mock(WebDriver.class));
+
+        // Then
+        assertFalse(events.isEventDriven());
+        assertNull(events.await(Duration.ofMillis(20)));
+        events.close();
+
+    }
+
+    @Test
+    void attach_fallsBack_whenDevToolsSessionCannotBeCreated() {
+
+        // Given
+        doThrow(new WebDriverException("no cdp")).when(devTools).createSessionIfThereIsNotOne(any());
+
+        // When
+        PageChangeEvents events = PageChangeEvents.attach(driver);
+
+        // Then
+        assertFalse(events.isEventDriven());
+
+    }
+
+    @Test
+    void mainFrameNavigation_wakesWaiter_butIframeNavigationDoesNot() {
+
+        // Given
+        PageChangeEvents events = PageChangeEvents.attach(driver);
+        assertTrue(events.isEventDriven());
+        verify(devTools).send(argThat((Command<?> c) -> "Page.enable".equals(c.getMethod())));
+        verify(devTools).send(argThat((Command<?> c) -> "Network.enable".equals(c.getMethod())));
+
+        // When
+        handlers.get("Page.frameNavigated").accept(Map.of("frame", Map.of("id", "iframe", "parentId", "main")));
+
+        // Then
+        assertNull(events.await(Duration.ofMillis(20)));
+
+        // When
+        handlers.get("Page.frameNavigated").accept(Map.of("frame", Map.of("id", "main", "url", "https://github.com/")));
+
+        // Then
+        assertEquals(PageChangeEvents.NAVIGATED, events.await(Duration.ofSeconds(5)));
+
+    }
+
+    @Test
+    void sessionEndpointResponse_wakesWaiter_onlyForGithubSessionUrls() {
+
+        // Given
+        PageChangeEvents events = PageChangeEvents.attach(driver);
+
+        // When
+        handlers.get("Network.responseReceived")
+                .accept(Map.of("response", Map.of("url", "https://github.githubassets.com/assets/app.js")));
+
+        // Then
+        assertNull(events.await(Duration.ofMillis(20)));
+
+        // When
+        handlers.get("Network.responseReceived")
+                .accept(Map.of("response", Map.of("url", "https://github.com/sessions/two-factor/mobile_poll")));
+
+        // Then
+        assertEquals(PageChangeEvents.SESSION_RESPONSE, events.await(Duration.ofSeconds(5)));
+
+    }
+
+    @Test
+    void sessionCookie_wakesWaiter_andBurstNeedsSingleRecheck() {
+
+        // Given
+        PageChangeEvents events = PageChangeEvents.attach(driver);
+
+        // When
+        handlers.get("Network.responseReceivedExtraInfo")
+                .accept(Map.of("headers", Map.of("Set-Cookie", "_gh_sess=abc; path=/\nuser_session=xyz; path=/")));
+        handlers.get("Page.frameNavigated").accept(Map.of("frame", Map.of("id", "main")));
+
+        // Then
+        assertEquals(PageChangeEvents.SESSION_COOKIE, events.await(Duration.ofSeconds(5)));
+        assertNull(events.await(Duration.ofMillis(20)));
+
+    }
+
+    @Test
+    void close_unsubscribes_withoutClearingOtherListenersOfTheBrowser() {
+
+        // Given
+        PageChangeEvents events = PageChangeEvents.attach(driver);
+
+        // When
+        events.close();
+        handlers.get("Page.frameNavigated").accept(Map.of("frame", Map.of("id", "main")));
+
+        // Then
+        assertNull(events.await(Duration.ofMillis(20)));
+        verify(devTools, never()).clearListeners();
+
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PageReadinessTest extends AbstractBaseServiceTest {
+
+    private static final String URL = "https://github.com/octocat";
+
+    private GithubAutomationProperties props;
+    private SimpleMeterRegistry meterRegistry;
+    private PageReadiness readiness;
+
+    private ChromeDriver driver;
+    private DevTools devTools;
+    private final Map<String, Consumer<Map<String, Object>>> handlers = new HashMap<>();
+
+    @BeforeEach
+    void setup() {
+        props = new GithubAutomationProperties();
+        props.getReadiness().setNetworkIdleMs(0);
+        props.getReadiness().setNetworkIdleTimeoutSeconds(1);
+        props.getReadiness().setSelectorTimeoutSeconds(1);
+        meterRegistry = new SimpleMeterRegistry();
+        readiness = new PageReadiness(props, meterRegistry);
+
+        driver = mock(ChromeDriver.class);
+        devTools = mock(DevTools.class);
+        when(driver.executeScript("return document.readyState")).thenReturn("interactive");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void withDevTools() {
+        when(driver.maybeGetDevTools()).thenReturn(Optional.of(devTools));
+        doAnswer(inv -> {
+            handlers.put(((Event<?>) inv.getArgument(0)).getMethod(), inv.getArgument(1));
+            return null;
+        }).when(devTools).addListener(any(Event.class), any(Consumer.class));
+    }
+
+    private double count(String stage, String outcome) {
+        var timer = meterRegistry.find("screenshot.page.readiness").tags("stage", stage, "outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    void navigate_withoutDevTools_fallsBackToLoadEvent() {
+
+        // Given
+        when(driver.executeScript("return document.readyState")).thenReturn("complete");
+
+        // When
+        readiness.navigate(driver, URL);
+
+        // Then
+        verify(driver).get(URL);
+        assertEquals(1, count("dom", "ready"));
+        assertEquals(1, count("network", "ready"));
+        assertEquals(0, count("selectors", "ready") + count("selectors", "deadline"));
+
+    }
+
+    @Test
+    void navigate_isReady_onceRequestsStartedByThePageFinish() {
+
+        // Given
+        withDevTools();
+        doAnswer(inv -> {
+            handlers.get("Network.requestWillBeSent").accept(Map.of("requestId", "doc", "type", "Document"));
+            handlers.get("Network.loadingFinished").accept(Map.of("requestId", "doc"));
+            return null;
+        }).when(driver).get(URL);
+
+        // When
+        readiness.navigate(driver, URL);
+
+        // Then
+        assertEquals(1, count("dom", "ready"));
+        assertEquals(1, count("network", "ready"));
+
+    }
+
+    @Test
+    void navigate_proceedsAtNetworkDeadline_whenARequestHangs() {
+
+        // Given
+        withDevTools();
+        doAnswer(inv -> {
+            handlers.get("Network.requestWillBeSent").accept(Map.of("requestId", "poll", "type", "Fetch"));
+            return null;
+        }).when(driver).get(URL);
+
+        // When
+        assertDoesNotThrow(() -> readiness.navigate(driver, URL));
+
+        // Then
+        assertEquals(1, count("network", "deadline"));
+
+    }
+
+    @Test
+    void navigate_proceedsAtSelectorDeadline_whenARequiredSelectorIsMissing() {
+
+        // Given
+        props.getReadiness().setRequiredSelectors(List.of("img.avatar"));
+        when(driver.executeScript("return document.readyState")).thenReturn("complete");
+        when(driver.executeScript(contains("querySelector"), any())).thenReturn(false);
+
+        // When
+        assertDoesNotThrow(() -> readiness.navigate(driver, URL));
+
+        // Then
+        assertEquals(1, count("selectors", "deadline"));
+
+    }
+
+    @Test
+    void navigate_failsWhenTheDocumentIsNeverParsed() {
+
+        // Given
+        props.getReadiness().setDomTimeoutSeconds(1);
+        when(driver.executeScript("return document.readyState")).thenReturn("loading");
+
+        // When & Then
+        assertThrows(TimeoutException.class, () -> readiness.navigate(driver, URL));
+        assertEquals(1, count("dom", "deadline"));
+
+    }
+
+}
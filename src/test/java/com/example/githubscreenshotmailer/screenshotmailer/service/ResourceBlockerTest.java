@@ -0,0 +1,126 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ResourceBlockingOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ResourceBlockerTest extends AbstractBaseServiceTest {
+
+    private GithubAutomationProperties props;
+    private SimpleMeterRegistry meterRegistry;
+    private ResourceBlocker blocker;
+
+    private ChromeDriver driver;
+    private DevTools devTools;
+    private final Map<String, Consumer<Map<String, Object>>> listeners = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        props = new GithubAutomationProperties();
+        props.getResourceBlocking().setPatterns(List.of("*://collector.github.com/*"));
+        meterRegistry = new SimpleMeterRegistry();
+        blocker = new ResourceBlocker(props, meterRegistry);
+
+        driver = mock(ChromeDriver.class);
+        devTools = mock(DevTools.class);
+        when(driver.maybeGetDevTools()).thenReturn(Optional.of(devTools));
+        doAnswer(inv -> {
+            listeners.put(((Event<?>) inv.getArgument(0)).getMethod(), inv.getArgument(1));
+            return null;
+        }).when(devTools).addListener(any(Event.class), any(Consumer.class));
+    }
+
+    @Test
+    void effectivePatterns_mergeConfiguredAndRequestPatterns() {
+
+        // When
+        List<String> patterns = blocker.effectivePatterns(
+                new ResourceBlockingOptions(null, List.of("*.mp4", "*://collector.github.com/*")));
+
+        // Then
+        assertEquals(List.of("*://collector.github.com/*", "*.mp4"), patterns);
+
+    }
+
+    @Test
+    void effectivePatterns_requestOverridesTheConfiguredSwitch() {
+
+        // Given
+        ResourceBlockingOptions off = new ResourceBlockingOptions(false, List.of("*.mp4"));
+        ResourceBlockingOptions on = new ResourceBlockingOptions(true, null);
+
+        // When & Then
+        assertTrue(blocker.effectivePatterns(off).isEmpty());
+
+        props.getResourceBlocking().setEnabled(false);
+        assertTrue(blocker.effectivePatterns(null).isEmpty());
+        assertEquals(List.of("*://collector.github.com/*"), blocker.effectivePatterns(on));
+
+    }
+
+    @Test
+    void start_sendsBlockList_andCloseClearsIt_andRecordsPageWeight() {
+
+        // When
+        try (ResourceBlocker.Session ignored = blocker.start(driver, null)) {
+            listeners.get("Network.loadingFinished").accept(Map.of("requestId", "1", "encodedDataLength", 1200));
+            listeners.get("Network.loadingFinished").accept(Map.of("requestId", "2", "encodedDataLength", 800.0));
+            listeners.get("Network.loadingFailed").accept(Map.of("requestId", "3", "type", "Script", "blockedReason", "inspector"));
+            listeners.get("Network.loadingFailed").accept(Map.of("requestId", "4", "type", "XHR", "errorText", "net::ERR_ABORTED"));
+        }
+
+        // Then
+        verify(devTools).send(argThat((Command<?> c) -> "Network.setBlockedURLs".equals(c.getMethod())
+                && List.of("*://collector.github.com/*").equals(c.getParams().get("urls"))));
+        verify(devTools).send(argThat((Command<?> c) -> "Network.setBlockedURLs".equals(c.getMethod())
+                && List.of().equals(c.getParams().get("urls"))));
+
+        assertEquals(2000.0, meterRegistry.get("screenshot.browser.page.bytes").tag("blocking", "on").summary().totalAmount());
+        assertEquals(2.0, meterRegistry.get("screenshot.browser.page.requests").tag("blocking", "on").summary().totalAmount());
+        assertEquals(1.0, meterRegistry.get("screenshot.browser.requests.blocked").tag("type", "Script").counter().count());
+        assertTrue(meterRegistry.find("screenshot.browser.requests.blocked").tag("type", "XHR").counters().isEmpty());
+
+    }
+
+    @Test
+    void start_withBlockingDisabled_stillMeasuresPageWeight_forComparison() {
+
+        // When
+        try (ResourceBlocker.Session ignored = blocker.start(driver, new ResourceBlockingOptions(false, null))) {
+            listeners.get("Network.loadingFinished").accept(Map.of("encodedDataLength", 5000));
+        }
+
+        // Then
+        assertEquals(5000.0, meterRegistry.get("screenshot.browser.page.bytes").tag("blocking", "off").summary().totalAmount());
+
+    }
+
+    @Test
+    void start_withoutDevTools_isNoOp() {
+
+        // When & Then
+        assertDoesNotThrow(() -> blocker.start(mock(WebDriver.class), null).close());
+        assertTrue(meterRegistry.find("screenshot.browser.page.bytes").summaries().isEmpty());
+
+    }
+
+}
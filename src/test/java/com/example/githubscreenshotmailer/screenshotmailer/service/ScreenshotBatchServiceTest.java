@@ -0,0 +1,158 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.JobQueueFullException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotBatch;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotJob;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.BatchScreenshotRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ScreenshotRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.JobStage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class ScreenshotBatchServiceTest extends AbstractBaseServiceTest {
+
+    private ScreenshotJobService jobService;
+    private GithubSessionCache sessionCache;
+    private SimpleMeterRegistry meterRegistry;
+    private ScreenshotBatchService batches;
+
+    @BeforeEach
+    void setup() {
+        GithubAutomationProperties props = new GithubAutomationProperties();
+        props.getBatch().setParallelism(2);
+        props.getBatch().setQueueCapacity(3);
+        jobService = mock(ScreenshotJobService.class);
+        sessionCache = mock(GithubSessionCache.class);
+        when(sessionCache.lookup()).thenReturn(mock(GithubSessionCache.Session.class));
+        meterRegistry = new SimpleMeterRegistry();
+        batches = new ScreenshotBatchService(jobService, sessionCache, props, meterRegistry);
+        batches.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batches.shutdown();
+    }
+
+    @Test
+    void submit_runsItemsUpToTheCap_queuesWhatFits_andReportsTheRestInTheirSlot() throws Exception {
+
+        // Given: two items run, three wait, and the last two of seven do not fit
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(5);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        runJobs(req -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            running.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                finished.countDown();
+            }
+        });
+        List<ScreenshotRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 7; i++) requests.add(new ScreenshotRequest("user-" + i, "to@example.com", false));
+
+        // When
+        ScreenshotBatch result = batches.submit(new BatchScreenshotRequest(requests));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        // Then
+        assertEquals(7, result.items().size());
+        assertEquals(5, result.accepted());
+        assertEquals(2, result.rejected());
+        for (int i = 0; i < 7; i++) {
+            assertEquals(i, result.items().get(i).index());
+            assertEquals("user-" + i, result.items().get(i).githubUsername());
+        }
+        assertEquals("job-user-4", result.items().get(4).job().id());
+        ScreenshotBatch.Item refused = result.items().get(6);
+        assertNull(refused.job());
+        assertEquals("Screenshot job queue is full (3 waiting), retry later", refused.error());
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(2, peak.get());
+        assertEquals(2.0, meterRegistry.get("screenshot.batch.results").tag("outcome", "rejected").counter().count());
+
+    }
+
+    @Test
+    void submit_withoutCachedSession_startsTheOtherLoginItemsOnlyAfterTheFirstFinished() throws Exception {
+
+        // Given
+        when(sessionCache.lookup()).thenReturn(null);
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(3);
+        runJobs(req -> {
+            events.add("start " + req.githubUsername());
+            try {
+                Thread.sleep(30);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            events.add("end " + req.githubUsername());
+            finished.countDown();
+        });
+
+        // When
+        batches.submit(new BatchScreenshotRequest(List.of(
+                new ScreenshotRequest("first", "to@example.com", true),
+                new ScreenshotRequest("second", "to@example.com", true),
+                new ScreenshotRequest("third", "to@example.com", true))));
+
+        // Then
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("start first", "end first"), events.subList(0, 2));
+        assertEquals(6, events.size());
+
+    }
+
+    /** Lets the mocked job service run each job on the executor the batch hands it, as the real one does. */
+    private void runJobs(Consumer<ScreenshotRequest> work) {
+        when(jobService.submit(any(), any(), anyInt())).thenAnswer(inv -> {
+            ScreenshotRequest req = inv.getArgument(0);
+            Executor executor = inv.getArgument(1);
+            try {
+                executor.execute(() -> work.accept(req));
+            } catch (RejectedExecutionException ex) {
+                throw new JobQueueFullException(inv.getArgument(2));
+            }
+            return job(req.githubUsername());
+        });
+    }
+
+    private static ScreenshotJob job(String user) {
+        return ScreenshotJob.builder()
+                .id("job-" + user)
+                .githubUsername(user)
+                .stage(JobStage.QUEUED)
+                .submittedAt(LocalDateTime.now())
+                .build();
+    }
+
+}
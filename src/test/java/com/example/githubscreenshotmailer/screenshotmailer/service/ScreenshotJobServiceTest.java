@@ -0,0 +1,147 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.JobQueueFullException;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.ResourceNotFoundException;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotJob;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ScreenshotRecord;
+import com.example.githubscreenshotmailer.screenshotmailer.model.dto.request.ScreenshotRequest;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.JobStage;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ScreenshotStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ScreenshotJobServiceTest extends AbstractBaseServiceTest {
+
+    private static final ScreenshotRequest REQUEST = new ScreenshotRequest("octocat", "to@example.com", false);
+
+    private GithubAutomationProperties props;
+    private GithubScreenshotService screenshotService;
+    private SimpleMeterRegistry meterRegistry;
+    private ScreenshotJobService jobs;
+
+    @BeforeEach
+    void setup() {
+        props = new GithubAutomationProperties();
+        props.getJobs().setWorkers(1);
+        props.getJobs().setQueueCapacity(1);
+        screenshotService = mock(GithubScreenshotService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        jobs = new ScreenshotJobService(screenshotService, props, meterRegistry);
+        jobs.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_returnsQueuedJob_andWorkerReportsEachStageUntilSucceeded() throws Exception {
+
+        // Given
+        List<JobStage> seen = new CopyOnWriteArrayList<>();
+        AtomicReference<String> jobId = new AtomicReference<>();
+        CountDownLatch submitted = new CountDownLatch(1);
+        ScreenshotRecord record = new ScreenshotRecord("id-1", "octocat", "to@example.com", "a.png", "/tmp/a.png",
+                3, null, LocalDateTime.now(), ScreenshotStatus.SUCCESS);
+        when(screenshotService.processQueued(eq(REQUEST), any(Consumer.class))).thenAnswer(inv -> {
+            assertTrue(submitted.await(5, TimeUnit.SECONDS));
+            Consumer<JobStage> progress = inv.getArgument(1);
+            for (JobStage stage : List.of(JobStage.CAPTURING, JobStage.EMAILING, JobStage.PERSISTING)) {
+                progress.accept(stage);
+                seen.add(jobs.get(jobId.get()).stage());
+            }
+            return record;
+        });
+
+        // When
+        ScreenshotJob queued = jobs.submit(REQUEST);
+        jobId.set(queued.id());
+        submitted.countDown();
+        ScreenshotJob done = awaitFinished(queued.id());
+
+        // Then
+        assertEquals(JobStage.QUEUED, queued.stage());
+        assertEquals(List.of(JobStage.CAPTURING, JobStage.EMAILING, JobStage.PERSISTING), seen);
+        assertEquals(JobStage.SUCCEEDED, done.stage());
+        assertSame(record, done.result());
+        assertNotNull(done.startedAt());
+        assertNotNull(done.finishedAt());
+
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedProcessing_isReportedOnTheJob() throws Exception {
+
+        // Given
+        when(screenshotService.processQueued(eq(REQUEST), any(Consumer.class)))
+                .thenThrow(new ScreenshotCaptureException("boom", null));
+
+        // When
+        ScreenshotJob done = awaitFinished(jobs.submit(REQUEST).id());
+
+        // Then
+        assertEquals(JobStage.FAILED, done.stage());
+        assertTrue(done.error().contains("boom"));
+        assertNull(done.result());
+
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_rejectsWith503_whenWorkersAndQueueAreFull_andUnknownIdsAre404() throws Exception {
+
+        // Given: one job running, one waiting
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        when(screenshotService.processQueued(eq(REQUEST), any(Consumer.class))).thenAnswer(inv -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        jobs.submit(REQUEST);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        jobs.submit(REQUEST);
+
+        // When
+        JobQueueFullException ex = assertThrows(JobQueueFullException.class, () -> jobs.submit(REQUEST));
+
+        // Then
+        assertEquals(503, ex.getStatus().value());
+        assertEquals(1.0, meterRegistry.get("screenshot.jobs.rejected").counter().count());
+        assertThrows(ResourceNotFoundException.class, () -> jobs.get("missing"));
+        release.countDown();
+
+    }
+
+    private ScreenshotJob awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            ScreenshotJob job = jobs.get(id);
+            if (job.stage().isFinished()) return job;
+            Thread.sleep(10);
+        }
+        fail("job " + id + " did not finish");
+        return null;
+    }
+
+}
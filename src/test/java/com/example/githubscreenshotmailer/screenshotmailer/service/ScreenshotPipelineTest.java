@@ -0,0 +1,158 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.EmailSendException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScreenshotPipelineTest extends AbstractBaseServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ScreenshotPipeline pipeline;
+
+    @BeforeEach
+    void setup() {
+        GithubAutomationProperties props = new GithubAutomationProperties();
+        props.getPipeline().getCapture().setWorkers(1);
+        props.getPipeline().getMail().setWorkers(1);
+        props.getPipeline().getMail().setQueueCapacity(5);
+        meterRegistry = new SimpleMeterRegistry();
+        pipeline = new ScreenshotPipeline(props, meterRegistry);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void deliver_runsEachStageOnItsOwnWorkers_andRecordsStageTimings() {
+
+        // Given
+        List<String> threads = new CopyOnWriteArrayList<>();
+
+        // When
+        String result = pipeline.deliver(
+                pipeline.capture(() -> { threads.add(Thread.currentThread().getName()); return "file"; }),
+                file -> { threads.add(Thread.currentThread().getName()); return file + "+mailed"; },
+                mailed -> { threads.add(Thread.currentThread().getName()); return mailed + "+saved"; }).join();
+
+        // Then
+        assertEquals("file+mailed+saved", result);
+        assertTrue(threads.get(0).startsWith("screenshot-capture-"));
+        assertTrue(threads.get(1).startsWith("screenshot-mail-"));
+        assertTrue(threads.get(2).startsWith("screenshot-persist-"));
+        for (String stage : List.of("capture", "mail", "persist")) {
+            assertEquals(1, meterRegistry.get("screenshot.pipeline.duration").tag("stage", stage).timer().count());
+            assertEquals(1, meterRegistry.get("screenshot.pipeline.wait").tag("stage", stage).timer().count());
+        }
+
+    }
+
+    @Test
+    void slowMail_doesNotHoldTheCaptureWorker() throws Exception {
+
+        // Given: the only mail worker is stuck
+        CountDownLatch smtp = new CountDownLatch(1);
+        AtomicInteger captured = new AtomicInteger();
+
+        // When
+        List<CompletableFuture<Integer>> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(pipeline.deliver(
+                    pipeline.capture(captured::incrementAndGet),
+                    n -> { await(smtp); return n; },
+                    n -> n));
+        }
+
+        // Then: the single capture worker got through all three while mail is blocked
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mailQueue() < 2 && System.nanoTime() < deadline) Thread.sleep(10);
+        assertEquals(3, captured.get());
+        assertEquals(2.0, mailQueue());
+        assertTrue(results.stream().noneMatch(CompletableFuture::isDone));
+
+        smtp.countDown();
+        assertEquals(List.of(1, 2, 3), results.stream().map(CompletableFuture::join).sorted().toList());
+
+    }
+
+    @Test
+    void failingStage_skipsTheRest_andCompletesWithItsException() {
+
+        // Given
+        AtomicInteger persisted = new AtomicInteger();
+
+        // When
+        CompletableFuture<Object> result = pipeline.deliver(
+                pipeline.capture(() -> "file"),
+                file -> { throw new EmailSendException("SMTP down", null); },
+                mailed -> persisted.incrementAndGet());
+
+        // Then
+        CompletionException ex = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(EmailSendException.class, ex.getCause());
+        assertEquals(0, persisted.get());
+
+    }
+
+    @Test
+    void mail_sendsOnTheMailWorkers_behindTheScreenshotEmails() throws Exception {
+
+        // Given: the only mail worker is busy with a screenshot email
+        CountDownLatch smtp = new CountDownLatch(1);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        CompletableFuture<Object> screenshot = pipeline.deliver(
+                pipeline.capture(() -> "file"),
+                file -> { await(smtp); sent.add("screenshot"); return file; },
+                mailed -> mailed);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mailActive() < 1 && System.nanoTime() < deadline) Thread.sleep(10);
+
+        // When
+        CompletableFuture<Void> challenge = pipeline.mail(() -> sent.add(Thread.currentThread().getName()));
+
+        // Then
+        while (mailQueue() < 1 && System.nanoTime() < deadline) Thread.sleep(10);
+        assertEquals(1.0, mailQueue());
+        assertFalse(challenge.isDone());
+
+        smtp.countDown();
+        challenge.join();
+        screenshot.join();
+        assertEquals("screenshot", sent.get(0));
+        assertTrue(sent.get(1).startsWith("screenshot-mail-"));
+
+    }
+
+    private double mailActive() {
+        return meterRegistry.get("screenshot.pipeline.active").tag("stage", "mail").gauge().value();
+    }
+
+    private double mailQueue() {
+        return meterRegistry.get("screenshot.pipeline.queue").tag("stage", "mail").gauge().value();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -2,12 +2,18 @@ package com.example.githubscreenshotmailer.screenshotmailer.service;
 
 import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
 import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.exception.BrowserCrashedException;
 import com.example.githubscreenshotmailer.screenshotmailer.exception.GithubLoginException;
 import com.example.githubscreenshotmailer.screenshotmailer.exception.ScreenshotCaptureException;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.model.GithubPageState;
+import com.example.githubscreenshotmailer.screenshotmailer.model.ProfileShot;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ProfileTab;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ViewportPreset;
 import com.example.githubscreenshotmailer.screenshotmailer.utils.FileUtil;
 import com.example.githubscreenshotmailer.screenshotmailer.utils.GithubDomUtil;
-import com.example.githubscreenshotmailer.screenshotmailer.utils.GithubMobileUtil;
 import com.example.githubscreenshotmailer.screenshotmailer.utils.ScreenshotUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,8 +23,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedConstruction;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.openqa.selenium.*;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
@@ -26,6 +35,11 @@ import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -33,6 +47,12 @@ import static org.mockito.Mockito.*;
 
 class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
 
+    // Page states returned by the mocked in-page probe
+    private static final GithubPageState ANONYMOUS = GithubPageState.UNKNOWN;
+    private static final GithubPageState LOGGED_IN = new GithubPageState(true, false, false, false, null);
+    private static final GithubPageState OTP       = new GithubPageState(false, true, false, false, null);
+    private static final GithubPageState MOBILE    = new GithubPageState(false, false, true, false, null);
+
     @InjectMocks
     private SeleniumAutomationService service;
 
@@ -42,6 +62,30 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
     @Mock
     MailService mailService;
 
+    @Mock
+    ChromeDriverPool driverPool;
+
+    @Mock
+    GithubSessionCache sessionCache;
+
+    @Mock
+    ResourceBlocker resourceBlocker;
+
+    @Mock
+    PageReadiness pageReadiness;
+
+    @Mock
+    BrowserCrashWatcher crashWatcher;
+
+    @Mock
+    CaptureEngine captureEngine;
+
+    @Spy
+    AdmissionControl admission = new AdmissionControl(new GithubAutomationProperties(), new SimpleMeterRegistry());
+
+    @Spy
+    ScreenshotPipeline pipeline = new ScreenshotPipeline(new GithubAutomationProperties(), new SimpleMeterRegistry());
+
     @TempDir
     Path tempDir;
 
@@ -53,12 +97,12 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
     MockedConstruction<WebDriverWait> waitConstr;
 
     MockedStatic<GithubDomUtil> domStatic;
-    MockedStatic<GithubMobileUtil> mobileStatic;
     MockedStatic<ScreenshotUtil> screenshotStatic;
     MockedStatic<FileUtil> fileUtilStatic;
 
     @BeforeEach
-    void setup() {
+    void setup() throws Exception {
+        pipeline.start();
         when(props.isHeadless()).thenReturn(true);
         when(props.getMobileApprovalTimeoutSeconds()).thenReturn(35);
         when(props.getMobilePollingIntervalSeconds()).thenReturn(1);
@@ -66,6 +110,19 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         when(props.getLoginEmail()).thenReturn("user@example.com");
         when(props.getLoginPassword()).thenReturn("secret");
 
+        // Readiness is covered by PageReadinessTest; here it only navigates
+        doAnswer(inv -> {
+            ((WebDriver) inv.getArgument(0)).get(inv.getArgument(1));
+            return null;
+        }).when(pageReadiness).navigate(any(), anyString());
+
+        // Mocked drivers expose no DevTools, so a real watch never sees a crash
+        BrowserCrashWatcher realWatcher = new BrowserCrashWatcher(new SimpleMeterRegistry());
+        when(crashWatcher.watch(any())).thenAnswer(inv -> realWatcher.watch(inv.getArgument(0)));
+
+        // The pool hands out whatever ChromeDriver the active MockedConstruction produces
+        when(driverPool.borrow()).thenAnswer(inv -> new ChromeDriver());
+
         // Intercept all WebDriverWait constructions and short-circuit until(...)
         waitConstr = mockConstruction(WebDriverWait.class, (mock, ctx) -> {
             when(mock.until(any())).thenReturn(true);
@@ -89,17 +146,13 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
 
         // Mock all static utility classes used inside the SUT
         domStatic = mockStatic(GithubDomUtil.class);
-        mobileStatic = mockStatic(GithubMobileUtil.class);
         screenshotStatic = mockStatic(ScreenshotUtil.class);
         fileUtilStatic = mockStatic(FileUtil.class);
 
         // Default stubs for static utils
         domStatic.when(GithubDomUtil::pageLoaded)
                 .thenReturn((ExpectedCondition<Boolean>) (driver -> true));
-        domStatic.when(() -> GithubDomUtil.isLoggedIn(any())).thenReturn(false);
-        domStatic.when(() -> GithubDomUtil.isMobileVerificationPage(any())).thenReturn(false);
-        domStatic.when(() -> GithubDomUtil.isOtpPage(any())).thenReturn(false);
-        domStatic.when(() -> GithubDomUtil.hasFlashError(any())).thenReturn(false);
+        domStatic.when(() -> GithubDomUtil.probe(any())).thenReturn(ANONYMOUS);
         domStatic.when(() -> GithubDomUtil.clickIfPresent(any(), any())).thenReturn(false);
         domStatic.when(() -> GithubDomUtil.clickIfPresent(any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(false);
@@ -107,17 +160,21 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         // no-op sleep
         domStatic.when(() -> GithubDomUtil.sleep(anyLong())).then(inv -> null);
 
-        mobileStatic.when(() -> GithubMobileUtil.extractMobileApprovalDigit(any())).thenReturn(null);
-
         screenshotStatic.when(() -> ScreenshotUtil.captureFullPagePng(any())).thenReturn("PNG".getBytes());
+        // Behave like the default WebDriver engine
+        when(captureEngine.capture(any(), any(), any())).thenAnswer(inv -> {
+            byte[] png = ScreenshotUtil.captureFullPagePng(inv.getArgument(0));
+            Files.write(inv.<Path>getArgument(1), png);
+            return (long) png.length;
+        });
 
         fileUtilStatic.when(() -> FileUtil.ensureDailyDir(any())).thenAnswer(inv -> inv.getArgument(0));
     }
 
     @AfterEach
     void tearDown() {
+        pipeline.shutdown();
         if (domStatic != null) domStatic.close();
-        if (mobileStatic != null) mobileStatic.close();
         if (screenshotStatic != null) screenshotStatic.close();
         if (fileUtilStatic != null) fileUtilStatic.close();
         if (chromeConstr != null) chromeConstr.close();
@@ -149,8 +206,8 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         verify(driver).get("https://github.com/octocat");
         // Screenshot taken via static util
         screenshotStatic.verify(() -> ScreenshotUtil.captureFullPagePng(driver));
-        // Ensure quit
-        verify(driver).quit();
+        // Ensure the browser went back to the pool
+        verify(driverPool).release(driver);
     }
 
     @Test
@@ -187,7 +244,7 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         domStatic.when(() -> GithubDomUtil.type(pwField, "secret")).then(inv -> null);
 
         // After submit, consider logged in
-        domStatic.when(() -> GithubDomUtil.isLoggedIn(any())).thenReturn(true);
+        domStatic.when(() -> GithubDomUtil.probe(any())).thenReturn(LOGGED_IN);
 
         Path out = tempDir.resolve("ok.png");
 
@@ -199,7 +256,107 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         verify(driver).get("https://github.com/login");
         verify(commit).click();
         verify(driver).get("https://github.com/octo");
-        verify(driver).quit();
+        verify(sessionCache).store(driver);
+        verify(driverPool).release(driver);
+    }
+
+    @Test
+    void capture_withLogin_cachedSessionAccepted_skipsLoginFlow() {
+        // Given
+        when(sessionCache.restoreSession(any())).thenReturn(mock(GithubSessionCache.Session.class));
+        domStatic.when(() -> GithubDomUtil.probe(any())).thenReturn(LOGGED_IN);
+
+        Path out = tempDir.resolve("cached.png");
+
+        // When
+        Path result = service.captureProfileScreenshot("octo", out, true);
+
+        // Then
+        assertEquals(out, result);
+        verify(driver, never()).get("https://github.com/login");
+        verify(driver, times(1)).get("https://github.com/octo");
+        verify(sessionCache, never()).invalidate(any());
+        verify(sessionCache, never()).store(any());
+        verify(driverPool).release(driver);
+    }
+
+    @Test
+    void captureMany_sharesOneSession_navigatesPerPage_andResetsEmulatedViewport() throws Exception {
+        // Given
+        when(sessionCache.restoreSession(any())).thenReturn(mock(GithubSessionCache.Session.class));
+        domStatic.when(() -> GithubDomUtil.probe(any())).thenReturn(LOGGED_IN);
+
+        CaptureOptions mobile = CaptureOptions.PNG.withViewport(ViewportPreset.MOBILE);
+        List<ProfileShot> shots = List.of(
+                new ProfileShot(ProfileTab.OVERVIEW, CaptureOptions.PNG, tempDir.resolve("a.png")),
+                new ProfileShot(ProfileTab.OVERVIEW, mobile, tempDir.resolve("b.png")),
+                new ProfileShot(ProfileTab.REPOSITORIES, mobile, tempDir.resolve("c.png")));
+
+        // When
+        List<Path> result = service.captureProfileScreenshots("octo", shots, true, null);
+
+        // Then
+        assertEquals(shots.stream().map(ProfileShot::file).toList(), result);
+        assertTrue(result.stream().allMatch(Files::exists));
+        verify(driverPool, times(1)).borrow();
+        verify(sessionCache, times(1)).restoreSession(any());
+        verify(driver, times(1)).get("https://github.com/octo");
+        verify(driver, times(1)).get("https://github.com/octo?tab=repositories");
+        verify(captureEngine, times(3)).capture(eq(driver), any(), any());
+        screenshotStatic.verify(() -> ScreenshotUtil.emulateViewport(driver, ViewportPreset.MOBILE), times(1));
+        screenshotStatic.verify(() -> ScreenshotUtil.clearViewport(driver), times(1));
+        verify(driverPool).release(driver);
+    }
+
+    @Test
+    void capture_withLogin_cachedSessionRejected_invalidatesAndLogsInAgain() {
+        // Reset per-test constructions
+        if (waitConstr != null) waitConstr.close();
+        if (chromeConstr != null) chromeConstr.close();
+
+        WebElement loginField = mock(WebElement.class);
+        WebElement pwField    = mock(WebElement.class);
+        WebElement commit     = mock(WebElement.class);
+
+        // Profile page loads go through PageReadiness, so the only wait is the login form + post-submit OR(...)
+        waitConstr = mockConstruction(WebDriverWait.class, (mock, ctx) -> {
+            if (ctx.getCount() == 1) {
+                when(mock.until(any()))
+                        .thenReturn(loginField)
+                        .thenReturn(pwField)
+                        .thenReturn(true);
+            } else {
+                when(mock.until(any())).thenReturn(true);
+            }
+        });
+
+        chromeConstr = mockConstruction(ChromeDriver.class, (mock, ctx) -> {
+            this.driver = mock;
+            when(mock.findElement(argThat(by -> by.toString().contains("input[name='commit']"))))
+                    .thenReturn(commit);
+            when(mock.findElements(any())).thenReturn(Collections.emptyList());
+        });
+
+        // First restore (before navigation) succeeds, the one under the login lock finds nothing
+        GithubSessionCache.Session restored = mock(GithubSessionCache.Session.class);
+        when(sessionCache.restoreSession(any())).thenReturn(restored);
+        when(sessionCache.restore(any())).thenReturn(false);
+        // The profile opened with the cached session is anonymous, the pages after the new login are not
+        domStatic.when(() -> GithubDomUtil.probe(any())).thenReturn(ANONYMOUS, LOGGED_IN);
+
+        Path out = tempDir.resolve("relogin.png");
+
+        // When
+        Path result = service.captureProfileScreenshot("octo", out, true);
+
+        // Then
+        assertEquals(out, result);
+        verify(sessionCache).invalidate(restored);
+        verify(driver).get("https://github.com/login");
+        verify(commit).click();
+        verify(sessionCache).store(driver);
+        verify(driver, times(2)).get("https://github.com/octo");
+        verify(driverPool).release(driver);
     }
 
     @Test
@@ -238,17 +395,11 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         domStatic.when(() -> GithubDomUtil.type(loginField, "user@example.com")).then(inv -> null);
         domStatic.when(() -> GithubDomUtil.type(pwField, "secret")).then(inv -> null);
 
-        // Flow: not logged in → mobile verification screen
-        // Make login become true on the next loop iteration (deterministic, avoids timeout)
-        domStatic.when(() -> GithubDomUtil.isLoggedIn(any()))
-                .thenReturn(false)  // first check
-                .thenReturn(true);  // second check -> exit loop
-
-        domStatic.when(() -> GithubDomUtil.isMobileVerificationPage(any())).thenReturn(true);
-        domStatic.when(() -> GithubDomUtil.isOtpPage(any())).thenReturn(false);
-
-        // digit shown on the mobile challenge
-        mobileStatic.when(() -> GithubMobileUtil.extractMobileApprovalDigit(any())).thenReturn("3");
+        // Flow: not logged in → mobile verification screen showing digit 3,
+        // then logged in on the first probe of the wait loop (deterministic, avoids timeout)
+        domStatic.when(() -> GithubDomUtil.probe(any()))
+                .thenReturn(new GithubPageState(false, false, true, false, "3"))
+                .thenReturn(LOGGED_IN);
 
         // We don't need clickIfPresent to flip any state anymore; keep it permissive
         domStatic.when(() -> GithubDomUtil.clickIfPresent(any(), any(), any(), any(), any(), any(), any()))
@@ -265,9 +416,11 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
                 contains("Mobile sign-in challenge"),
                 contains("digit: 3"),
                 any());
+        // Sent on the mail workers, under the same SMTP limit as the screenshot emails
+        verify(pipeline).mail(any());
 
         verify(commit).click();
-        verify(driver).quit();
+        verify(driverPool).release(driver);
     }
 
     @Test
@@ -306,18 +459,11 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         domStatic.when(() -> GithubDomUtil.type(pwField, "secret")).then(inv -> null);
 
         // We want to hit the OTP branch and then switch to Mobile
-        domStatic.when(() -> GithubDomUtil.isLoggedIn(any()))
-                .thenReturn(false)   // initial checks
-                .thenReturn(true);   // after wait loop starts, we become logged in
-
-        // IMPORTANT: Start on OTP page
-        domStatic.when(() -> GithubDomUtil.isOtpPage(any()))
-                .thenReturn(true);   // stay true long enough to enter the OTP branch
-
-        // IMPORTANT: Not on mobile verification yet, but become mobile verification after clicking the link
-        domStatic.when(() -> GithubDomUtil.isMobileVerificationPage(any()))
-                .thenReturn(false)   // first check (before trySwitch...) -> not mobile yet
-                .thenReturn(true);   // check inside trySwitch after link.click() -> now mobile page
+        domStatic.when(() -> GithubDomUtil.probe(any()))
+                .thenReturn(OTP)        // after submit: OTP page
+                .thenReturn(MOBILE)     // inside trySwitch after link.click() -> now mobile page
+                .thenReturn(MOBILE)     // digit lookup for the challenge email
+                .thenReturn(LOGGED_IN); // wait loop starts, we become logged in
 
         // trySwitchToMobileFromOtp(): return a link for ANY candidate text so a click definitely occurs
         WebElement link = mock(WebElement.class);
@@ -327,7 +473,7 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
 
         // During waitForMobileApproval, trigger immediate re-check path
         domStatic.when(() -> GithubDomUtil.clickIfPresent(any(), any(), any(), any(), any(), any(), any()))
-                .thenReturn(true); // so code re-checks isLoggedIn() right away
+                .thenReturn(true); // so code re-probes the page right away
 
         Path out = tempDir.resolve("ok3.png");
 
@@ -339,7 +485,7 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         // verify the OTP -> "Use GitHub Mobile" link click happened
         verify(link).click();
         verify(commit).click();
-        verify(driver).quit();
+        verify(driverPool).release(driver);
     }
 
     @Test
@@ -376,10 +522,8 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         domStatic.when(() -> GithubDomUtil.type(pwField, "secret")).then(inv -> null);
 
         // After submit: not logged in, we land on OTP page, and cannot switch to Mobile
-        domStatic.when(() -> GithubDomUtil.isLoggedIn(any())).thenReturn(false);
-        domStatic.when(() -> GithubDomUtil.isOtpPage(any())).thenReturn(true);
+        domStatic.when(() -> GithubDomUtil.probe(any())).thenReturn(OTP);
         domStatic.when(() -> GithubDomUtil.findByTextContains(any(), anyString())).thenReturn(null); // no "Use GitHub Mobile" link
-        domStatic.when(() -> GithubDomUtil.isMobileVerificationPage(any())).thenReturn(false);
 
         Path out = tempDir.resolve("fail.png");
 
@@ -390,7 +534,156 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
 
         assertTrue(ex.getMessage().contains("2FA code requested"));
         verify(commit).click();
-        verify(driver).quit();
+        verify(driverPool).release(driver);
+    }
+
+    @Test
+    void capture_withLogin_otpPage_withTotpSecret_submitsGeneratedCode_and_ok() {
+        // Reset per-test constructions
+        if (waitConstr != null) waitConstr.close();
+        if (chromeConstr != null) chromeConstr.close();
+
+        when(props.getTotpSecret()).thenReturn("GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ");
+
+        WebElement loginField = mock(WebElement.class);
+        WebElement pwField    = mock(WebElement.class);
+        WebElement commit     = mock(WebElement.class);
+        WebElement otpInput   = mock(WebElement.class);
+
+        waitConstr = mockConstruction(WebDriverWait.class, (mock, ctx) -> {
+            when(mock.until(any()))
+                    .thenReturn(loginField)  // presenceOfElementLocated(login_field)
+                    .thenReturn(pwField)     // presenceOfElementLocated(password)
+                    .thenReturn(true);       // OR(...) after submit, and any later wait
+        });
+
+        chromeConstr = mockConstruction(ChromeDriver.class, (mock, ctx) -> {
+            this.driver = mock;
+            when(mock.findElement(argThat(by -> by != null && by.toString().contains("input[name='commit']"))))
+                    .thenReturn(commit);
+            when(mock.findElement(argThat(by -> by != null && by.toString().contains("input#otp"))))
+                    .thenReturn(otpInput);
+            when(mock.findElements(any())).thenReturn(Collections.emptyList());
+        });
+
+        domStatic.when(() -> GithubDomUtil.type(loginField, "user@example.com")).then(inv -> null);
+        domStatic.when(() -> GithubDomUtil.type(pwField, "secret")).then(inv -> null);
+        domStatic.when(() -> GithubDomUtil.type(eq(otpInput), anyString())).then(inv -> null);
+
+        // Land on the OTP form, become logged in once the code is submitted
+        domStatic.when(() -> GithubDomUtil.probe(any()))
+                .thenReturn(OTP)         // after submit
+                .thenReturn(ANONYMOUS)   // form auto-submitted, no Verify click needed
+                .thenReturn(LOGGED_IN);
+
+        Path out = tempDir.resolve("totp.png");
+
+        // When
+        Path res = service.captureProfileScreenshot("octo", out, true);
+
+        // Then
+        assertEquals(out, res);
+        domStatic.verify(() -> GithubDomUtil.type(eq(otpInput), argThat(code -> code.matches("^\\d{6}$"))));
+        verify(mailService, never()).sendScreenshot(anyString(), anyString(), anyString(), any());
+        domStatic.verify(() -> GithubDomUtil.findByTextContains(any(), anyString()), never());
+        verify(driverPool).release(driver);
+    }
+
+    @Test
+    void capture_withLogin_mobilePage_withTotpSecret_switchesToAuthenticatorApp() {
+        // Reset per-test constructions
+        if (waitConstr != null) waitConstr.close();
+        if (chromeConstr != null) chromeConstr.close();
+
+        when(props.getTotpSecret()).thenReturn("GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ");
+
+        WebElement loginField = mock(WebElement.class);
+        WebElement pwField    = mock(WebElement.class);
+        WebElement commit     = mock(WebElement.class);
+        WebElement otpInput   = mock(WebElement.class);
+        WebElement appLink    = mock(WebElement.class);
+
+        waitConstr = mockConstruction(WebDriverWait.class, (mock, ctx) -> {
+            when(mock.until(any()))
+                    .thenReturn(loginField)
+                    .thenReturn(pwField)
+                    .thenReturn(true);
+        });
+
+        chromeConstr = mockConstruction(ChromeDriver.class, (mock, ctx) -> {
+            this.driver = mock;
+            when(mock.findElement(argThat(by -> by != null && by.toString().contains("input[name='commit']"))))
+                    .thenReturn(commit);
+            when(mock.findElement(argThat(by -> by != null && by.toString().contains("input#otp"))))
+                    .thenReturn(otpInput);
+            when(mock.findElements(any())).thenReturn(Collections.emptyList());
+        });
+
+        domStatic.when(() -> GithubDomUtil.type(any(), anyString())).then(inv -> null);
+        domStatic.when(() -> GithubDomUtil.findByTextContains(any(), eq("use your authenticator app")))
+                .thenReturn(appLink);
+
+        // Mobile page first; after clicking the authenticator link the OTP form shows up
+        domStatic.when(() -> GithubDomUtil.probe(any()))
+                .thenReturn(MOBILE)
+                .thenReturn(OTP)         // inside trySwitch after the click
+                .thenReturn(OTP)         // state machine re-probes after switching
+                .thenReturn(OTP)         // still on the form after typing -> press Verify
+                .thenReturn(LOGGED_IN);
+
+        Path out = tempDir.resolve("totp2.png");
+
+        // When
+        Path res = service.captureProfileScreenshot("octo", out, true);
+
+        // Then
+        assertEquals(out, res);
+        verify(appLink).click();
+        domStatic.verify(() -> GithubDomUtil.type(eq(otpInput), anyString()));
+        verify(mailService, never()).sendScreenshot(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void capture_withLogin_otpPage_withTotpSecret_rejected_throws() {
+        // Reset per-test constructions
+        if (waitConstr != null) waitConstr.close();
+        if (chromeConstr != null) chromeConstr.close();
+
+        when(props.getTotpSecret()).thenReturn("GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ");
+
+        WebElement loginField = mock(WebElement.class);
+        WebElement pwField    = mock(WebElement.class);
+        WebElement commit     = mock(WebElement.class);
+
+        waitConstr = mockConstruction(WebDriverWait.class, (mock, ctx) -> {
+            when(mock.until(any()))
+                    .thenReturn(loginField)
+                    .thenReturn(pwField)
+                    .thenReturn(true);
+        });
+
+        chromeConstr = mockConstruction(ChromeDriver.class, (mock, ctx) -> {
+            this.driver = mock;
+            when(mock.findElement(argThat(by -> by != null && by.toString().contains("input[name='commit']"))))
+                    .thenReturn(commit);
+            when(mock.findElement(argThat(by -> by != null && by.toString().contains("input#otp"))))
+                    .thenReturn(mock(WebElement.class));
+            when(mock.findElements(any())).thenReturn(Collections.emptyList());
+        });
+
+        domStatic.when(() -> GithubDomUtil.probe(any()))
+                .thenReturn(new GithubPageState(false, true, false, true, null));
+
+        Path out = tempDir.resolve("totp3.png");
+
+        GithubLoginException ex = assertThrows(
+                GithubLoginException.class,
+                () -> service.captureProfileScreenshot("octo", out, true)
+        );
+
+        assertTrue(ex.getMessage().contains("TOTP code was not accepted"));
+        verify(sessionCache, never()).store(any());
+        verify(driverPool).release(driver);
     }
 
     @Test
@@ -414,7 +707,7 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         // ChromeDriver mock created by SUT; capture it and stub commit lookup
         chromeConstr = mockConstruction(ChromeDriver.class, (mock, ctx) -> {
             this.driver = mock;
-            when(mock.findElement(argThat(by -> by.toString().contains("input[name='commit']"))))
+            when(mock.findElement(argThat(by -> by != null && by.toString().contains("input[name='commit']"))))
                     .thenReturn(commit);
             when(mock.findElements(any())).thenReturn(Collections.emptyList());
         });
@@ -424,10 +717,8 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         domStatic.when(() -> GithubDomUtil.type(pwField, "secret")).then(inv -> null);
 
         // Force the "invalid credentials" branch with broad matchers (any driver instance)
-        domStatic.when(() -> GithubDomUtil.isLoggedIn(any())).thenReturn(false);
-        domStatic.when(() -> GithubDomUtil.isMobileVerificationPage(any())).thenReturn(false);
-        domStatic.when(() -> GithubDomUtil.isOtpPage(any())).thenReturn(false);
-        domStatic.when(() -> GithubDomUtil.hasFlashError(any())).thenReturn(true);
+        domStatic.when(() -> GithubDomUtil.probe(any()))
+                .thenReturn(new GithubPageState(false, false, false, true, null));
 
         Path out = tempDir.resolve("fail2.png");
 
@@ -445,9 +736,9 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         );
 
         verify(commit).click();
-        // Verify we actually checked the flash error at least once (on some driver)
-        domStatic.verify(() -> GithubDomUtil.hasFlashError(any()), atLeastOnce());
-        verify(driver).quit();
+        // Verify the decision came from a single page probe
+        domStatic.verify(() -> GithubDomUtil.probe(any()), times(1));
+        verify(driverPool).release(driver);
     }
 
     @Test
@@ -459,7 +750,7 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         GithubLoginException ex = assertThrows(GithubLoginException.class,
                 () -> service.captureProfileScreenshot("x", out, true));
         assertTrue(ex.getMessage().contains("loginEmail/loginPassword not provided"));
-        verify(driver).quit();
+        verify(driverPool).release(driver);
     }
 
     @Test
@@ -491,7 +782,7 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         assertTrue(ex.getMessage().contains("WebDriver failed during capture"));
 
         // Verify
-        verify(driver).quit();
+        verify(driverPool).invalidate(driver);
 
     }
 
@@ -518,7 +809,7 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         );
 
         // Verify
-        verify(driver).quit();
+        verify(driverPool).release(driver);
 
     }
 
@@ -544,7 +835,7 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         // ChromeDriver: capture the instance the SUT creates and stub commit lookup on THAT instance
         chromeConstr = mockConstruction(ChromeDriver.class, (mock, ctx) -> {
             this.driver = mock;
-            when(mock.findElement(argThat(by -> by.toString().contains("input[name='commit']"))))
+            when(mock.findElement(argThat(by -> by != null && by.toString().contains("input[name='commit']"))))
                     .thenReturn(commit);
             when(mock.findElements(any())).thenReturn(Collections.emptyList());
             WebDriver.Navigation nav = mock(WebDriver.Navigation.class);
@@ -567,7 +858,7 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
                 "Expected timeout message, got: " + ex.getMessage()
         );
         verify(commit).click();
-        verify(driver).quit();
+        verify(driverPool).release(driver);
     }
 
     @Test
@@ -603,8 +894,8 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
                 "Expected message to contain 'login form not found' but was: " + ex.getMessage()
         );
 
-        // The driver created by the SUT should still be quit in finally
-        verify(driver).quit();
+        // The driver borrowed by the SUT should still be returned in finally
+        verify(driverPool).release(driver);
 
     }
 
@@ -647,9 +938,7 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         doNothing().when(nav).to(anyString());
 
         // Broad stubs so they always match, forcing the timeout path
-        domStatic.when(() -> GithubDomUtil.isLoggedIn(any())).thenReturn(false);
-        domStatic.when(() -> GithubDomUtil.isOtpPage(any())).thenReturn(false);
-        domStatic.when(() -> GithubDomUtil.isMobileVerificationPage(any())).thenReturn(true);
+        domStatic.when(() -> GithubDomUtil.probe(any())).thenReturn(MOBILE);
         domStatic.when(() -> GithubDomUtil.clickIfPresent(any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(false);
         // (setup() already made GithubDomUtil.sleep(...) a no-op, and WebDriverWait.until(...) returns true)
@@ -671,6 +960,48 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         assertTrue(real instanceof GithubLoginException,
                 "Expected cause to be GithubLoginException but was: " + real);
         assertTrue(real.getMessage().contains("timed out"));
+        // Waiting never reloads the challenge page; only the final check navigates once
+        verify(nav, never()).refresh();
+        verify(nav, times(1)).to("https://github.com/");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void waitForMobileApproval_wakesOnDevToolsNavigation_withoutPolling() {
+        // Given: a browser whose DevTools reports the post-approval navigation
+        ChromeDriver localDriver = mock(ChromeDriver.class);
+        when(localDriver.findElements(any())).thenReturn(Collections.emptyList());
+        DevTools devTools = mock(DevTools.class);
+        when(localDriver.maybeGetDevTools()).thenReturn(Optional.of(devTools));
+        Map<String, Consumer<Map<String, Object>>> listeners = new HashMap<>();
+        doAnswer(inv -> {
+            listeners.put(((Event<?>) inv.getArgument(0)).getMethod(), inv.getArgument(1));
+            return null;
+        }).when(devTools).addListener(any(Event.class), any(Consumer.class));
+
+        // The user approves while the wait is parked: Chrome reports the main-frame navigation
+        domStatic.when(() -> GithubDomUtil.clickIfPresent(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> {
+                    listeners.get("Page.frameNavigated")
+                            .accept(Map.of("frame", Map.of("id", "main", "url", "https://github.com/")));
+                    return false;
+                });
+
+        domStatic.when(() -> GithubDomUtil.probe(any()))
+                .thenReturn(MOBILE)      // challenge still shown when the wait starts
+                .thenReturn(LOGGED_IN);  // re-probed right after the navigation event
+
+        // When
+        assertDoesNotThrow(() ->
+                invokePrivate(service, "waitForMobileApproval",
+                        new Class[]{WebDriver.class, String.class, String.class},
+                        localDriver, "user@example.com", "secret")
+        );
+
+        // Then
+        domStatic.verify(() -> GithubDomUtil.sleep(anyLong()), never());
+        domStatic.verify(() -> GithubDomUtil.probe(any()), times(2));
+        verify(localDriver, never()).navigate();
     }
 
     @Test
@@ -678,7 +1009,7 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         WebElement link = mock(WebElement.class);
         domStatic.when(() -> GithubDomUtil.findByTextContains(driver, "use github mobile")).thenReturn(link);
         doAnswer(inv -> null).when(link).click();
-        domStatic.when(() -> GithubDomUtil.isMobileVerificationPage(driver)).thenReturn(true);
+        domStatic.when(() -> GithubDomUtil.probe(any())).thenReturn(MOBILE);
 
         Boolean res = Assertions.assertDoesNotThrow(() -> {
             Method m = SeleniumAutomationService.class.getDeclaredMethod("trySwitchToMobileFromOtp", WebDriver.class);
@@ -721,8 +1052,61 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
         assertThrows(ScreenshotCaptureException.class,
                 () -> service.captureProfileScreenshot("any", out, false));
 
-        // Verify the constructed driver was quit in the finally block
-        verify(driver).quit();
+        // Verify the borrowed driver was discarded in the finally block
+        verify(driverPool).invalidate(driver);
+    }
+
+    @Test
+    void capture_browserCrashes_failsFast_andRetriesOnAnotherBrowser() {
+
+        // Given: the first browser's renderer crashes while the profile loads
+        BrowserCrashWatcher.Watch crashed = mock(BrowserCrashWatcher.Watch.class);
+        when(crashed.crashed()).thenReturn(true);
+        when(crashed.failure(any())).thenAnswer(inv -> new BrowserCrashedException("targetCrashed", inv.getArgument(0)));
+        BrowserCrashWatcher.Watch healthy = mock(BrowserCrashWatcher.Watch.class);
+        when(crashWatcher.watch(any())).thenReturn(crashed).thenReturn(healthy);
+
+        GithubAutomationProperties.Pool pool = new GithubAutomationProperties.Pool();
+        when(props.getPool()).thenReturn(pool);
+        doThrow(new WebDriverException("interrupted"))
+                .doAnswer(inv -> null)
+                .when(pageReadiness).navigate(any(), anyString());
+
+        Path out = tempDir.resolve("retried.png");
+
+        // When
+        Path result = service.captureProfileScreenshot("octocat", out, false);
+
+        // Then
+        assertEquals(out, result);
+        verify(driverPool, times(2)).borrow();
+        verify(driverPool).invalidate(any(), eq("crash"));
+        verify(driverPool, times(1)).release(any());
+        verify(crashed).close();
+        verify(healthy).close();
+
+    }
+
+    @Test
+    void capture_browserCrashesOnEveryAttempt_givesUpWithCrashException() {
+
+        // Given
+        BrowserCrashWatcher.Watch crashed = mock(BrowserCrashWatcher.Watch.class);
+        when(crashed.crashed()).thenReturn(true);
+        when(crashed.failure(any())).thenAnswer(inv -> new BrowserCrashedException("detached", inv.getArgument(0)));
+        when(crashWatcher.watch(any())).thenReturn(crashed);
+
+        GithubAutomationProperties.Pool pool = new GithubAutomationProperties.Pool();
+        pool.setCrashRetries(1);
+        when(props.getPool()).thenReturn(pool);
+        doThrow(new WebDriverException("interrupted")).when(pageReadiness).navigate(any(), anyString());
+
+        // When & Then
+        assertThrows(BrowserCrashedException.class,
+                () -> service.captureProfileScreenshot("octocat", tempDir.resolve("x.png"), false));
+        verify(driverPool, times(2)).invalidate(any(), eq("crash"));
+        verify(driverPool, never()).release(any());
+
     }
 
     @Test
@@ -781,13 +1165,9 @@ class SeleniumAutomationServiceTest extends AbstractBaseServiceTest {
 
         // --- Drive the control flow in waitForMobileApproval(...) ---
         // At loop start: not logged in; after shortWait.until(...) re-check, become logged in so it returns
-        domStatic.when(() -> GithubDomUtil.isLoggedIn(any()))
-                .thenReturn(false)  // first top-of-loop check
-                .thenReturn(true);  // after the short wait and re-check
-
-        // Ensure we don't short-circuit out of the loop via other branches
-        domStatic.when(() -> GithubDomUtil.isOtpPage(any())).thenReturn(false);
-        domStatic.when(() -> GithubDomUtil.isMobileVerificationPage(any())).thenReturn(false);
+        domStatic.when(() -> GithubDomUtil.probe(any()))
+                .thenReturn(ANONYMOUS)  // first top-of-loop check
+                .thenReturn(LOGGED_IN); // after the short wait and re-check
         domStatic.when(() -> GithubDomUtil.clickIfPresent(any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(false);
 
@@ -0,0 +1,223 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TiledCaptureTest {
+
+    @TempDir
+    Path tempDir;
+
+    private GithubAutomationProperties.Capture cfg;
+    private final List<Map<?, ?>> clips = new ArrayList<>();
+    private final List<Object> formats = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        cfg = new GithubAutomationProperties().getCapture();
+    }
+
+    /** Stands in for Chrome: renders each clip as a PNG of clip size times scale, filled by its y offset. */
+    private Map<String, Object> fakeChrome(String method, Map<String, Object> params) {
+        Map<?, ?> clip = (Map<?, ?>) params.get("clip");
+        clips.add(clip);
+        formats.add(params.get("format"));
+        double scale = ((Number) clip.get("scale")).doubleValue();
+        int w = (int) Math.ceil(((Number) clip.get("width")).doubleValue() * scale);
+        int h = (int) Math.ceil(((Number) clip.get("height")).doubleValue() * scale);
+        BufferedImage tile = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = tile.createGraphics();
+        g.setColor(((Number) clip.get("y")).doubleValue() == 0 ? Color.RED : Color.BLUE);
+        g.fillRect(0, 0, w, h);
+        g.dispose();
+        try {
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(tile, "png", png);
+            return Map.of("data", Base64.getEncoder().encodeToString(png.toByteArray()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Test
+    void pageUnderTheCap_isShotOnce_andNeedsNoClipsOnTheWebDriverPath() throws Exception {
+
+        // Given
+        TiledCapture tiled = new TiledCapture(this::fakeChrome, cfg);
+
+        // When
+        tiled.capture(320.4, 900, tempDir.resolve("shot.png"), CaptureOptions.PNG);
+
+        // Then
+        assertFalse(tiled.needed(900));
+        assertEquals(1, clips.size());
+        assertEquals(321.0, clips.get(0).get("width"));
+        assertEquals(900.0, clips.get(0).get("height"));
+        assertEquals(1.0, clips.get(0).get("scale"));
+
+    }
+
+    @Test
+    void pageOverTheCap_isCropped_orScaledDown() throws Exception {
+
+        // Given
+        cfg.setMaxPageHeight(1000);
+        TiledCapture tiled = new TiledCapture(this::fakeChrome, cfg);
+
+        // When
+        tiled.capture(200, 4000, tempDir.resolve("crop.png"), CaptureOptions.PNG);
+        cfg.setOverflow(GithubAutomationProperties.Capture.Overflow.SCALE);
+        tiled.capture(200, 4000, tempDir.resolve("scale.png"), CaptureOptions.PNG);
+
+        // Then
+        assertTrue(tiled.needed(4000));
+        assertEquals(1000.0, clips.get(0).get("height"));
+        assertEquals(1.0, clips.get(0).get("scale"));
+        assertEquals(4000.0, clips.get(1).get("height"));
+        assertEquals(0.25, clips.get(1).get("scale"));
+        assertEquals(1000, ImageIO.read(tempDir.resolve("scale.png").toFile()).getHeight());
+
+    }
+
+    @Test
+    void tiledMode_capturesFixedHeightClips_andStitchesThemInOrder() throws Exception {
+
+        // Given
+        cfg.setTileHeight(400);
+        Path target = tempDir.resolve("tiled.png");
+
+        // When
+        long size = new TiledCapture(this::fakeChrome, cfg).capture(100, 1000, target, CaptureOptions.PNG);
+
+        // Then
+        assertEquals(List.of(0.0, 400.0, 800.0), clips.stream().map(c -> c.get("y")).toList());
+        assertEquals(200.0, clips.get(2).get("height"));
+
+        BufferedImage page = ImageIO.read(target.toFile());
+        assertEquals(100, page.getWidth());
+        assertEquals(1000, page.getHeight());
+        assertEquals(Color.RED.getRGB(), page.getRGB(50, 399));
+        assertEquals(Color.BLUE.getRGB(), page.getRGB(50, 400));
+        assertEquals(Color.BLUE.getRGB(), page.getRGB(50, 999));
+        assertEquals(target.toFile().length(), size);
+
+    }
+
+    @Test
+    void tiledMode_stitchesLosslessTiles_andEncodesThePageOnceInTheRequestedFormat() throws Exception {
+
+        // Given
+        cfg.setTileHeight(400);
+        Path target = tempDir.resolve("tiled.jpg");
+
+        // When
+        new TiledCapture(this::fakeChrome, cfg).capture(100, 1000, target, new CaptureOptions(ImageFormat.JPEG, 70, false));
+
+        // Then
+        assertEquals(List.of("png", "png", "png"), formats);
+        BufferedImage page = ImageIO.read(target.toFile());
+        assertEquals(1000, page.getHeight());
+        assertEquals("jpeg", ImageIO.getImageReaders(ImageIO.createImageInputStream(target.toFile())).next()
+                .getFormatName().toLowerCase());
+
+    }
+
+    @Test
+    void tiledMode_encodesPngRowByRow_withoutLosingAPixel() throws Exception {
+
+        // Given: tiles whose every pixel depends on its place on the page, at a devicePixelRatio of 2
+        cfg.setTileHeight(70);
+        Path target = tempDir.resolve("pattern.png");
+        TiledCapture capture = new TiledCapture((method, params) -> {
+            Map<?, ?> clip = (Map<?, ?>) params.get("clip");
+            int top = (int) (((Number) clip.get("y")).doubleValue() * 2);
+            int w = (int) (((Number) clip.get("width")).doubleValue() * 2);
+            int h = (int) (((Number) clip.get("height")).doubleValue() * 2);
+            BufferedImage tile = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) tile.setRGB(x, y, pattern(x, top + y));
+            }
+            try {
+                ByteArrayOutputStream png = new ByteArrayOutputStream();
+                ImageIO.write(tile, "png", png);
+                return Map.of("data", Base64.getEncoder().encodeToString(png.toByteArray()));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, cfg);
+
+        // When
+        capture.capture(60, 250, target, CaptureOptions.PNG);
+
+        // Then
+        BufferedImage page = ImageIO.read(target.toFile());
+        assertEquals(120, page.getWidth());
+        assertEquals(500, page.getHeight());
+        for (int y = 0; y < 500; y++) {
+            for (int x = 0; x < 120; x++) {
+                assertEquals(pattern(x, y) & 0xffffff, page.getRGB(x, y) & 0xffffff, "pixel " + x + "," + y);
+            }
+        }
+
+    }
+
+    @Test
+    void tiledMode_scalesAStitchedJpegDown_whenItWouldExceedThePixelLimit() throws Exception {
+
+        // Given: a 100x1000 page may be stitched into 25,000 pixels at most
+        cfg.setTileHeight(400);
+        cfg.setMaxStitchedPixels(25_000);
+        Path target = tempDir.resolve("limited.jpg");
+
+        // When
+        new TiledCapture(this::fakeChrome, cfg).capture(100, 1000, target, new CaptureOptions(ImageFormat.JPEG, 70, false));
+
+        // Then: the first tile was taken again at half the scale
+        assertEquals(1.0, clips.getFirst().get("scale"));
+        assertEquals(0.5, ((Number) clips.get(1).get("scale")).doubleValue(), 0.001);
+        BufferedImage page = ImageIO.read(target.toFile());
+        assertEquals(50, page.getWidth());
+        assertEquals(500, page.getHeight());
+        assertTrue((long) page.getWidth() * page.getHeight() <= 25_000);
+
+    }
+
+    private static int pattern(int x, int y) {
+        return 0xff000000 | (x * 2 % 256) << 16 | (y % 256) << 8 | (x * y) % 251;
+    }
+
+    @Test
+    void tiledMode_takesWebpInOneClip_sinceItCannotBeStitched() throws Exception {
+
+        // Given
+        cfg.setTileHeight(400);
+
+        // When
+        new TiledCapture(this::fakeChrome, cfg).capture(100, 1000, tempDir.resolve("shot.webp"),
+                new CaptureOptions(ImageFormat.WEBP, 70, false));
+
+        // Then
+        assertEquals(1, clips.size());
+        assertEquals(List.of("webp"), formats);
+
+    }
+}
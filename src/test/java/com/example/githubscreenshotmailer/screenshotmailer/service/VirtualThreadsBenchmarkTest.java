@@ -0,0 +1,82 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test for the request-handling model: {@code requests} simulated requests that each block for
+ * {@code blockMillis} (standing in for WebDriver, SMTP and JDBC round trips), run on Tomcat's default 200
+ * platform threads, on a virtual thread per request, and on virtual threads that block inside
+ * {@code synchronized} and so stay pinned to their carrier. Prints peak concurrency and requests per second.
+ * Runs on demand only:
+ * {@code mvn test -Dtest=VirtualThreadsBenchmarkTest -Dvirtual.benchmark=true}
+ * (optionally {@code -Dvirtual.benchmark.requests=10000 -Dvirtual.benchmark.blockMillis=100};
+ * add {@code -Djdk.tracePinnedThreads=short} to see where the pinned run blocks).
+ */
+@EnabledIfSystemProperty(named = "virtual.benchmark", matches = "true")
+class VirtualThreadsBenchmarkTest {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Test
+    void platformPool_vsVirtualThreads_vsPinnedVirtualThreads() throws Exception {
+        int requests = Integer.getInteger("virtual.benchmark.requests", 2000);
+        long blockMillis = Long.getLong("virtual.benchmark.blockMillis", 20);
+
+        run("platform pool (200)", Executors.newFixedThreadPool(TOMCAT_MAX_THREADS), requests,
+                () -> block(blockMillis));
+        run("virtual", Executors.newVirtualThreadPerTaskExecutor(), requests,
+                () -> block(blockMillis));
+        Object[] monitors = new Object[requests];
+        for (int i = 0; i < requests; i++) monitors[i] = new Object();
+        AtomicInteger next = new AtomicInteger();
+        run("virtual, pinned", Executors.newVirtualThreadPerTaskExecutor(), requests, () -> {
+            synchronized (monitors[next.getAndIncrement()]) {
+                block(blockMillis);
+            }
+        });
+    }
+
+    private void run(String label, ExecutorService executor, int requests, Runnable request) throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        long start = System.nanoTime();
+        try (executor) {
+            List<Future<?>> handled = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                handled.add(executor.submit(() -> {
+                    peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        request.run();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : handled) future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        assertEquals(0, inFlight.get());
+
+        System.out.printf("%-20s %6d requests  peak %5d in flight  %9.1f requests/s%n",
+                label, requests, peak.get(), requests / seconds);
+    }
+
+    private static void block(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.example.githubscreenshotmailer.screenshotmailer.service;
+
+import com.example.githubscreenshotmailer.base.AbstractBaseServiceTest;
+import com.example.githubscreenshotmailer.screenshotmailer.config.GithubAutomationProperties;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureOptions;
+import com.example.githubscreenshotmailer.screenshotmailer.model.CaptureRegion;
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WebDriverCaptureEngineTest extends AbstractBaseServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final WebDriverCaptureEngine engine = new WebDriverCaptureEngine(new GithubAutomationProperties());
+
+    @Test
+    void capture_region_measuresWithOneScript_andSkipsTheFullPageMetricsOverride() throws Exception {
+
+        // Given
+        ChromeDriver driver = mock(ChromeDriver.class);
+        when(driver.executeScript(anyString(), eq(".h-card")))
+                .thenReturn(List.of(0L, 80L, 296L, 900.5, 1280L, 800L));
+        when(driver.executeCdpCommand(eq("Page.captureScreenshot"), anyMap()))
+                .thenReturn(Map.of("data", Base64.getEncoder().encodeToString(new byte[]{9, 9})));
+        Path target = tempDir.resolve("card.jpg");
+        CaptureOptions options = new CaptureOptions(ImageFormat.JPEG, 70, false, new CaptureRegion("profile-card", ".h-card"));
+
+        // When
+        long written = engine.capture(driver, target, options);
+
+        // Then
+        assertEquals(2, written);
+        assertArrayEquals(new byte[]{9, 9}, Files.readAllBytes(target));
+        verify(driver, times(1)).executeScript(anyString(), any());
+        verify(driver).executeCdpCommand(eq("Page.captureScreenshot"), argThat(params ->
+                "jpeg".equals(params.get("format"))
+                        && Integer.valueOf(70).equals(params.get("quality"))
+                        // Taller than the 800px viewport
+                        && Boolean.TRUE.equals(params.get("captureBeyondViewport"))
+                        && Double.valueOf(901).equals(((Map<?, ?>) params.get("clip")).get("height"))));
+        verify(driver, never()).executeCdpCommand(eq("Emulation.setDeviceMetricsOverride"), anyMap());
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.example.githubscreenshotmailer.screenshotmailer.utils;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.*;
+
+class BrowserProcessUtilTest {
+
+    @Test
+    void residentBytes_isEmpty_whenTheBrowserProfileIsUnknown() {
+        ChromeDriver driver = mock(ChromeDriver.class);
+
+        when(driver.getCapabilities()).thenReturn(null);
+        assertTrue(BrowserProcessUtil.residentBytes(driver).isEmpty());
+
+        when(driver.getCapabilities()).thenReturn(new ImmutableCapabilities("browserName", "chrome"));
+        assertTrue(BrowserProcessUtil.residentBytes(driver).isEmpty());
+    }
+
+    @Test
+    void residentBytes_sumsProcessesStartedWithTheProfileDirectory() throws Exception {
+        assumeTrue(Files.isDirectory(Path.of("/proc")), "needs /proc");
+
+        String dir = "/tmp/profile-" + UUID.randomUUID();
+        // sh ignores the extra argument, which stands in for Chrome's --user-data-dir flag
+        Process process = new ProcessBuilder("sh", "-c", "sleep 30", "--user-data-dir=" + dir).start();
+        try {
+            ChromeDriver driver = mock(ChromeDriver.class);
+            when(driver.getCapabilities()).thenReturn(new ImmutableCapabilities("chrome", Map.of("userDataDir", dir)));
+
+            OptionalLong rss = BrowserProcessUtil.residentBytes(driver);
+
+            assertTrue(rss.isPresent());
+            assertTrue(rss.getAsLong() > 0);
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+}
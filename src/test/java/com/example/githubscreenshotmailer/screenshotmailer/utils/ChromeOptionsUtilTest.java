@@ -3,6 +3,7 @@ package com.example.githubscreenshotmailer.screenshotmailer.utils;
 import org.junit.jupiter.api.Test;
 import org.openqa.selenium.chrome.ChromeOptions;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -65,6 +66,9 @@ class ChromeOptionsUtilTest {
                 "excludeSwitches must contain enable-automation");
         assertEquals(Boolean.FALSE, goog.get("useAutomationExtension"),
                 "useAutomationExtension should be false");
+
+        // 3) Page load strategy: readiness is decided after DOMContentLoaded, not by the load event
+        assertEquals("eager", String.valueOf(options.getCapability("pageLoadStrategy")));
     }
 
     @Test
@@ -93,4 +97,15 @@ class ChromeOptionsUtilTest {
         assertEquals(Boolean.FALSE, goog.get("useAutomationExtension"));
     }
 
+    @Test
+    void headless_withProfile_pinsProfileAndBoundedDiskCache() {
+        ChromeOptions options = ChromeOptionsUtil.headless(true, Path.of("/tmp/profile"), Path.of("/tmp/cache"), 1024);
+
+        List<String> args = extractArgs(options);
+        assertTrue(args.contains("--headless=new"));
+        assertTrue(args.contains("--user-data-dir=/tmp/profile"));
+        assertTrue(args.contains("--disk-cache-dir=/tmp/cache"));
+        assertTrue(args.contains("--disk-cache-size=1024"));
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.example.githubscreenshotmailer.screenshotmailer.utils;
 
+import com.example.githubscreenshotmailer.screenshotmailer.model.enums.ImageFormat;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -55,4 +56,9 @@ class FileUtilTest {
         assertNotEquals(name1, name2, "Two suggestions should differ (random UUID)");
     }
 
+    @Test
+    void suggestFileName_usesTheFormatsExtension() {
+        assertTrue(FileUtil.suggestFileName("octocat", ImageFormat.JPEG).matches("^octocat_[0-9a-fA-F\\-]{36}\\.jpg$"));
+        assertTrue(FileUtil.suggestFileName("octocat", ImageFormat.WEBP).endsWith(".webp"));
+    }
 }
@@ -1,14 +1,16 @@
 package com.example.githubscreenshotmailer.screenshotmailer.utils;
 
+import com.example.githubscreenshotmailer.screenshotmailer.model.GithubPageState;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatcher;
 import org.openqa.selenium.*;
-import org.openqa.selenium.WebDriver.Options;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,160 +32,82 @@ class GithubDomUtilTest {
     }
 
     @Test
-    void isLoggedIn_trueWhenUserSessionCookieExists() {
-        WebDriver d = mock(WebDriver.class);
-        Options opts = mockCookieOptions(d);
-
-        when(opts.getCookieNamed("user_session")).thenReturn(new Cookie("user_session", "xyz"));
-        assertTrue(GithubDomUtil.isLoggedIn(d));
-    }
-
-    @Test
-    void isLoggedIn_trueWhenLoggedInCookieIsYes() {
-        WebDriver d = mock(WebDriver.class);
-        Options opts = mockCookieOptions(d);
-
-        when(opts.getCookieNamed("user_session")).thenReturn(null);
-        when(opts.getCookieNamed("logged_in")).thenReturn(new Cookie("logged_in", "YES")); // case-insensitive check
-        assertTrue(GithubDomUtil.isLoggedIn(d));
-    }
-
-    @Test
-    void isLoggedIn_trueWhenDotcomUserCookieHasNonBlank() {
-        WebDriver d = mock(WebDriver.class);
-        Options opts = mockCookieOptions(d);
-
-        when(opts.getCookieNamed("user_session")).thenReturn(null);
-        when(opts.getCookieNamed("logged_in")).thenReturn(null);
-        when(opts.getCookieNamed("dotcom_user")).thenReturn(new Cookie("dotcom_user", "rapter"));
-
-        assertTrue(GithubDomUtil.isLoggedIn(d));
-    }
-
-    @Test
-    void isLoggedIn_trueWhenProfileMenuElementsExist() {
-        WebDriver d = mock(WebDriver.class);
-        Options opts = mockCookieOptions(d);
-        when(opts.getCookieNamed(anyString())).thenReturn(null);
-
-        // Return an element for one of the profile selectors (tolerant matcher)
-        when(d.findElements(argThat(bySelector("summary[aria-label*='View profile']"))))
-                .thenReturn(List.of(mock(WebElement.class)));
-        when(d.findElements(argThat(bySelector("summary[aria-label='View profile and more']"))))
-                .thenReturn(List.of());
-        when(d.findElements(argThat(bySelector("details[aria-label='View profile and more']"))))
-                .thenReturn(List.of());
-
-        // Prevent NPE: meta probe should throw NoSuchElementException (caught in util)
-        when(d.findElement(argThat(bySelector("meta[name='user-login']"))))
-                .thenThrow(new NoSuchElementException("no meta"));
-
-        assertTrue(GithubDomUtil.isLoggedIn(d));
-    }
-    
-    @Test
-    void isLoggedIn_trueWhenMetaUserLoginPresent_andNoCookiesOrProfileMenu() {
-        WebDriver d = mock(WebDriver.class);
-        Options opts = mockCookieOptions(d);
-        when(opts.getCookieNamed(anyString())).thenReturn(null);
+    void domReady_acceptsInteractiveAndComplete_butNotLoading() {
+        WebDriver d = mockJsDriver();
+        ExpectedCondition<Boolean> cond = GithubDomUtil.domReady();
 
-        // No profile menu
-        when(d.findElements(any(By.class))).thenReturn(List.of());
+        stubReadyState(d, "interactive");
+        assertEquals(Boolean.TRUE, cond.apply(d));
 
-        // meta[name='user-login'] exists and has content
-        WebElement meta = mock(WebElement.class);
-        when(meta.getAttribute("content")).thenReturn("rapter1990");
-        // 🔧 tolerant matcher so it works across Selenium variants
-        when(d.findElement(argThat(bySelector("meta[name='user-login']")))).thenReturn(meta);
+        stubReadyState(d, "complete");
+        assertEquals(Boolean.TRUE, cond.apply(d));
 
-        assertTrue(GithubDomUtil.isLoggedIn(d));
+        stubReadyState(d, "loading");
+        assertEquals(Boolean.FALSE, cond.apply(d));
     }
 
     @Test
-    void isLoggedIn_falseWhenNoCookiesNoProfileMenuNoMeta() {
-        WebDriver d = mock(WebDriver.class);
-        Options opts = mockCookieOptions(d);
-        when(opts.getCookieNamed(anyString())).thenReturn(null);
-
-        // No profile menu (empty lists)
-        when(d.findElements(any(By.class))).thenReturn(List.of());
+    void allPresent_passesSelectorsToOneScript_andMapsItsResult() {
+        WebDriver d = mockJsDriver();
+        List<String> selectors = List.of("img.avatar", ".js-yearly-contributions");
+        ExpectedCondition<Boolean> cond = GithubDomUtil.allPresent(selectors);
 
-        // meta lookup throws NoSuchElementException path
-        when(d.findElement(any(By.class))).thenThrow(new NoSuchElementException("no meta"));
+        when(((JavascriptExecutor) d).executeScript(anyString(), eq(selectors))).thenReturn(true);
+        assertEquals(Boolean.TRUE, cond.apply(d));
 
-        assertFalse(GithubDomUtil.isLoggedIn(d));
+        when(((JavascriptExecutor) d).executeScript(anyString(), eq(selectors))).thenReturn(false);
+        assertEquals(Boolean.FALSE, cond.apply(d));
+        verify((JavascriptExecutor) d, times(2)).executeScript(anyString(), eq(selectors));
     }
 
     @Test
-    void hasFlashError_trueWhenFlashErrorClassExists_falseOtherwise() {
-        WebDriver d = mock(WebDriver.class);
+    void probe_mapsSingleScriptResultToPageState() {
+        WebDriver d = mockJsDriver();
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("loggedIn", false);
+        snapshot.put("otpPage", false);
+        snapshot.put("mobilePage", true);
+        snapshot.put("flashError", false);
+        snapshot.put("challengeDigit", "42");
+        when(((JavascriptExecutor) d).executeScript(anyString(), any())).thenReturn(snapshot);
 
-        when(d.findElements(argThat(bySelector(".flash-error"))))
-                .thenReturn(List.of(mock(WebElement.class)));
-        assertTrue(GithubDomUtil.hasFlashError(d));
+        GithubPageState state = GithubDomUtil.probe(d);
 
-        // Now return empty for the same selector
-        when(d.findElements(argThat(bySelector(".flash-error"))))
-                .thenReturn(List.of());
-        assertFalse(GithubDomUtil.hasFlashError(d));
+        assertEquals(new GithubPageState(false, false, true, false, "42"), state);
+        // One round trip, with the OTP selector handed to the script instead of a findElements call
+        verify((JavascriptExecutor) d).executeScript(anyString(), eq(GithubDomUtil.OTP_INPUT_SELECTOR));
+        verify(d, never()).findElements(any());
+        verify(d, never()).getPageSource();
+        verify(d, never()).manage();
     }
 
     @Test
-    void isOtpPage_trueWhenAnyOtpInputExists_falseOtherwise() {
-        WebDriver d = mock(WebDriver.class);
-
-        // 1) Non-empty once for the exact selector used in the util
-        String otpSelector = "input#otp, input[name='otp'], input[name='verification_code']";
-        when(d.findElements(argThat(bySelector(otpSelector))))
-                .thenReturn(List.of(mock(WebElement.class)));
-
-        assertTrue(GithubDomUtil.isOtpPage(d));
-
-        // 2) Then empty for the same selector
-        when(d.findElements(argThat(bySelector(otpSelector))))
-                .thenReturn(List.of());
+    void probe_treatsMissingFlagsAsFalse_andNullDigitAsAbsent() {
+        WebDriver d = mockJsDriver();
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("loggedIn", true);
+        snapshot.put("challengeDigit", null);
+        when(((JavascriptExecutor) d).executeScript(anyString(), any())).thenReturn(snapshot);
 
-        assertFalse(GithubDomUtil.isOtpPage(d));
+        assertEquals(new GithubPageState(true, false, false, false, null), GithubDomUtil.probe(d));
     }
 
     @Test
-    void isMobileVerificationPage_respectsIsLoggedInShortCircuit() {
-        WebDriver d = mock(WebDriver.class);
+    void probe_returnsUnknown_whenScriptFailsOrReturnsNothing() {
+        WebDriver d = mockJsDriver();
 
-        // Simulate logged-in via cookie path
-        Options opts = mockCookieOptions(d);
-        when(opts.getCookieNamed("user_session")).thenReturn(new Cookie("user_session", "x"));
+        when(((JavascriptExecutor) d).executeScript(anyString(), any()))
+                .thenThrow(new JavascriptException("document unloaded"));
+        assertSame(GithubPageState.UNKNOWN, GithubDomUtil.probe(d));
 
-        assertFalse(GithubDomUtil.isMobileVerificationPage(d)); // should short-circuit to false
+        reset(d);
+        when(((JavascriptExecutor) d).executeScript(anyString(), any())).thenReturn(null);
+        assertSame(GithubPageState.UNKNOWN, GithubDomUtil.probe(d));
     }
 
     @Test
-    void isMobileVerificationPage_trueOnVerifiedDeviceUrl_orOnRecognizedPageSource() {
-        WebDriver d = mock(WebDriver.class);
-        Options opts = mockCookieOptions(d);
-
-        // Not logged in via cookies
-        when(opts.getCookieNamed(anyString())).thenReturn(null);
-
-        // No profile menu elements
-        when(d.findElements(any(By.class))).thenReturn(List.of());
-
-        // Meta <meta name="user-login"> not found (avoid NPE in isLoggedIn)
-        when(d.findElement(any(By.class))).thenThrow(new NoSuchElementException("no meta"));
-
-        // Case 1: URL contains verified-device
-        when(d.getCurrentUrl()).thenReturn("https://github.com/sessions/verified-device/setup");
-        when(d.getPageSource()).thenReturn(""); // ignored because URL already matches
-        assertTrue(GithubDomUtil.isMobileVerificationPage(d));
-
-        // Case 2: URL not matching, but page source has recognizable text (case-insensitive)
-        when(d.getCurrentUrl()).thenReturn("https://github.com/login");
-        when(d.getPageSource()).thenReturn("... Check Your Phone to Approve Sign In via GitHub Mobile ...");
-        assertTrue(GithubDomUtil.isMobileVerificationPage(d));
-
-        // Negative
-        when(d.getPageSource()).thenReturn("just a regular login screen");
-        assertFalse(GithubDomUtil.isMobileVerificationPage(d));
+    void probe_returnsUnknown_forDriversWithoutJavascript() {
+        assertSame(GithubPageState.UNKNOWN, GithubDomUtil.probe(mock(WebDriver.class)));
     }
 
     @Test
@@ -256,12 +180,6 @@ class GithubDomUtilTest {
         when(((JavascriptExecutor) driver).executeScript("return document.readyState")).thenReturn(state);
     }
 
-    private static Options mockCookieOptions(WebDriver d) {
-        Options opts = mock(Options.class);
-        when(d.manage()).thenReturn(opts);
-        return opts;
-    }
-
     private static ArgumentMatcher<By> byStringContains(String needle) {
         return by -> by != null && by.toString().contains(needle);
     }
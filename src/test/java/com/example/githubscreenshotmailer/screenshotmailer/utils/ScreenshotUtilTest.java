@@ -1,20 +1,28 @@
 package com.example.githubscreenshotmailer.screenshotmailer.utils;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InOrder;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.chrome.ChromeDriver;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Base64;
+import java.util.Random;
 import java.util.HashMap;
 import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 class ScreenshotUtilTest {
 
+    @TempDir
+    Path tempDir;
+
     @Test
     void captureFullPagePng_invokesCdpWithExpectedParams_andDecodesBase64() {
         // ----------------------
@@ -110,4 +118,30 @@ class ScreenshotUtilTest {
         verifyNoMoreInteractions(driver, js);
     }
 
-}
\ No newline at end of file
+    @Test
+    void writeBase64Image_decodesInChunksStraightToTheFile() throws Exception {
+        // Given: larger than one write chunk, and not a multiple of it
+        byte[] png = new byte[300_001];
+        new Random(42).nextBytes(png);
+        Path target = tempDir.resolve("tall.png");
+        Files.write(target, new byte[1_000_000]); // a longer previous file must be truncated
+
+        // When
+        long written = ScreenshotUtil.writeBase64Image(Base64.getEncoder().encodeToString(png), target);
+
+        // Then
+        assertEquals(png.length, written);
+        assertArrayEquals(png, Files.readAllBytes(target));
+    }
+
+    @Test
+    void writeBase64Image_deletesThePartialFile_onCorruptData() {
+        // Given
+        Path target = tempDir.resolve("broken.png");
+
+        // When & Then
+        assertThrows(IOException.class, () -> ScreenshotUtil.writeBase64Image("iVBORw0KGgo*not-base64*", target));
+        assertFalse(Files.exists(target));
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.example.githubscreenshotmailer.screenshotmailer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TotpUtilTest {
+
+    // RFC 6238 SHA-1 seed "12345678901234567890" in Base32
+    private static final String RFC_SECRET = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+
+    @Test
+    void codeAt_matchesRfc6238TestVectors_truncatedToSixDigits() {
+        assertEquals("287082", TotpUtil.codeAt(RFC_SECRET, Instant.ofEpochSecond(59)));
+        assertEquals("081804", TotpUtil.codeAt(RFC_SECRET, Instant.ofEpochSecond(1111111109)));
+        assertEquals("050471", TotpUtil.codeAt(RFC_SECRET, Instant.ofEpochSecond(1111111111)));
+    }
+
+    @Test
+    void codeAt_toleratesLowercaseAndGroupedSetupKeys() {
+        String grouped = "gezd gnbv gy3t qojq gezd gnbv gy3t qojq";
+        assertEquals(TotpUtil.codeAt(RFC_SECRET, Instant.ofEpochSecond(59)),
+                TotpUtil.codeAt(grouped, Instant.ofEpochSecond(59)));
+    }
+
+    @Test
+    void currentCode_returnsSixDigits() {
+        assertTrue(TotpUtil.currentCode(RFC_SECRET).matches("^\\d{6}$"));
+    }
+
+    @Test
+    void codeAt_rejectsNonBase32Secret() {
+        assertThrows(IllegalArgumentException.class, () -> TotpUtil.codeAt("!!!", Instant.now()));
+    }
+
+}
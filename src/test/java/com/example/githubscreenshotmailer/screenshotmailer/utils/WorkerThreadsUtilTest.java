@@ -0,0 +1,29 @@
+package com.example.githubscreenshotmailer.screenshotmailer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkerThreadsUtilTest {
+
+    @Test
+    void named_numbersThreadsFromOne_onTheRequestedKindOfThread() {
+        // when
+        ThreadFactory virtual = WorkerThreadsUtil.named("screenshot-capture-", true);
+        ThreadFactory platform = WorkerThreadsUtil.named("screenshot-mail-", false);
+
+        // then
+        Thread first = virtual.newThread(() -> {});
+        Thread second = virtual.newThread(() -> {});
+        assertTrue(first.isVirtual());
+        assertEquals("screenshot-capture-1", first.getName());
+        assertEquals("screenshot-capture-2", second.getName());
+
+        Thread mail = platform.newThread(() -> {});
+        assertFalse(mail.isVirtual());
+        assertEquals("screenshot-mail-1", mail.getName());
+    }
+
+}